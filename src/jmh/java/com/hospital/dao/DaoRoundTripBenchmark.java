@@ -0,0 +1,117 @@
+package com.hospital.dao;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.Doctor;
+import com.hospital.model.Patient;
+import com.hospital.util.DatabaseConnection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end DAO calls through the connection pool against the database configured in
+ * DB_URL / DB_USER / DB_PASS. Point these at a disposable local PostgreSQL with the
+ * schema loaded, not at a shared database: the benchmark inserts its own patients and
+ * deletes them again afterwards.
+ *
+ * The DAOs are called directly rather than through the services, so the service-level
+ * caches do not hide the round-trip.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoRoundTripBenchmark {
+    private static final int SEEDED_PATIENTS = 200;
+    // phone and email are UNIQUE: every patient gets its own, distinct from earlier runs too
+    private static final long RUN = System.currentTimeMillis() % 1_000_000;
+    private static final AtomicLong nextPatient = new AtomicLong();
+
+    private final PatientDAOImpl patientDAO = new PatientDAOImpl();
+    private final DoctorDAOImpl doctorDAO = new DoctorDAOImpl();
+    private final AppointmentDAOImpl appointmentDAO = new AppointmentDAOImpl();
+
+    private final List<Integer> patientIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void seed() throws Exception {
+        try {
+            for (int i = 0; i < SEEDED_PATIENTS; i++) {
+                int id = patientDAO.create(newPatient("Bench" + i));
+                if (id > 0) {
+                    patientIds.add(id);
+                }
+            }
+        } catch (Exception e) {
+            // JMH skips the teardown when setup fails
+            cleanUp();
+            throw e;
+        }
+        if (patientIds.isEmpty()) {
+            throw new IllegalStateException("Could not seed benchmark patients; check the database configuration");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws Exception {
+        for (int id : patientIds) {
+            patientDAO.delete(id);
+        }
+        patientIds.clear();
+        DatabaseConnection.closePool();
+    }
+
+    private static Patient newPatient(String lastName) {
+        long n = nextPatient.incrementAndGet();
+        return new Patient(null, "Jmh", lastName, LocalDate.of(1990, 1, 1), "Female",
+                String.format("+9 %06d %07d", RUN, n), "jmh." + RUN + "." + n + "@example.com", "Benchmark Street",
+                "A+", LocalDate.now());
+    }
+
+    private int randomPatientId() {
+        return patientIds.get(ThreadLocalRandom.current().nextInt(patientIds.size()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Patient patientFindById() throws Exception {
+        return patientDAO.findById(randomPatientId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Appointment> appointmentFindByPatient() throws Exception {
+        return appointmentDAO.findByPatientId(randomPatientId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Doctor> doctorSearchByName() throws Exception {
+        return doctorDAO.searchByName("an");
+    }
+
+    @Benchmark
+    public boolean patientCreateAndDelete() throws Exception {
+        int id = patientDAO.create(newPatient("Transient"));
+        return patientDAO.delete(id);
+    }
+}
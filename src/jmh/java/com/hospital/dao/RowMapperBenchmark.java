@@ -0,0 +1,112 @@
+package com.hospital.dao;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.Doctor;
+import com.hospital.model.Patient;
+import com.hospital.model.Prescription;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of the DAO row mappers. Rows come from {@link StubResultSet}, so the
+ * figures include a small reflective-proxy overhead per column that a real driver does
+ * not have; compare runs against each other rather than against driver timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RowMapperBenchmark {
+
+    private final PatientDAOImpl patientDAO = new PatientDAOImpl();
+    private final DoctorDAOImpl doctorDAO = new DoctorDAOImpl();
+    private final AppointmentDAOImpl appointmentDAO = new AppointmentDAOImpl();
+    private final PrescriptionDAOImpl prescriptionDAO = new PrescriptionDAOImpl();
+
+    private ResultSet patientRow;
+    private ResultSet doctorRow;
+    private ResultSet appointmentRow;
+    private ResultSet prescriptionRow;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> patient = new HashMap<>();
+        patient.put("patient_id", 1024);
+        patient.put("first_name", "Kwame");
+        patient.put("last_name", "Boateng");
+        patient.put("date_of_birth", Date.valueOf("1984-03-17"));
+        patient.put("gender", "Male");
+        patient.put("phone", "+233 24 555 0199");
+        patient.put("email", "kwame.boateng@example.com");
+        patient.put("address", "12 Independence Ave, Accra");
+        patient.put("blood_group", "O+");
+        patient.put("registration_date", Date.valueOf("2023-11-02"));
+        patientRow = StubResultSet.of(patient);
+
+        Map<String, Object> doctor = new HashMap<>();
+        doctor.put("doctor_id", 17);
+        doctor.put("first_name", "Efua");
+        doctor.put("last_name", "Asante");
+        doctor.put("specialization", "Cardiology");
+        doctor.put("phone", "+233 20 555 0101");
+        doctor.put("email", "efua.asante@example.com");
+        doctor.put("license_number", "GMC-55812");
+        doctor.put("department_id", 3);
+        doctorRow = StubResultSet.of(doctor);
+
+        Map<String, Object> appointment = new HashMap<>();
+        appointment.put("appointment_id", 90210);
+        appointment.put("appointment_date", Date.valueOf("2024-06-12"));
+        appointment.put("appointment_time", Time.valueOf("09:45:00"));
+        appointment.put("status", "Scheduled");
+        appointment.put("patient_id", 1024);
+        appointment.put("doctor_id", 17);
+        appointmentRow = StubResultSet.of(appointment);
+
+        Map<String, Object> prescription = new HashMap<>();
+        prescription.put("prescription_id", 5150);
+        prescription.put("prescription_date", Date.valueOf("2024-06-12"));
+        prescription.put("patient_id", 1024);
+        prescription.put("doctor_id", 17);
+        prescription.put("appointment_id", null);
+        prescriptionRow = StubResultSet.of(prescription);
+    }
+
+    @Benchmark
+    public Patient patient() throws SQLException {
+        return patientDAO.mapRow(patientRow);
+    }
+
+    @Benchmark
+    public Doctor doctor() throws SQLException {
+        return doctorDAO.mapRow(doctorRow);
+    }
+
+    @Benchmark
+    public Appointment appointment() throws SQLException {
+        return appointmentDAO.mapRow(appointmentRow);
+    }
+
+    @Benchmark
+    public Prescription prescription() throws SQLException {
+        return prescriptionDAO.mapRow(prescriptionRow);
+    }
+}
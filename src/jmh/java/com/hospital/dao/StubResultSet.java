@@ -0,0 +1,41 @@
+package com.hospital.dao;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Map;
+
+/**
+ * In-memory stand-in for a single-row {@link ResultSet}, so row mappers can be measured
+ * without a database. Supports the getters the mappers use, plus {@code wasNull}.
+ */
+final class StubResultSet {
+
+    private StubResultSet() {
+    }
+
+    static ResultSet of(Map<String, Object> row) {
+        Object[] lastValue = new Object[1];
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getInt": {
+                            Object value = lastValue[0] = row.get((String) args[0]);
+                            return value == null ? 0 : ((Number) value).intValue();
+                        }
+                        case "getString":
+                        case "getDate":
+                        case "getTime":
+                        case "getObject":
+                            return lastValue[0] = row.get((String) args[0]);
+                        case "wasNull":
+                            return lastValue[0] == null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,55 @@
+package com.hospital.model;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion cost between {@link PatientNote} and its MongoDB document, paid for every
+ * note saved or loaded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PatientNoteBenchmark {
+
+    private PatientNote note;
+    private Document document;
+
+    @Setup
+    public void setUp() {
+        note = new PatientNote(42, "Patient reports mild headache after starting new medication. "
+                + "Advised to reduce dose and return in two weeks if symptoms persist.");
+        note.setId(new ObjectId());
+        note.getMetadata().put("author", "Dr. Owusu");
+        note.getMetadata().put("category", "follow-up");
+        note.getMetadata().put("severity", 2);
+        // The driver decodes nested objects as Documents, which is what fromDocument expects
+        document = note.toDocument();
+        document.put("metadata", new Document(note.getMetadata()));
+    }
+
+    @Benchmark
+    public Document toDocument() {
+        return note.toDocument();
+    }
+
+    @Benchmark
+    public PatientNote fromDocument() {
+        return PatientNote.fromDocument(document);
+    }
+}
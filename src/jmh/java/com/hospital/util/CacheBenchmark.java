@@ -0,0 +1,91 @@
+package com.hospital.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link Cache} reads and writes with several threads hitting the same
+ * instance, the way the shared registry caches are used from background tasks.
+ *
+ * Keys are drawn from a skewed distribution (a few hot patients, a long tail) over a key
+ * space twice the cache size, so the eviction policy is exercised as well as the lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+
+    @Param({"1000", "10000"})
+    int maximumSize;
+
+    private Cache<Integer, String> cache;
+    private int keySpace;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new Cache<>(60, maximumSize);
+        keySpace = maximumSize * 2;
+        for (int i = 0; i < keySpace; i++) {
+            cache.put(nextKey(), "patient-" + i);
+        }
+    }
+
+    // Squaring a uniform value skews lookups towards low ids
+    private int nextKey() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        return (int) (u * u * keySpace);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String get() {
+        return cache.get(nextKey());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void put() {
+        int key = nextKey();
+        cache.put(key, "patient-" + key);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public String mixedGet() {
+        return cache.get(nextKey());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedPut() {
+        int key = nextKey();
+        cache.put(key, "patient-" + key);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String getWithLoader() throws Exception {
+        return cache.get(nextKey(), key -> "patient-" + key);
+    }
+}
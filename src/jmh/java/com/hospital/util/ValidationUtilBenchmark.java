@@ -0,0 +1,70 @@
+package com.hospital.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link ValidationUtil} regular expressions for typical valid and invalid input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationUtilBenchmark {
+
+    @Param({"valid", "invalid"})
+    String input;
+
+    private String email;
+    private String phone;
+    private String name;
+    private String bloodGroup;
+
+    @Setup
+    public void setUp() {
+        if ("valid".equals(input)) {
+            email = "ama.mensah@example.com";
+            phone = "+233 (20) 555-0134";
+            name = "Ama Serwaa Mensah";
+            bloodGroup = "ab+";
+        } else {
+            email = "ama.mensah.example.com";
+            phone = "020-555-01x4";
+            name = "Ama2 Mensah";
+            bloodGroup = "C+";
+        }
+    }
+
+    @Benchmark
+    public boolean validateEmail() {
+        return ValidationUtil.validateEmail(email);
+    }
+
+    @Benchmark
+    public boolean validatePhone() {
+        return ValidationUtil.validatePhone(phone);
+    }
+
+    @Benchmark
+    public boolean validateName() {
+        return ValidationUtil.validateName(name);
+    }
+
+    @Benchmark
+    public boolean validateBloodGroup() {
+        return ValidationUtil.validateBloodGroup(bloodGroup);
+    }
+}
@@ -1,6 +1,8 @@
 package com.hospital;
 
+import com.hospital.util.BackgroundScheduler;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.TaskExecutor;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -32,6 +34,9 @@ public class Main extends Application {
     @Override
     public void stop() throws Exception {
         super.stop();
+        // Stop background tasks and periodic jobs before the pool they query goes away
+        TaskExecutor.shutdown();
+        BackgroundScheduler.shutdown();
         // Close connection pool
         DatabaseConnection.closePool();
     }
@@ -1,15 +1,26 @@
 package com.hospital.controller;
 
 import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentListing;
+import com.hospital.model.AppointmentSeries;
 import com.hospital.model.Doctor;
 import com.hospital.model.Patient;
+import com.hospital.service.AppointmentSeriesService;
 import com.hospital.service.AppointmentService;
+import com.hospital.service.DoctorAvailabilityService;
 import com.hospital.service.DoctorService;
 import com.hospital.service.PatientService;
+import com.hospital.service.SearchIndexService;
+import com.hospital.service.ServiceRegistry;
 import com.hospital.util.AlertUtil;
+import com.hospital.util.IntObjectIndex;
+import com.hospital.util.LazyPagedList;
+import com.hospital.util.PagedLoader;
+import com.hospital.util.SearchPipeline;
+import com.hospital.util.TaskExecutor;
+import com.hospital.util.TypeAhead;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -22,11 +33,19 @@ import javafx.scene.layout.HBox;
 import javafx.geometry.Insets;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class AppointmentSchedulingController {
+    private static final int PAGE_SIZE = 100;
+    private static final int BLOCK_SIZE = 100;
+    private static final int MAX_BLOCKS = 10;
+    private static final String REPEAT_NONE = "None";
+
     @FXML
     private DatePicker dpDate;
     @FXML
@@ -34,27 +53,31 @@ public class AppointmentSchedulingController {
     @FXML
     private ComboBox<Patient> cmbPatient;
     @FXML
-    private TextField txtTime;
+    private ComboBox<LocalTime> cmbTime;
+    @FXML
+    private ComboBox<String> cmbRepeat;
+    @FXML
+    private TextField txtOccurrences;
     @FXML
     private Button btnSchedule;
     @FXML
     private TextField txtSearch;
     @FXML
-    private TableView<Appointment> tableAppointments;
+    private TableView<AppointmentListing> tableAppointments;
     @FXML
-    private TableColumn<Appointment, Integer> colId;
+    private TableColumn<AppointmentListing, Integer> colId;
     @FXML
-    private TableColumn<Appointment, String> colDate;
+    private TableColumn<AppointmentListing, String> colDate;
     @FXML
-    private TableColumn<Appointment, String> colTime;
+    private TableColumn<AppointmentListing, String> colTime;
     @FXML
-    private TableColumn<Appointment, String> colPatient;
+    private TableColumn<AppointmentListing, String> colPatient;
     @FXML
-    private TableColumn<Appointment, String> colDoctor;
+    private TableColumn<AppointmentListing, String> colDoctor;
     @FXML
-    private TableColumn<Appointment, String> colStatus;
+    private TableColumn<AppointmentListing, String> colStatus;
     @FXML
-    private TableColumn<Appointment, String> colActions;
+    private TableColumn<AppointmentListing, String> colActions;
     @FXML
     private Label lblAppointmentCount;
     @FXML
@@ -62,14 +85,31 @@ public class AppointmentSchedulingController {
     @FXML
     private Label lblLastUpdate;
 
-    private final AppointmentService appointmentService = new AppointmentService();
-    private final DoctorService doctorService = new DoctorService();
-    private final PatientService patientService = new PatientService();
-
-    private final ObservableList<Appointment> data = FXCollections.observableArrayList();
+    private final AppointmentService appointmentService = ServiceRegistry.getAppointmentService();
+    private final AppointmentSeriesService seriesService = ServiceRegistry.getAppointmentSeriesService();
+    private final DoctorService doctorService = ServiceRegistry.getDoctorService();
+    private final PatientService patientService = ServiceRegistry.getPatientService();
+    private final SearchIndexService searchIndex = ServiceRegistry.getSearchIndexService();
+    private final DoctorAvailabilityService availability = ServiceRegistry.getDoctorAvailabilityService();
+
+    // The selected day's appointments, fetched a block at a time as the table scrolls
+    private final LazyPagedList<AppointmentListing> rows = new LazyPagedList<>(BLOCK_SIZE, MAX_BLOCKS, null);
+    // The selected day's search matches
+    private final ObservableList<AppointmentListing> data = FXCollections.observableArrayList();
     private final ObservableList<Doctor> doctors = FXCollections.observableArrayList();
     private final ObservableList<Patient> patients = FXCollections.observableArrayList();
-    private FilteredList<Appointment> filteredData;
+    private final SearchPipeline<List<AppointmentListing>> searchPipeline = new SearchPipeline<>(this::searchDay,
+            this::showSearchResults);
+    // Id lookups for the edit dialog's combo boxes, kept in step with their lists
+    private final IntObjectIndex<Doctor> doctorIndex = IntObjectIndex.of(doctors, Doctor::getDoctorId);
+    private final IntObjectIndex<Patient> patientIndex = IntObjectIndex.of(patients, Patient::getPatientId);
+    // Bumped on every slot load, so a slow load for an earlier doctor or date is dropped
+    private long slotGeneration;
+
+    private final PagedLoader<Doctor> doctorPages = new PagedLoader<>(doctors, PAGE_SIZE,
+            (after, limit) -> doctorService.getPage(after == null ? 0 : after.getDoctorId(), limit));
+    private final PagedLoader<Patient> patientPages = new PagedLoader<>(patients, PAGE_SIZE,
+            (after, limit) -> patientService.getPatientPage(after == null ? 0 : after.getPatientId(), limit));
 
     /**
      * Initializes the controller, sets up bindings and loads initial data.
@@ -79,13 +119,27 @@ public class AppointmentSchedulingController {
         System.out.println("AppointmentSchedulingController initialized");
 
         // Set up table
-        tableAppointments.setItems(data);
+        tableAppointments.setItems(rows);
         cmbDoctor.setItems(doctors);
         cmbPatient.setItems(patients);
+        doctorPages.attachTo(cmbDoctor);
+        patientPages.attachTo(cmbPatient);
 
-        // Set up filtered data for search
-        filteredData = new FilteredList<>(data, p -> true);
-        tableAppointments.setItems(filteredData);
+        // Search replaces the table's rows with the day's matches
+        searchPipeline.setOnCleared(() -> {
+            tableAppointments.setItems(rows);
+            updateAppointmentCount();
+        });
+        searchPipeline.attachTo(txtSearch);
+        rows.setOnReloaded(() -> {
+            updateAppointmentCount();
+            updateLastUpdateTime();
+            updateStatus("Ready");
+        });
+        rows.setOnFailed(e -> {
+            AlertUtil.showError("Error", "Failed to load appointments: " + e.getMessage());
+            updateStatus("Error loading appointments");
+        });
 
         // Set up table columns
         setupTableColumns();
@@ -106,22 +160,26 @@ public class AppointmentSchedulingController {
      * Sets up table column properties and custom cell factories.
      */
     private void setupTableColumns() {
-        colId.setCellValueFactory(c -> new javafx.beans.property.SimpleObjectProperty<>(c.getValue().getAppointmentId()));
+        // Rows whose block is still loading are null
+        colId.setCellValueFactory(c -> new javafx.beans.property.SimpleObjectProperty<>(
+            c.getValue() == null ? null : c.getValue().getAppointmentId()));
         colDate.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
-            c.getValue().getAppointmentDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))));
+            c.getValue() == null ? "Loading..." : c.getValue().getAppointmentDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"))));
         colTime.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
-            c.getValue().getAppointmentTime().format(DateTimeFormatter.ofPattern("HH:mm"))));
+            c.getValue() == null ? null : c.getValue().getAppointmentTime().format(DateTimeFormatter.ofPattern("HH:mm"))));
         colPatient.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
-            getPatientName(c.getValue().getPatientId())));
+            c.getValue() == null ? null : c.getValue().getPatientName()));
         colDoctor.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
-            getDoctorName(c.getValue().getDoctorId())));
+            c.getValue() == null ? null : "Dr. " + c.getValue().getDoctorName()));
         colStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
+        // Sorting reads every row of the lazy list and writes them back, which it does not support
+        tableAppointments.getColumns().forEach(column -> column.setSortable(false));
 
         // Custom cell factory for status column with color coding
-        colStatus.setCellFactory(new Callback<TableColumn<Appointment, String>, TableCell<Appointment, String>>() {
+        colStatus.setCellFactory(new Callback<TableColumn<AppointmentListing, String>, TableCell<AppointmentListing, String>>() {
             @Override
-            public TableCell<Appointment, String> call(TableColumn<Appointment, String> param) {
-                return new TableCell<Appointment, String>() {
+            public TableCell<AppointmentListing, String> call(TableColumn<AppointmentListing, String> param) {
+                return new TableCell<AppointmentListing, String>() {
                     @Override
                     protected void updateItem(String status, boolean empty) {
                         super.updateItem(status, empty);
@@ -151,9 +209,9 @@ public class AppointmentSchedulingController {
         });
 
         // Custom cell factory for actions column with buttons
-        colActions.setCellFactory(new Callback<TableColumn<Appointment, String>, TableCell<Appointment, String>>() {
+        colActions.setCellFactory(new Callback<TableColumn<AppointmentListing, String>, TableCell<AppointmentListing, String>>() {
             @Override
-            public TableCell<Appointment, String> call(TableColumn<Appointment, String> param) {
+            public TableCell<AppointmentListing, String> call(TableColumn<AppointmentListing, String> param) {
                 return new ActionButtonCell(AppointmentSchedulingController.this);
             }
         });
@@ -188,74 +246,124 @@ public class AppointmentSchedulingController {
                 return null; // Not used
             }
         });
+
+        TypeAhead.install(cmbDoctor, searchIndex::searchDoctors);
+        TypeAhead.install(cmbPatient, searchIndex::searchPatients);
+
+        cmbTime.setConverter(new javafx.util.StringConverter<LocalTime>() {
+            @Override
+            public String toString(LocalTime time) {
+                return time == null ? "" : time.format(DateTimeFormatter.ofPattern("HH:mm"));
+            }
+
+            @Override
+            public LocalTime fromString(String string) {
+                return null; // Not used
+            }
+        });
+        cmbRepeat.setItems(FXCollections.observableArrayList(REPEAT_NONE, "Daily", "Weekly", "Monthly"));
+        cmbRepeat.setValue(REPEAT_NONE);
+        txtOccurrences.disableProperty().bind(cmbRepeat.valueProperty().isEqualTo(REPEAT_NONE));
+        cmbDoctor.valueProperty().addListener((obs, oldDoctor, doctor) -> loadFreeSlots());
+        dpDate.valueProperty().addListener((obs, oldDate, date) -> loadFreeSlots());
     }
 
     /**
-     * Loads doctors in a background thread.
+     * Offers the selected doctor's free slots on the selected date. When the day is full,
+     * the prompt names the doctor's next free slot instead.
      */
-    private void loadDoctors() {
-        Task<List<Doctor>> task = new Task<>() {
+    private void loadFreeSlots() {
+        final long current = ++slotGeneration;
+        final Doctor doctor = cmbDoctor.getValue();
+        final LocalDate date = dpDate.getValue();
+        cmbTime.getItems().clear();
+        if (doctor == null || date == null) {
+            cmbTime.setPromptText("Select doctor and date");
+            return;
+        }
+        cmbTime.setPromptText("Loading free slots...");
+        Task<List<LocalTime>> task = new Task<>() {
             @Override
-            protected List<Doctor> call() throws Exception {
-                return doctorService.getAll();
+            protected List<LocalTime> call() throws Exception {
+                List<LocalTime> free = availability.getFreeSlots(doctor.getDoctorId(), date);
+                if (free.isEmpty()) {
+                    LocalDateTime now = LocalDateTime.now();
+                    LocalDateTime from = date.atStartOfDay().isAfter(now) ? date.atStartOfDay() : now;
+                    LocalDateTime next = availability.findNextAvailable(doctor.getDoctorId(), from);
+                    updateMessage(next == null ? "No free slots"
+                            : "Fully booked - next free " + next.format(DateTimeFormatter.ofPattern("EEE dd MMM HH:mm")));
+                }
+                return free;
             }
         };
-        task.setOnSucceeded(e -> doctors.setAll(task.getValue()));
-        task.setOnFailed(
-                e -> AlertUtil.showError("Error", "Failed to load doctors: " + task.getException().getMessage()));
-        new Thread(task).start();
+        task.setOnSucceeded(e -> {
+            if (current == slotGeneration) {
+                cmbTime.getItems().setAll(task.getValue());
+                cmbTime.setPromptText(task.getValue().isEmpty() ? task.getMessage() : "Choose a time");
+            }
+        });
+        task.setOnFailed(e -> {
+            if (current == slotGeneration) {
+                cmbTime.setPromptText("Slots unavailable");
+                AlertUtil.showError("Error", "Failed to load free slots: " + task.getException().getMessage());
+            }
+        });
+        TaskExecutor.execute(task);
+    }
+
+    /**
+     * Loads the first page of doctors; more are fetched as the combo box list is scrolled.
+     */
+    private void loadDoctors() {
+        doctorPages.reload();
     }
 
     /**
-     * Loads patients in a background thread.
+     * Loads the first page of patients; more are fetched as the combo box list is scrolled.
      */
     private void loadPatients() {
-        Task<List<Patient>> task = new Task<>() {
-            @Override
-            protected List<Patient> call() throws Exception {
-                return patientService.getAllPatients();
-            }
-        };
-        task.setOnSucceeded(e -> patients.setAll(task.getValue()));
-        task.setOnFailed(
-                e -> AlertUtil.showError("Error", "Failed to load patients: " + task.getException().getMessage()));
-        new Thread(task).start();
+        patientPages.reload();
     }
 
     /**
-     * Refreshes the appointment table in a background thread based on selected
-     * date.
+     * Refreshes the appointment table for the selected date. Only the count and the first
+     * block are fetched up front; further rows load as the table is scrolled. Each row
+     * comes with its patient and doctor names from a single JOIN.
      */
     private void refreshTable() {
-        LocalDate d = dpDate.getValue();
-        final LocalDate date = (d == null) ? LocalDate.now() : d;
+        final LocalDate date = selectedDate();
 
         updateStatus("Loading appointments...");
+        rows.reload(new LazyPagedList.BlockSource<>() {
+            @Override
+            public int count() throws Exception {
+                return appointmentService.countListings(date, date, null);
+            }
 
-        Task<List<Appointment>> task = new Task<>() {
             @Override
-            protected List<Appointment> call() throws Exception {
-                return appointmentService.getByDate(date);
+            public List<AppointmentListing> fetch(AppointmentListing previous, int offset, int limit) throws Exception {
+                return previous != null
+                        ? appointmentService.getListingsAfter(date, date, null, previous, limit)
+                        : appointmentService.getListingRange(date, date, null, offset, limit);
             }
-        };
-        task.setOnSucceeded(e -> {
-            data.setAll(task.getValue());
-            updateAppointmentCount();
-            updateLastUpdateTime();
-            updateStatus("Ready");
-        });
-        task.setOnFailed(e -> {
-            AlertUtil.showError("Error", "Failed to load appointments: " + task.getException().getMessage());
-            updateStatus("Error loading appointments");
         });
-        new Thread(task).start();
+        if (tableAppointments.getItems() == data) {
+            onSearch();
+        }
+        // Edits, cancellations and deletions free or take slots too
+        loadFreeSlots();
+    }
+
+    private LocalDate selectedDate() {
+        LocalDate d = dpDate.getValue();
+        return (d == null) ? LocalDate.now() : d;
     }
 
     /**
      * Updates the appointment count label.
      */
     private void updateAppointmentCount() {
-        int count = filteredData.size();
+        int count = tableAppointments.getItems().size();
         lblAppointmentCount.setText("(" + count + " appointment" + (count != 1 ? "s" : "") + ")");
     }
 
@@ -275,27 +383,34 @@ public class AppointmentSchedulingController {
     }
 
     /**
-     * Gets patient name by ID.
+     * The appointment's patient: the loaded combo box item if there is one, otherwise a
+     * stand-in built from the listing so the edit dialog can show and keep it.
      */
-    private String getPatientName(int patientId) {
-        for (Patient patient : patients) {
-            if (patient.getPatientId() == patientId) {
-                return patient.getFirstName() + " " + patient.getLastName();
-            }
+    private Patient findPatient(AppointmentListing appointment) {
+        Patient patient = patientIndex.get(appointment.getPatientId());
+        if (patient == null) {
+            patient = new Patient();
+            patient.setPatientId(appointment.getPatientId());
+            patient.setFirstName(appointment.getPatientFirstName());
+            patient.setLastName(appointment.getPatientLastName());
         }
-        return "Patient #" + patientId;
+        return patient;
     }
 
     /**
-     * Gets doctor name by ID.
+     * The appointment's doctor: the loaded combo box item if there is one, otherwise a
+     * stand-in built from the listing.
      */
-    private String getDoctorName(int doctorId) {
-        for (Doctor doctor : doctors) {
-            if (doctor.getDoctorId() == doctorId) {
-                return "Dr. " + doctor.getFirstName() + " " + doctor.getLastName();
-            }
+    private Doctor findDoctor(AppointmentListing appointment) {
+        Doctor doctor = doctorIndex.get(appointment.getDoctorId());
+        if (doctor == null) {
+            doctor = new Doctor();
+            doctor.setDoctorId(appointment.getDoctorId());
+            doctor.setFirstName(appointment.getDoctorFirstName());
+            doctor.setLastName(appointment.getDoctorLastName());
+            doctor.setSpecialization(appointment.getDoctorSpecialization());
         }
-        return "Doctor #" + doctorId;
+        return doctor;
     }
 
     /**
@@ -304,10 +419,10 @@ public class AppointmentSchedulingController {
      */
     @FXML
     public void onSchedule() {
-        Doctor doc = cmbDoctor.getSelectionModel().getSelectedItem();
-        Patient pat = cmbPatient.getSelectionModel().getSelectedItem();
+        Doctor doc = cmbDoctor.getValue();
+        Patient pat = cmbPatient.getValue();
         LocalDate date = dpDate.getValue();
-        String timeStr = txtTime.getText();
+        LocalTime time = cmbTime.getValue();
 
         if (doc == null) {
             AlertUtil.showError("Validation", "Select a doctor");
@@ -321,36 +436,81 @@ public class AppointmentSchedulingController {
             AlertUtil.showError("Validation", "Invalid date (cannot be past)");
             return;
         }
-        if (!ValidationUtil.validateRequired(timeStr)) {
-            AlertUtil.showError("Validation", "Time is required");
+        if (time == null) {
+            AlertUtil.showError("Validation", "Select a time slot");
+            return;
+        }
+        if (!REPEAT_NONE.equals(cmbRepeat.getValue())) {
+            scheduleSeries(doc, pat, date, time);
             return;
         }
 
-        try {
-            final LocalTime time = LocalTime.parse(timeStr);
-            final Appointment a = new Appointment();
-            a.setDoctorId(doc.getDoctorId());
-            a.setPatientId(pat.getPatientId());
-            a.setAppointmentDate(date);
-            a.setAppointmentTime(time);
-            a.setStatus("Scheduled");
-
-            Task<Integer> task = new Task<>() {
-                @Override
-                protected Integer call() throws Exception {
-                    return appointmentService.scheduleAppointment(a);
-                }
-            };
-            task.setOnSucceeded(e -> {
-                AlertUtil.showInfo("Scheduled", "Appointment id=" + task.getValue());
-                refreshTable();
-            });
-            task.setOnFailed(e -> AlertUtil.showError("Schedule Error", task.getException().getMessage()));
-            new Thread(task).start();
+        final Appointment a = new Appointment();
+        a.setDoctorId(doc.getDoctorId());
+        a.setPatientId(pat.getPatientId());
+        a.setAppointmentDate(date);
+        a.setAppointmentTime(time);
+        a.setStatus("Scheduled");
+
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return appointmentService.scheduleAppointment(a);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            AlertUtil.showInfo("Scheduled", "Appointment id=" + task.getValue());
+            refreshTable();
+        });
+        task.setOnFailed(e -> {
+            AlertUtil.showError("Schedule Error", task.getException().getMessage());
+            loadFreeSlots();
+        });
+        TaskExecutor.execute(task);
+    }
 
-        } catch (Exception e) {
-            AlertUtil.showError("Validation", "Invalid time format (use HH:mm)");
+    /**
+     * Creates a recurring series from the schedule form, starting on the selected date and
+     * slot. Every occurrence is checked for clashes before anything is saved.
+     */
+    private void scheduleSeries(Doctor doc, Patient pat, LocalDate date, LocalTime time) {
+        int count;
+        try {
+            count = Integer.parseInt(txtOccurrences.getText().trim());
+        } catch (NumberFormatException e) {
+            AlertUtil.showError("Validation", "Enter the number of occurrences");
+            return;
         }
+        if (count < 1 || count > AppointmentSeriesService.MAX_OCCURRENCES) {
+            AlertUtil.showError("Validation", "Occurrences must be between 1 and " + AppointmentSeriesService.MAX_OCCURRENCES);
+            return;
+        }
+
+        final AppointmentSeries series = new AppointmentSeries();
+        series.setDoctorId(doc.getDoctorId());
+        series.setPatientId(pat.getPatientId());
+        series.setStartDate(date);
+        series.setAppointmentTime(time);
+        series.setFrequency(AppointmentSeries.Frequency.valueOf(cmbRepeat.getValue().toUpperCase()));
+        series.setOccurrenceCount(count);
+
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return seriesService.createSeries(series);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            AlertUtil.showInfo("Scheduled", count + " appointments scheduled, series id=" + task.getValue());
+            cmbRepeat.setValue(REPEAT_NONE);
+            txtOccurrences.clear();
+            refreshTable();
+        });
+        task.setOnFailed(e -> {
+            AlertUtil.showError("Schedule Error", task.getException().getMessage());
+            loadFreeSlots();
+        });
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -366,21 +526,37 @@ public class AppointmentSchedulingController {
      */
     @FXML
     public void onSearch() {
-        String searchText = txtSearch.getText().toLowerCase();
-        if (searchText == null || searchText.isEmpty()) {
-            filteredData.setPredicate(p -> true);
-        } else {
-            filteredData.setPredicate(appointment -> {
-                String patientName = getPatientName(appointment.getPatientId()).toLowerCase();
-                String doctorName = getDoctorName(appointment.getDoctorId()).toLowerCase();
+        searchPipeline.submitNow(txtSearch.getText());
+    }
+
+    /**
+     * Searches the selected day's appointments by patient, doctor, status or date. Filtering
+     * needs the whole day, not just the blocks loaded so far.
+     */
+    private Callable<List<AppointmentListing>> searchDay(String text) {
+        String searchText = text.toLowerCase();
+        final LocalDate date = selectedDate();
+        return () -> {
+            List<AppointmentListing> matches = new ArrayList<>();
+            for (AppointmentListing appointment : appointmentService.getListings(date, date, null)) {
+                String patientName = appointment.getPatientName().toLowerCase();
+                String doctorName = ("Dr. " + appointment.getDoctorName()).toLowerCase();
                 String status = appointment.getStatus().toLowerCase();
 
-                return patientName.contains(searchText) ||
-                       doctorName.contains(searchText) ||
-                       status.contains(searchText) ||
-                       appointment.getAppointmentDate().toString().contains(searchText);
-            });
-        }
+                if (patientName.contains(searchText) ||
+                    doctorName.contains(searchText) ||
+                    status.contains(searchText) ||
+                    appointment.getAppointmentDate().toString().contains(searchText)) {
+                    matches.add(appointment);
+                }
+            }
+            return matches;
+        };
+    }
+
+    private void showSearchResults(List<AppointmentListing> matches) {
+        data.setAll(matches);
+        tableAppointments.setItems(data);
         updateAppointmentCount();
     }
 
@@ -389,7 +565,7 @@ public class AppointmentSchedulingController {
      */
     @FXML
     public void onEdit() {
-        Appointment selected = tableAppointments.getSelectionModel().getSelectedItem();
+        AppointmentListing selected = tableAppointments.getSelectionModel().getSelectedItem();
         if (selected == null) {
             AlertUtil.showError("Edit", "No appointment selected");
             return;
@@ -398,7 +574,7 @@ public class AppointmentSchedulingController {
         // Create edit dialog
         Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Edit Appointment");
-        dialog.setHeaderText("Edit appointment #" + selected.getAppointmentId());
+        dialog.setHeaderText("Edit " + describe(selected));
 
         // Create form fields
         DatePicker editDatePicker = new DatePicker(selected.getAppointmentDate());
@@ -409,14 +585,12 @@ public class AppointmentSchedulingController {
         // Setup combo boxes
         editDoctorCombo.setItems(doctors);
         editPatientCombo.setItems(patients);
+        doctorPages.attachTo(editDoctorCombo);
+        patientPages.attachTo(editPatientCombo);
 
         // Set current values
-        editDoctorCombo.setValue(doctors.stream()
-            .filter(d -> d.getDoctorId() == selected.getDoctorId())
-            .findFirst().orElse(null));
-        editPatientCombo.setValue(patients.stream()
-            .filter(p -> p.getPatientId() == selected.getPatientId())
-            .findFirst().orElse(null));
+        editDoctorCombo.setValue(findDoctor(selected));
+        editPatientCombo.setValue(findPatient(selected));
 
         // Setup combo box display
         editDoctorCombo.setConverter(new javafx.util.StringConverter<Doctor>() {
@@ -438,6 +612,8 @@ public class AppointmentSchedulingController {
             @Override
             public Patient fromString(String string) { return null; }
         });
+        TypeAhead.install(editDoctorCombo, searchIndex::searchDoctors);
+        TypeAhead.install(editPatientCombo, searchIndex::searchPatients);
 
         // Create form layout
         GridPane grid = new GridPane();
@@ -481,12 +657,18 @@ public class AppointmentSchedulingController {
                 // Update appointment
                 try {
                     LocalTime time = LocalTime.parse(editTimeField.getText().trim(), DateTimeFormatter.ofPattern("HH:mm"));
-                    selected.setAppointmentDate(editDatePicker.getValue());
-                    selected.setAppointmentTime(time);
-                    selected.setDoctorId(editDoctorCombo.getValue().getDoctorId());
-                    selected.setPatientId(editPatientCombo.getValue().getPatientId());
-
-                    updateAppointment(selected);
+                    // An occurrence stays as listed until its replacement is saved
+                    Appointment edited = selected.isOccurrence() ? copyOf(selected) : selected;
+                    edited.setAppointmentDate(editDatePicker.getValue());
+                    edited.setAppointmentTime(time);
+                    edited.setDoctorId(editDoctorCombo.getValue().getDoctorId());
+                    edited.setPatientId(editPatientCombo.getValue().getPatientId());
+
+                    if (selected.isOccurrence()) {
+                        replaceOccurrence(selected, edited, "Appointment updated successfully");
+                    } else {
+                        updateAppointment(edited);
+                    }
                 } catch (Exception e) {
                     AlertUtil.showError("Error", "Invalid time format. Use HH:MM format.");
                     return null;
@@ -526,7 +708,7 @@ public class AppointmentSchedulingController {
             updateStatus("Update failed");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -546,7 +728,7 @@ public class AppointmentSchedulingController {
         }
 
         boolean confirm = AlertUtil.confirm("Confirm Complete",
-            "Mark appointment #" + selected.getAppointmentId() + " as completed?");
+            "Mark " + describe(selected) + " as completed?");
         if (!confirm) return;
 
         updateAppointmentStatus(selected, "Completed");
@@ -569,7 +751,7 @@ public class AppointmentSchedulingController {
         }
 
         boolean confirm = AlertUtil.confirm("Confirm Cancel",
-            "Cancel appointment #" + selected.getAppointmentId() + "?");
+            "Cancel " + describe(selected) + "?");
         if (!confirm) return;
 
         updateAppointmentStatus(selected, "Cancelled");
@@ -587,7 +769,7 @@ public class AppointmentSchedulingController {
         }
 
         boolean confirm = AlertUtil.confirm("Confirm Delete",
-            "Permanently delete appointment #" + selected.getAppointmentId() + "? This action cannot be undone.");
+            "Permanently delete " + describe(selected) + "? This action cannot be undone.");
         if (!confirm) return;
 
         updateStatus("Deleting appointment...");
@@ -595,7 +777,9 @@ public class AppointmentSchedulingController {
         Task<Boolean> task = new Task<>() {
             @Override
             protected Boolean call() throws Exception {
-                return appointmentService.deleteAppointment(selected.getAppointmentId());
+                // Deleting an occurrence only takes it out of its series
+                return selected.isOccurrence() ? seriesService.removeOccurrence(selected)
+                        : appointmentService.deleteAppointment(selected.getAppointmentId());
             }
         };
 
@@ -614,7 +798,7 @@ public class AppointmentSchedulingController {
             updateStatus("Delete failed");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -622,6 +806,21 @@ public class AppointmentSchedulingController {
      */
     @FXML
     public void onViewStats() {
+        // The table holds only the loaded blocks, so count over the whole day, series
+        // occurrences included like the table
+        final LocalDate date = selectedDate();
+        Task<List<AppointmentListing>> task = new Task<>() {
+            @Override
+            protected List<AppointmentListing> call() throws Exception {
+                return appointmentService.getListings(date, date, null);
+            }
+        };
+        task.setOnSucceeded(e -> showStats(task.getValue()));
+        task.setOnFailed(e -> AlertUtil.showError("Statistics Error", task.getException().getMessage()));
+        TaskExecutor.execute(task);
+    }
+
+    private void showStats(List<AppointmentListing> data) {
         // Calculate statistics
         long scheduled = data.stream().filter(a -> "Scheduled".equals(a.getStatus())).count();
         long completed = data.stream().filter(a -> "Completed".equals(a.getStatus())).count();
@@ -647,7 +846,7 @@ public class AppointmentSchedulingController {
     /**
      * Custom table cell with action buttons for each appointment row.
      */
-    public static class ActionButtonCell extends TableCell<Appointment, String> {
+    public static class ActionButtonCell extends TableCell<AppointmentListing, String> {
         private final Button btnComplete = new Button("✅");
         private final Button btnCancel = new Button("❌");
         private final HBox container = new HBox(5);
@@ -658,12 +857,14 @@ public class AppointmentSchedulingController {
 
             btnComplete.setOnAction(e -> {
                 Appointment appointment = getTableView().getItems().get(getIndex());
-                controller.handleCompleteAction(appointment);
+                if (appointment != null)
+                    controller.handleCompleteAction(appointment);
             });
 
             btnCancel.setOnAction(e -> {
                 Appointment appointment = getTableView().getItems().get(getIndex());
-                controller.handleCancelAction(appointment);
+                if (appointment != null)
+                    controller.handleCancelAction(appointment);
             });
 
             container.getChildren().addAll(btnComplete, btnCancel);
@@ -677,7 +878,7 @@ public class AppointmentSchedulingController {
                 setGraphic(null);
             } else {
                 Appointment appointment = getTableView().getItems().get(getIndex());
-                String status = appointment.getStatus();
+                String status = appointment == null ? null : appointment.getStatus();
 
                 // Only show buttons for scheduled appointments
                 if ("Scheduled".equals(status)) {
@@ -694,7 +895,7 @@ public class AppointmentSchedulingController {
      */
     public void handleCompleteAction(Appointment appointment) {
         boolean confirm = AlertUtil.confirm("Confirm Complete",
-            "Mark appointment #" + appointment.getAppointmentId() + " as completed?");
+            "Mark " + describe(appointment) + " as completed?");
         if (confirm) {
             updateAppointmentStatus(appointment, "Completed");
         }
@@ -705,7 +906,7 @@ public class AppointmentSchedulingController {
      */
     public void handleCancelAction(Appointment appointment) {
         boolean confirm = AlertUtil.confirm("Confirm Cancel",
-            "Cancel appointment #" + appointment.getAppointmentId() + "?");
+            "Cancel " + describe(appointment) + "?");
         if (confirm) {
             updateAppointmentStatus(appointment, "Cancelled");
         }
@@ -715,6 +916,12 @@ public class AppointmentSchedulingController {
      * Updates the status of an appointment.
      */
     private void updateAppointmentStatus(Appointment appointment, String newStatus) {
+        if (appointment.isOccurrence()) {
+            Appointment replacement = copyOf(appointment);
+            replacement.setStatus(newStatus);
+            replaceOccurrence(appointment, replacement, "Appointment status updated to: " + newStatus);
+            return;
+        }
         updateStatus("Updating appointment...");
 
         Task<Boolean> task = new Task<>() {
@@ -739,6 +946,49 @@ public class AppointmentSchedulingController {
             updateStatus("Update failed");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
+    }
+
+    /**
+     * Saves an occurrence of a series, as listed, as the given ordinary appointment.
+     */
+    private void replaceOccurrence(Appointment occurrence, Appointment replacement, String successMessage) {
+        updateStatus("Updating appointment...");
+
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() throws Exception {
+                return seriesService.replaceOccurrence(occurrence, replacement);
+            }
+        };
+
+        task.setOnSucceeded(e -> {
+            AlertUtil.showInfo("Success", successMessage);
+            refreshTable();
+            updateStatus("Ready");
+        });
+
+        task.setOnFailed(e -> {
+            AlertUtil.showError("Update Error", task.getException().getMessage());
+            updateStatus("Update failed");
+        });
+
+        TaskExecutor.execute(task);
+    }
+
+    /**
+     * A standalone copy of the appointment's fields, without its id or series.
+     */
+    private static Appointment copyOf(Appointment a) {
+        return new Appointment(null, a.getPatientId(), a.getDoctorId(), a.getAppointmentDate(),
+                a.getAppointmentTime(), a.getStatus(), a.getReason());
+    }
+
+    /**
+     * How the appointment is named in dialogs; occurrences of a series have no id yet.
+     */
+    private static String describe(Appointment a) {
+        return a.isOccurrence() ? "the " + a.getAppointmentDate() + " appointment of series #" + a.getSeriesId()
+                : "appointment #" + a.getAppointmentId();
     }
 }
@@ -1,13 +1,11 @@
 package com.hospital.controller;
 
-import com.hospital.service.AppointmentService;
-import com.hospital.service.DoctorService;
-import com.hospital.service.PatientService;
+import com.hospital.model.DashboardSnapshot;
+import com.hospital.service.DashboardService;
+import com.hospital.service.ServiceRegistry;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
-import javafx.concurrent.Task;
-
-import java.time.LocalDate;
 
 public class DashboardController {
     @FXML
@@ -17,51 +15,36 @@ public class DashboardController {
     @FXML
     private Label lblToday;
 
-    private final PatientService patientService = new PatientService();
-    private final DoctorService doctorService = new DoctorService();
-    private final AppointmentService appointmentService = new AppointmentService();
+    private final DashboardService dashboardService = ServiceRegistry.getDashboardService();
 
     /**
      * Initializes the dashboard.
      */
     @FXML
     public void initialize() {
+        dashboardService.addListener(this, (controller, snapshot) -> Platform.runLater(() -> controller.show(snapshot)));
         refresh();
     }
 
     /**
-     * Refreshes dashboard statistics in background threads.
+     * Shows the last dashboard snapshot straight away, then has a fresh one taken in the
+     * background; the labels update when it arrives.
      */
     private void refresh() {
-        // Run independently to not block each other? Or serial?
-        // Parallel is fine.
-
-        Task<Integer> taskPatients = new Task<>() {
-            @Override
-            protected Integer call() throws Exception {
-                return patientService.getAllPatients().size();
-            }
-        };
-        taskPatients.setOnSucceeded(e -> lblPatients.setText(String.valueOf(taskPatients.getValue())));
-        new Thread(taskPatients).start();
-
-        Task<Integer> taskDoctors = new Task<>() {
-            @Override
-            protected Integer call() throws Exception {
-                return doctorService.getAll().size();
-            }
-        };
-        taskDoctors.setOnSucceeded(e -> lblDoctors.setText(String.valueOf(taskDoctors.getValue())));
-        new Thread(taskDoctors).start();
+        DashboardSnapshot latest = dashboardService.getLatest();
+        if (latest != null) {
+            show(latest);
+        }
+        // Starting the periodic refresh takes the first snapshot immediately
+        if (!dashboardService.startAutoRefresh()) {
+            dashboardService.requestRefresh();
+        }
+    }
 
-        Task<Integer> taskAppt = new Task<>() {
-            @Override
-            protected Integer call() throws Exception {
-                return appointmentService.getByDate(LocalDate.now()).size();
-            }
-        };
-        taskAppt.setOnSucceeded(e -> lblToday.setText(String.valueOf(taskAppt.getValue())));
-        new Thread(taskAppt).start();
+    private void show(DashboardSnapshot snapshot) {
+        lblPatients.setText(String.valueOf(snapshot.getTotalPatients()));
+        lblDoctors.setText(String.valueOf(snapshot.getTotalDoctors()));
+        lblToday.setText(String.valueOf(snapshot.getAppointmentsToday()));
     }
 
     @FXML
@@ -1,9 +1,11 @@
 package com.hospital.controller;
 
 import com.hospital.model.Department;
+import com.hospital.model.DepartmentStatistics;
 import com.hospital.service.DepartmentService;
-import com.hospital.service.DoctorService;
+import com.hospital.service.ServiceRegistry;
 import com.hospital.util.AlertUtil;
+import com.hospital.util.SearchPipeline;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
@@ -16,11 +18,15 @@ import javafx.scene.layout.HBox;
 import javafx.geometry.Insets;
 import javafx.scene.layout.HBox;
 import javafx.util.Callback;
+import com.hospital.util.TaskExecutor;
 import com.hospital.util.ValidationUtil;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 
 public class DepartmentManagementController {
     @FXML
@@ -50,10 +56,13 @@ public class DepartmentManagementController {
     @FXML
     private Label lblLastUpdate;
 
-    private final DepartmentService departmentService = new DepartmentService();
-    private final DoctorService doctorService = new DoctorService();
+    private final DepartmentService departmentService = ServiceRegistry.getDepartmentService();
     private final ObservableList<Department> data = FXCollections.observableArrayList();
+    // Staff counts for the table and the statistics summary, replaced on every refresh
+    private DepartmentStatistics statistics = new DepartmentStatistics(Collections.emptyMap());
     private FilteredList<Department> filteredData;
+    private final SearchPipeline<Predicate<Department>> searchPipeline = new SearchPipeline<>(
+            this::searchDepartments, this::applyFilter);
 
     /**
      * Initializes the controller.
@@ -63,6 +72,8 @@ public class DepartmentManagementController {
         setupTableColumns();
         filteredData = new FilteredList<>(data, p -> true);
         tableDepartments.setItems(filteredData);
+        searchPipeline.setOnCleared(() -> applyFilter(null));
+        searchPipeline.attachTo(txtSearch);
         refreshTable();
     }
 
@@ -89,14 +100,10 @@ public class DepartmentManagementController {
     }
 
     /**
-     * Gets the staff count for a department.
+     * Gets the staff count for a department from the last loaded statistics.
      */
     private int getStaffCount(int departmentId) {
-        try {
-            return doctorService.getByDepartment(departmentId).size();
-        } catch (Exception e) {
-            return 0;
-        }
+        return statistics.getStaffCount(departmentId);
     }
 
     /**
@@ -105,14 +112,17 @@ public class DepartmentManagementController {
     private void refreshTable() {
         updateStatus("Loading departments...");
 
+        DepartmentStatistics[] loadedStatistics = new DepartmentStatistics[1];
         Task<List<Department>> task = new Task<>() {
             @Override
             protected List<Department> call() throws Exception {
+                loadedStatistics[0] = departmentService.getStatistics();
                 return departmentService.getAll();
             }
         };
 
         task.setOnSucceeded(e -> {
+            statistics = loadedStatistics[0];
             data.setAll(task.getValue());
             updateDepartmentCount();
             updateLastUpdate();
@@ -124,7 +134,7 @@ public class DepartmentManagementController {
             updateStatus("Load failed");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -168,7 +178,7 @@ public class DepartmentManagementController {
             updateStatus("Add failed");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -277,7 +287,7 @@ public class DepartmentManagementController {
             updateStatus("Delete failed");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -293,16 +303,22 @@ public class DepartmentManagementController {
      */
     @FXML
     public void onSearch() {
-        String searchText = txtSearch.getText().toLowerCase();
-        filteredData.setPredicate(department -> {
-            if (searchText == null || searchText.isEmpty()) {
-                return true;
-            }
+        searchPipeline.submitNow(txtSearch.getText());
+    }
 
-            return department.getDepartmentName().toLowerCase().contains(searchText) ||
-                   department.getLocation().toLowerCase().contains(searchText) ||
-                   String.valueOf(department.getDepartmentId()).contains(searchText);
-        });
+    /**
+     * Matches departments by name, location or id. Departments are few and already loaded,
+     * so this only builds the filter; the pipeline debounces typing around it.
+     */
+    private Callable<Predicate<Department>> searchDepartments(String text) {
+        String searchText = text.toLowerCase();
+        return () -> department -> department.getDepartmentName().toLowerCase().contains(searchText) ||
+                department.getLocation().toLowerCase().contains(searchText) ||
+                String.valueOf(department.getDepartmentId()).contains(searchText);
+    }
+
+    private void applyFilter(Predicate<Department> filter) {
+        filteredData.setPredicate(filter);
         updateDepartmentCount();
     }
 
@@ -313,7 +329,7 @@ public class DepartmentManagementController {
     public void onViewStats() {
         // Calculate statistics
         int totalDepartments = data.size();
-        int totalStaff = data.stream().mapToInt(dept -> getStaffCount(dept.getDepartmentId())).sum();
+        int totalStaff = statistics.getTotalStaff();
         double avgStaffPerDept = totalDepartments > 0 ? (double) totalStaff / totalDepartments : 0;
 
         String stats = String.format(
@@ -361,7 +377,7 @@ public class DepartmentManagementController {
             updateStatus("Update failed");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
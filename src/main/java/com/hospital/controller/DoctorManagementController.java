@@ -2,7 +2,10 @@ package com.hospital.controller;
 
 import com.hospital.model.Doctor;
 import com.hospital.service.DoctorService;
+import com.hospital.service.ServiceRegistry;
 import com.hospital.util.AlertUtil;
+import com.hospital.util.PagedLoader;
+import com.hospital.util.TaskExecutor;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -29,8 +32,12 @@ public class DoctorManagementController {
     @FXML
     private TableColumn<Doctor, String> colEmail;
 
-    private final DoctorService service = new DoctorService();
+    private static final int PAGE_SIZE = 100;
+
+    private final DoctorService service = ServiceRegistry.getDoctorService();
     private final ObservableList<Doctor> data = FXCollections.observableArrayList();
+    private final PagedLoader<Doctor> pages = new PagedLoader<>(data, PAGE_SIZE,
+            (after, limit) -> service.getPage(after == null ? 0 : after.getDoctorId(), limit));
 
     /**
      * Initializes the controller.
@@ -45,22 +52,16 @@ public class DoctorManagementController {
                 c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getSpecialization()));
         colEmail.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getEmail()));
         tableDoctors.setItems(data);
+        pages.attachTo(tableDoctors);
         refreshTable();
     }
 
     /**
-     * Refreshes the doctor list in a background thread.
+     * Reloads the doctor table from the first page; further pages are fetched as the
+     * table is scrolled.
      */
     private void refreshTable() {
-        Task<List<Doctor>> task = new Task<>() {
-            @Override
-            protected List<Doctor> call() throws Exception {
-                return service.getAll();
-            }
-        };
-        task.setOnSucceeded(e -> data.setAll(task.getValue()));
-        task.setOnFailed(e -> AlertUtil.showError("Load Error", task.getException().getMessage()));
-        new Thread(task).start();
+        pages.reload();
     }
 
     /**
@@ -73,6 +74,8 @@ public class DoctorManagementController {
             refreshTable();
             return;
         }
+        // Search results replace the paged rows, so stop appending pages to them
+        pages.cancel();
 
         Task<List<Doctor>> task = new Task<>() {
             @Override
@@ -82,7 +85,7 @@ public class DoctorManagementController {
         };
         task.setOnSucceeded(e -> data.setAll(task.getValue()));
         task.setOnFailed(e -> AlertUtil.showError("Search Error", task.getException().getMessage()));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     @FXML
@@ -134,6 +137,6 @@ public class DoctorManagementController {
             }
         });
         task.setOnFailed(e -> AlertUtil.showError("Delete Error", task.getException().getMessage()));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 }
@@ -4,7 +4,9 @@ import com.hospital.model.Department;
 import com.hospital.model.Doctor;
 import com.hospital.service.DepartmentService;
 import com.hospital.service.DoctorService;
+import com.hospital.service.ServiceRegistry;
 import com.hospital.util.AlertUtil;
+import com.hospital.util.TaskExecutor;
 import com.hospital.util.ValidationUtil;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
@@ -39,8 +41,8 @@ public class DoctorRegistrationController {
     @FXML
     private Button btnSubmit;
 
-    private final DoctorService doctorService = new DoctorService();
-    private final DepartmentService departmentService = new DepartmentService();
+    private final DoctorService doctorService = ServiceRegistry.getDoctorService();
+    private final DepartmentService departmentService = ServiceRegistry.getDepartmentService();
     private Doctor editingDoctor = null; // null means we're creating a new doctor
 
     @FXML
@@ -130,7 +132,7 @@ public class DoctorRegistrationController {
         });
         task.setOnFailed(
                 e -> AlertUtil.showError("Error", "Failed to load departments: " + task.getException().getMessage()));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     private void loadDepartments() {
@@ -143,7 +145,7 @@ public class DoctorRegistrationController {
         task.setOnSucceeded(e -> cmbDepartment.setItems(FXCollections.observableArrayList(task.getValue())));
         task.setOnFailed(
                 e -> AlertUtil.showError("Error", "Failed to load departments: " + task.getException().getMessage()));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     @FXML
@@ -223,7 +225,7 @@ public class DoctorRegistrationController {
         });
 
         task.setOnFailed(e -> AlertUtil.showError("Error", "Registration failed: " + task.getException().getMessage()));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -261,7 +263,7 @@ public class DoctorRegistrationController {
         });
 
         task.setOnFailed(e -> AlertUtil.showError("Error", "Update failed: " + task.getException().getMessage()));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     private void clearForm() {
@@ -3,6 +3,7 @@ package com.hospital.controller;
 import com.hospital.model.Doctor;
 import com.hospital.model.Patient;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.TaskExecutor;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -54,6 +55,13 @@ public class MainController {
         instance = this;
         System.out.println("MainController initialized");
         com.hospital.util.SchemaMigrator.checkAndMigrate();
+        com.hospital.service.ServiceRegistry.getSearchIndexService().startBuild();
+        // CREATE INDEX CONCURRENTLY can take minutes, which would hold up the background
+        // scheduler's short jobs; one task runs both, using one connection of the task budget
+        TaskExecutor.execute(() -> {
+            com.hospital.util.SchemaMigrator.migrateIndexes();
+            com.hospital.util.SchemaMigrator.migrateSearchIndexes();
+        });
         checkDatabaseConnection();
         // Select dashboard by default and load it
         btnDashboard.setSelected(true);
@@ -86,7 +94,7 @@ public class MainController {
             lblConnectionStatus.setStyle("-fx-text-fill: red;");
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     private void loadView(String resource) {
@@ -1,13 +1,19 @@
 package com.hospital.controller;
 
 import com.hospital.model.Appointment;
+import com.hospital.model.PatientChart;
 import com.hospital.model.Patient;
 import com.hospital.model.Prescription;
 import com.hospital.service.AppointmentService;
+import com.hospital.service.PatientChartService;
 import com.hospital.service.PatientService;
+import com.hospital.service.ServiceRegistry;
 
 // import com.hospital.service.PrescriptionService;
 import com.hospital.util.AlertUtil;
+import com.hospital.util.PagedLoader;
+import com.hospital.util.TaskExecutor;
+import com.hospital.util.TypeAhead;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -16,12 +22,11 @@ import javafx.scene.control.*;
 import javafx.concurrent.Task;
 import javafx.util.StringConverter;
 
-import java.util.List;
-
 /**
  * Controller for the Medical Records module.
  */
 public class MedicalRecordsController {
+    private static final int PAGE_SIZE = PatientChartService.PAGE_SIZE;
 
     @FXML
     private ComboBox<Patient> cmbPatients;
@@ -53,11 +58,12 @@ public class MedicalRecordsController {
     @FXML
     private Label lblEmail;
 
-    private final PatientService patientService = new PatientService();
-    private final AppointmentService appointmentService = new AppointmentService();
-    private final com.hospital.service.PrescriptionService prescriptionService = new com.hospital.service.PrescriptionService();
-    private final com.hospital.service.MedicalRecordService medicalRecordService = new com.hospital.service.MedicalRecordService();
-    private final com.hospital.service.NoteService noteService = new com.hospital.service.NoteService();
+    private final PatientService patientService = ServiceRegistry.getPatientService();
+    private final AppointmentService appointmentService = ServiceRegistry.getAppointmentService();
+    private final com.hospital.service.PrescriptionService prescriptionService = ServiceRegistry.getPrescriptionService();
+    private final com.hospital.service.MedicalRecordService medicalRecordService = ServiceRegistry.getMedicalRecordService();
+    private final com.hospital.service.NoteService noteService = ServiceRegistry.getNoteService();
+    private final PatientChartService chartService = ServiceRegistry.getPatientChartService();
 
     private final ObservableList<Patient> patients = FXCollections.observableArrayList();
     private final ObservableList<Appointment> appointments = FXCollections.observableArrayList();
@@ -65,6 +71,17 @@ public class MedicalRecordsController {
     private final ObservableList<com.hospital.model.MedicalRecord> medicalRecords = FXCollections.observableArrayList();
     private final ObservableList<com.hospital.model.PatientNote> notes = FXCollections.observableArrayList();
 
+    private final PagedLoader<Patient> patientPages = new PagedLoader<>(patients, PAGE_SIZE,
+            (after, limit) -> patientService.getPatientPage(after == null ? 0 : after.getPatientId(), limit));
+    // Sources are set per selected patient
+    private final PagedLoader<Appointment> appointmentPages = new PagedLoader<>(appointments, PAGE_SIZE, null);
+    private final PagedLoader<Prescription> prescriptionPages = new PagedLoader<>(prescriptions, PAGE_SIZE, null);
+    private final PagedLoader<com.hospital.model.MedicalRecord> recordPages = new PagedLoader<>(medicalRecords,
+            PAGE_SIZE, null);
+    private final PagedLoader<com.hospital.model.PatientNote> notePages = new PagedLoader<>(notes, PAGE_SIZE, null);
+    // Bumped per selection so a slow chart cannot replace a later patient's
+    private int chartGeneration;
+
     @FXML
     private TableView<com.hospital.model.MedicalRecord> tableMedicalRecords;
     @FXML
@@ -108,18 +125,40 @@ public class MedicalRecordsController {
         }
 
         tableAppointments.setItems(appointments);
+        appointmentPages.attachTo(tableAppointments);
         listPrescriptions.setItems(prescriptions);
+        listPrescriptions.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(Prescription prescription, boolean empty) {
+                super.updateItem(prescription, empty);
+                if (empty || prescription == null) {
+                    setText(null);
+                } else if (prescription.getItems().isEmpty()) {
+                    setText(prescription.getPrescriptionDate() + ": no items");
+                } else {
+                    StringBuilder text = new StringBuilder(String.valueOf(prescription.getPrescriptionDate())).append(':');
+                    for (com.hospital.model.PrescriptionItem item : prescription.getItems()) {
+                        text.append("\n  ").append(item);
+                    }
+                    setText(text.toString());
+                }
+            }
+        });
+        prescriptionPages.attachTo(listPrescriptions);
         if (tableMedicalRecords != null) {
             tableMedicalRecords.setItems(medicalRecords);
+            recordPages.attachTo(tableMedicalRecords);
         }
         if (listNotes != null) {
             listNotes.setItems(notes);
+            notePages.attachTo(listNotes);
         }
 
     }
 
     private void setupComboBox() {
         cmbPatients.setItems(patients);
+        patientPages.attachTo(cmbPatients);
         cmbPatients.setConverter(new StringConverter<>() {
             @Override
             public String toString(Patient object) {
@@ -132,24 +171,15 @@ public class MedicalRecordsController {
                 return null; // Not needed
             }
         });
+        TypeAhead.install(cmbPatients, ServiceRegistry.getSearchIndexService()::searchPatients);
     }
 
     /**
-     * Loads the list of patients into the ComboBox.
+     * Loads the first page of patients into the ComboBox; more are fetched as its list is
+     * scrolled.
      */
     private void loadPatients() {
-        Task<List<Patient>> task = new Task<>() {
-            @Override
-            protected List<Patient> call() throws Exception {
-                return patientService.getAllPatients();
-            }
-        };
-
-        task.setOnSucceeded(e -> patients.setAll(task.getValue()));
-        task.setOnFailed(
-                e -> AlertUtil.showError("Error", "Failed to load patients: " + task.getException().getMessage()));
-
-        new Thread(task).start();
+        patientPages.reload();
     }
 
     /**
@@ -170,63 +200,44 @@ public class MedicalRecordsController {
         lblContact.setText(selectedPatient.getPhone());
         lblEmail.setText(selectedPatient.getEmail());
 
-        loadAppointments(selectedPatient.getPatientId());
-        loadPrescriptions(selectedPatient.getPatientId());
-        loadMedicalRecords(selectedPatient.getPatientId());
-        loadNotes(selectedPatient.getPatientId());
+        loadChart(selectedPatient.getPatientId());
     }
 
-    private void loadAppointments(int patientId) {
-        Task<List<Appointment>> task = new Task<>() {
+    /**
+     * Loads the patient's appointments, prescriptions, records and notes together and shows
+     * them at once; further pages of each are fetched as its list is scrolled.
+     */
+    private void loadChart(int patientId) {
+        int generation = ++chartGeneration;
+        Task<PatientChart> task = new Task<>() {
             @Override
-            protected List<Appointment> call() throws Exception {
-                return appointmentService.getByPatient(patientId);
+            protected PatientChart call() throws Exception {
+                return chartService.getChart(patientId);
             }
         };
-        task.setOnSucceeded(e -> appointments.setAll(task.getValue()));
-        task.setOnFailed(
-                e -> AlertUtil.showError("Error", "Failed to load appointments: " + task.getException().getMessage()));
-        new Thread(task).start();
-    }
-
-    private void loadPrescriptions(int patientId) {
-        Task<List<Prescription>> task = new Task<>() {
-            @Override
-            protected List<Prescription> call() throws Exception {
-                return prescriptionService.getByPatient(patientId);
+        task.setOnSucceeded(e -> {
+            if (generation == chartGeneration) {
+                showChart(task.getValue());
             }
-        };
-        task.setOnSucceeded(e -> prescriptions.setAll(task.getValue()));
-        task.setOnFailed(
-                e -> AlertUtil.showError("Error", "Failed to load prescriptions: " + task.getException().getMessage()));
-        new Thread(task).start();
-    }
-
-    private void loadMedicalRecords(int patientId) {
-        Task<List<com.hospital.model.MedicalRecord>> task = new Task<>() {
-            @Override
-            protected List<com.hospital.model.MedicalRecord> call() throws Exception {
-                return medicalRecordService.getByPatient(patientId);
+        });
+        task.setOnFailed(e -> {
+            if (generation == chartGeneration) {
+                AlertUtil.showError("Load Error", task.getException().getMessage());
             }
-        };
-        task.setOnSucceeded(e -> medicalRecords.setAll(task.getValue()));
-        task.setOnFailed(e -> AlertUtil.showError("Error",
-                "Failed to load medical records: " + task.getException().getMessage()));
-        new Thread(task).start();
+        });
+        TaskExecutor.execute(task);
     }
 
-    private void loadNotes(int patientId) {
-        if (listNotes == null)
-            return;
-        Task<List<com.hospital.model.PatientNote>> task = new Task<>() {
-            @Override
-            protected List<com.hospital.model.PatientNote> call() throws Exception {
-                return noteService.getNotes(patientId);
-            }
-        };
-        task.setOnSucceeded(e -> notes.setAll(task.getValue()));
-        task.setOnFailed(e -> System.err.println("Could not load notes: " + e.getSource().getException()));
-        new Thread(task).start();
+    private void showChart(PatientChart chart) {
+        int patientId = chart.getPatientId();
+        appointmentPages.reload((after, limit) -> appointmentService.getPageByPatient(patientId, after, limit),
+                chart.getAppointments());
+        prescriptionPages.reload(
+                (after, limit) -> prescriptionService.getPageWithItemsByPatient(patientId, after, limit),
+                chart.getPrescriptions());
+        recordPages.reload((after, limit) -> medicalRecordService.getPageByPatient(patientId, after, limit),
+                chart.getMedicalRecords());
+        notePages.reload((after, limit) -> noteService.getNotesPage(patientId, after, limit), chart.getNotes());
     }
 
     @FXML
@@ -242,15 +253,15 @@ public class MedicalRecordsController {
         Task<Void> task = new Task<>() {
             @Override
             protected Void call() throws Exception {
-                noteService.addNote(selectedPatient.getPatientId(), txtNewNote.getText());
+                chartService.addNote(selectedPatient.getPatientId(), txtNewNote.getText());
                 return null;
             }
         };
         task.setOnSucceeded(e -> {
             txtNewNote.clear();
-            loadNotes(selectedPatient.getPatientId());
+            loadChart(selectedPatient.getPatientId());
         });
         task.setOnFailed(e -> AlertUtil.showError("Save Error", "Could not save note (Is MongoDB running?)"));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 }
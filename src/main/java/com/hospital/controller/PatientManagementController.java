@@ -1,8 +1,15 @@
 package com.hospital.controller;
 
 import com.hospital.model.Patient;
+import com.hospital.model.PatientImportReport;
+import com.hospital.service.PatientImportService;
 import com.hospital.service.PatientService;
+import com.hospital.service.SearchIndexService;
+import com.hospital.service.ServiceRegistry;
 import com.hospital.util.AlertUtil;
+import com.hospital.util.LazyPagedList;
+import com.hospital.util.SearchPipeline;
+import com.hospital.util.TaskExecutor;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -10,7 +17,9 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.concurrent.Task;
+import javafx.stage.FileChooser;
 
+import java.io.File;
 import java.util.List;
 
 public class PatientManagementController {
@@ -29,8 +38,34 @@ public class PatientManagementController {
     @FXML
     private TableColumn<Patient, String> colEmail;
 
-    private final PatientService service = new PatientService();
-    private final ObservableList<Patient> data = FXCollections.observableArrayList();
+    private static final int BLOCK_SIZE = 100;
+    private static final int MAX_BLOCKS = 10;
+    private static final int SEARCH_LIMIT = 100;
+    // Rejected rows listed in the import summary; the rest are only counted
+    private static final int ERRORS_SHOWN = 20;
+
+    private final PatientService service = ServiceRegistry.getPatientService();
+    private final SearchIndexService searchIndex = ServiceRegistry.getSearchIndexService();
+    private final PatientImportService importService = ServiceRegistry.getPatientImportService();
+    // All patients, fetched a block at a time as the table scrolls
+    private final LazyPagedList<Patient> rows = new LazyPagedList<>(BLOCK_SIZE, MAX_BLOCKS,
+            new LazyPagedList.BlockSource<>() {
+                @Override
+                public int count() throws Exception {
+                    return service.countPatients();
+                }
+
+                @Override
+                public List<Patient> fetch(Patient previous, int offset, int limit) throws Exception {
+                    return previous != null
+                            ? service.getPatientPage(previous.getPatientId(), limit).getItems()
+                            : service.getPatientRange(offset, limit);
+                }
+            });
+    private final ObservableList<Patient> searchResults = FXCollections.observableArrayList();
+    // Database search while the in-memory index is still being built
+    private final SearchPipeline<List<Patient>> searchPipeline = new SearchPipeline<>(
+            q -> () -> service.searchPatients(q), this::showSearchResults);
 
     /**
      * Initializes the controller.
@@ -38,50 +73,67 @@ public class PatientManagementController {
     @FXML
     public void initialize() {
         System.out.println("PatientManagementController initialized");
-        colId.setCellValueFactory(c -> new javafx.beans.property.SimpleObjectProperty<>(c.getValue().getPatientId()));
-        colFirst.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getFirstName()));
-        colLast.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getLastName()));
-        colPhone.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getPhone()));
-        colEmail.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getEmail()));
-        tablePatients.setItems(data);
+        // Rows whose block is still loading are null
+        colId.setCellValueFactory(c -> new javafx.beans.property.SimpleObjectProperty<>(
+                c.getValue() == null ? null : c.getValue().getPatientId()));
+        colFirst.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                c.getValue() == null ? "Loading..." : c.getValue().getFirstName()));
+        colLast.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                c.getValue() == null ? null : c.getValue().getLastName()));
+        colPhone.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                c.getValue() == null ? null : c.getValue().getPhone()));
+        colEmail.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(
+                c.getValue() == null ? null : c.getValue().getEmail()));
+        // Sorting reads every row of the lazy list and writes them back, which it does not support
+        tablePatients.getColumns().forEach(column -> column.setSortable(false));
+        searchPipeline.setOnCleared(() -> tablePatients.setItems(rows));
+        // Search as you type: straight from the in-memory index once it is built, otherwise
+        // debounced against the database
+        txtSearch.textProperty().addListener((obs, oldText, text) -> {
+            List<Patient> indexed = text == null || text.isBlank() ? null : searchIndex.searchPatients(text, SEARCH_LIMIT);
+            if (indexed != null) {
+                searchPipeline.cancel();
+                showSearchResults(indexed);
+            } else {
+                searchPipeline.submit(text);
+            }
+        });
         refreshTable();
     }
 
     /**
-     * Refreshes the patient table in a background thread.
+     * Recounts the patients and reloads the first block; the rest are fetched as the table
+     * is scrolled.
      */
     private void refreshTable() {
-        Task<List<Patient>> task = new Task<>() {
-            @Override
-            protected List<Patient> call() throws Exception {
-                return service.getAllPatients();
-            }
-        };
-        task.setOnSucceeded(e -> data.setAll(task.getValue()));
-        task.setOnFailed(e -> AlertUtil.showError("Load Error", task.getException().getMessage()));
-        new Thread(task).start();
+        tablePatients.setItems(rows);
+        rows.reload();
     }
 
     /**
-     * Searches for patients in a background thread.
+     * Searches for patients in the in-memory index, or in the background against the
+     * database while the index is still being built.
      */
     @FXML
     public void onSearch() {
         String q = txtSearch.getText();
         if (q == null || q.isBlank()) {
+            searchPipeline.cancel();
             refreshTable();
             return;
         }
+        List<Patient> indexed = searchIndex.searchPatients(q, SEARCH_LIMIT);
+        if (indexed != null) {
+            searchPipeline.cancel();
+            showSearchResults(indexed);
+        } else {
+            searchPipeline.submitNow(q);
+        }
+    }
 
-        Task<List<Patient>> task = new Task<>() {
-            @Override
-            protected List<Patient> call() throws Exception {
-                return service.searchPatients(q);
-            }
-        };
-        task.setOnSucceeded(e -> data.setAll(task.getValue()));
-        task.setOnFailed(e -> AlertUtil.showError("Search Error", task.getException().getMessage()));
-        new Thread(task).start();
+    private void showSearchResults(List<Patient> patients) {
+        searchResults.setAll(patients);
+        tablePatients.setItems(searchResults);
     }
 
     @FXML
@@ -91,6 +143,47 @@ public class PatientManagementController {
         }
     }
 
+    /**
+     * Imports patients from a CSV file in a background thread, then shows what was imported
+     * and which rows were rejected.
+     */
+    @FXML
+    public void onImport() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Patients");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(tablePatients.getScene().getWindow());
+        if (file == null)
+            return;
+
+        Task<PatientImportReport> task = new Task<>() {
+            @Override
+            protected PatientImportReport call() throws Exception {
+                return importService.importCsv(file.toPath());
+            }
+        };
+        task.setOnSucceeded(e -> {
+            PatientImportReport report = task.getValue();
+            StringBuilder summary = new StringBuilder()
+                    .append("Imported ").append(report.getImported()).append(" of ").append(report.getRead()).append(" patients")
+                    .append("\nInvalid rows: ").append(report.getInvalid())
+                    .append("\nAlready registered: ").append(report.getDuplicates());
+            List<PatientImportReport.RowError> errors = report.getErrors();
+            for (int i = 0; i < Math.min(ERRORS_SHOWN, errors.size()); i++) {
+                summary.append(i == 0 ? "\n\n" : "\n").append(errors.get(i));
+            }
+            if (report.getInvalid() + report.getDuplicates() > ERRORS_SHOWN)
+                summary.append("\n...");
+            AlertUtil.showInfo("Import", summary.toString());
+            refreshTable();
+        });
+        task.setOnFailed(e -> {
+            AlertUtil.showError("Import Error", task.getException().getMessage());
+            refreshTable();
+        });
+        TaskExecutor.execute(task);
+    }
+
     @FXML
     public void onEdit() {
         Patient selectedPatient = tablePatients.getSelectionModel().getSelectedItem();
@@ -133,6 +226,6 @@ public class PatientManagementController {
             }
         });
         task.setOnFailed(e -> AlertUtil.showError("Delete Error", task.getException().getMessage()));
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 }
@@ -2,6 +2,7 @@ package com.hospital.controller;
 
 import com.hospital.model.Patient;
 import com.hospital.service.PatientService;
+import com.hospital.service.ServiceRegistry;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
@@ -10,6 +11,7 @@ import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
+import com.hospital.util.TaskExecutor;
 import com.hospital.util.ValidationUtil;
 import com.hospital.util.AlertUtil;
 
@@ -38,7 +40,7 @@ public class PatientRegistrationController {
     @FXML
     private Button btnSubmit;
 
-    private final PatientService patientService = new PatientService();
+    private final PatientService patientService = ServiceRegistry.getPatientService();
     private Patient editingPatient = null; // null means we're creating a new patient
 
     @FXML
@@ -172,7 +174,7 @@ public class PatientRegistrationController {
 
         task.setOnFailed(e -> AlertUtil.showError("Error", "Registration failed: " + task.getException().getMessage()));
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     /**
@@ -212,7 +214,7 @@ public class PatientRegistrationController {
 
         task.setOnFailed(e -> AlertUtil.showError("Error", "Update failed: " + task.getException().getMessage()));
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     private void clearForm() {
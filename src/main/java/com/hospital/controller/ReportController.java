@@ -1,7 +1,10 @@
 package com.hospital.controller;
 
+import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
 import com.hospital.util.PerformanceMonitor;
 import com.hospital.util.PerformanceTestRunner;
+import com.hospital.util.TaskExecutor;
 import javafx.concurrent.Task;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -10,6 +13,7 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controller for Report view - Performance Analytics.
@@ -111,7 +115,7 @@ public class ReportController {
             "5. INDEXES IMPLEMENTED:\n" +
             "   - idx_patient_name (last_name, first_name)\n" +
             "   - idx_patient_email (email)\n" +
-            "   - idx_appointment_date (appointment_date)\n" +
+            "   - idx_appointment_date_time (appointment_date, appointment_time, appointment_id)\n" +
             "   - idx_appointment_doctor (doctor_id)\n" +
             "   - Additional indexes on foreign keys and search columns"
         );
@@ -123,10 +127,7 @@ public class ReportController {
         performanceData.clear();
 
         // Get unique query names from performance records
-        List<String> queryNames = PerformanceMonitor.getAllRecords().stream()
-                .map(record -> record.getQueryName())
-                .distinct()
-                .toList();
+        List<String> queryNames = PerformanceMonitor.getQueryNames();
 
         for (String queryName : queryNames) {
             PerformanceMonitor.PerformanceComparison comparison =
@@ -184,7 +185,7 @@ public class ReportController {
             alert.showAndWait();
         });
 
-        new Thread(task).start();
+        TaskExecutor.execute(task);
     }
 
     @FXML
@@ -201,10 +202,16 @@ public class ReportController {
     }
 
     private void updateCacheStats() {
-        // Note: This is a simplified cache stats display
-        // In a real implementation, you'd aggregate stats from all caches
-        String stats = "Cache Status: Performance monitoring active";
-        cacheStatsLabel.setText(stats);
+        Map<String, Cache.CacheStats> allStats = CacheRegistry.getAllStats();
+        StringBuilder stats = new StringBuilder(allStats.isEmpty() ? "Cache Status: no caches in use yet" : "Cache Status:");
+        for (Map.Entry<String, Cache.CacheStats> e : allStats.entrySet()) {
+            stats.append("\n  ").append(e.getKey()).append(": ").append(e.getValue());
+        }
+        stats.append(String.format("%nBackground tasks (%s threads, max %d): %d running, %d queued, %d completed, %d rejected",
+                TaskExecutor.isUsingVirtualThreads() ? "virtual" : "platform", TaskExecutor.MAX_CONCURRENT,
+                TaskExecutor.getActiveCount(), TaskExecutor.getQueuedCount(), TaskExecutor.getCompletedCount(),
+                TaskExecutor.getRejectedCount()));
+        cacheStatsLabel.setText(stats.toString());
     }
 
     // Data model for the table
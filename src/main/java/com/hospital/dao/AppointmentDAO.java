@@ -1,18 +1,32 @@
 package com.hospital.dao;
 
 import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentListing;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface AppointmentDAO {
     int create(Appointment appointment) throws Exception;
+    int[] createBatch(List<Appointment> appointments) throws Exception;
     Appointment findById(int id) throws Exception;
     List<Appointment> findAll() throws Exception;
+    Page<Appointment> findPage(int afterId, int limit) throws Exception;
     boolean update(Appointment appointment) throws Exception;
     boolean delete(int id) throws Exception;
     List<Appointment> findByDate(LocalDate date) throws Exception;
+    List<AppointmentListing> findListings(LocalDate from, LocalDate to, String status) throws Exception;
+    List<AppointmentListing> findListingRange(LocalDate from, LocalDate to, String status, int offset, int limit) throws Exception;
+    List<AppointmentListing> findListingsAfter(LocalDate from, LocalDate to, String status, AppointmentListing after, int limit) throws Exception;
+    int countListings(LocalDate from, LocalDate to, String status) throws Exception;
     List<Appointment> findByDoctorId(int doctorId) throws Exception;
     List<Appointment> findByPatientId(int patientId) throws Exception;
+    Page<Appointment> findPageByDoctorId(int doctorId, Appointment after, int limit) throws Exception;
+    Page<Appointment> findPageByPatientId(int patientId, Appointment after, int limit) throws Exception;
     boolean updateStatus(int appointmentId, String status) throws Exception;
+    boolean existsScheduledAt(int doctorId, LocalDate date, LocalTime time, int excludingAppointmentId) throws Exception;
+    List<LocalTime> findScheduledTimes(int doctorId, LocalDate date) throws Exception;
+    List<Appointment> findScheduledBetween(Collection<Integer> doctorIds, LocalDate from, LocalDate to) throws Exception;
 }
@@ -1,7 +1,15 @@
 package com.hospital.dao;
 
 import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentListing;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.DaySlots;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.PerformanceMonitor;
+import com.hospital.util.QueryCancellation;
 
 import java.sql.Connection;
 import java.sql.Date;
@@ -12,42 +20,207 @@ import java.sql.Time;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * JDBC implementation for AppointmentDAO
  */
 public class AppointmentDAOImpl implements AppointmentDAO {
+    private static final String SCHEDULED = "Scheduled";
+    // Sort key of the appointment listings, unique per row
+    private static final String LISTING_ORDER = "a.appointment_date, a.appointment_time,"
+            + " COALESCE(a.appointment_id, 0), COALESCE(a.series_id, 0)";
+    // How far ahead the per-doctor and per-patient pages list series occurrences
+    private static final int OCCURRENCE_HORIZON_DAYS = 366;
 
     @Override
     /**
-     * Creates a new appointment.
+     * Creates a new appointment. A scheduled one is checked against the doctor's
+     * appointments and series occurrences while holding the doctor's booking lock.
      * 
      * @param appointment The appointment details.
      * @return The generated appointment ID.
-     * @throws Exception If a database error occurs.
+     * @throws Exception If a database error occurs; a clash is reported with SQLSTATE
+     *                   23505, like a unique violation.
      */
     public int create(Appointment appointment) throws Exception {
         String sql = "INSERT INTO appointment (appointment_date, appointment_time, status, patient_id, doctor_id) VALUES (?,?,?,?,?) RETURNING appointment_id";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDate(1, Date.valueOf(appointment.getAppointmentDate()));
-            ps.setTime(2, Time.valueOf(appointment.getAppointmentTime()));
-            ps.setString(3, appointment.getStatus());
-            ps.setInt(4, appointment.getPatientId());
-            ps.setInt(5, appointment.getDoctorId());
+        int id = -1;
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.create");
+                Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                checkSlotFree(conn, appointment, 0);
+                ps.setDate(1, Date.valueOf(appointment.getAppointmentDate()));
+                ps.setTime(2, Time.valueOf(appointment.getAppointmentTime()));
+                ps.setString(3, appointment.getStatus());
+                ps.setInt(4, appointment.getPatientId());
+                ps.setInt(5, appointment.getDoctorId());
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next())
+                        id = rs.getInt(1);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                System.err.println("Error creating appointment: " + e.getMessage());
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        if (id > 0) {
+            System.out.println("Inserted appointment id=" + id);
+            publish(ChangeType.CREATED, id, DaySlots.key(appointment.getDoctorId(), appointment.getAppointmentDate()),
+                    EntityChangeEvent.patientKey(appointment.getPatientId()));
+        }
+        return id;
+    }
+
+    /**
+     * For a scheduled appointment, takes its doctor's booking lock and fails if the slot
+     * holds another scheduled appointment or a series occurrence.
+     */
+    private void checkSlotFree(Connection conn, Appointment appointment, int excludingAppointmentId) throws SQLException {
+        if (!SCHEDULED.equals(appointment.getStatus()))
+            return;
+        DoctorBookingLock.lock(conn, appointment.getDoctorId());
+        if (existsScheduledAt(conn, appointment.getDoctorId(), appointment.getAppointmentDate(),
+                appointment.getAppointmentTime(), excludingAppointmentId))
+            throw DoctorBookingLock.clash("Doctor is already booked at this time");
+    }
+
+    @Override
+    /**
+     * Creates several appointments in one transaction on one connection, holding the
+     * booking lock of every doctor involved. Slots already taken by a scheduled appointment
+     * or series occurrence are found with a single query, and slots taken by an
+     * earlier appointment in the same batch are found in memory; both are skipped. The rest
+     * are inserted as one JDBC batch.
+     * 
+     * @param appointments The appointments to create.
+     * @return The generated IDs in the same order, with 0 where the doctor was already
+     *         booked at that time.
+     * @throws Exception If a database error occurs; nothing is created then.
+     */
+    public int[] createBatch(List<Appointment> appointments) throws Exception {
+        int[] ids = new int[appointments.size()];
+        if (appointments.isEmpty())
+            return ids;
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.createBatch");
+                Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                Set<Integer> doctorIds = new HashSet<>();
+                for (Appointment a : appointments) {
+                    if (SCHEDULED.equals(a.getStatus()))
+                        doctorIds.add(a.getDoctorId());
+                }
+                // Held until commit, so no other booking can take a slot found free here
+                DoctorBookingLock.lockAll(conn, doctorIds);
+                Set<String> taken = findTakenSlots(conn, appointments);
+                List<Integer> toInsert = new ArrayList<>();
+                for (int i = 0; i < appointments.size(); i++) {
+                    Appointment a = appointments.get(i);
+                    // add() also claims the slot for the rest of the batch
+                    if (!SCHEDULED.equals(a.getStatus()) || taken.add(bookingKey(a.getDoctorId(),
+                            a.getAppointmentDate(), a.getAppointmentTime())))
+                        toInsert.add(i);
+                }
+                insertBatch(conn, appointments, toInsert, ids);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                System.err.println("Error creating appointments: " + e.getMessage());
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] > 0) {
+                Appointment a = appointments.get(i);
+                publish(ChangeType.CREATED, ids[i], DaySlots.key(a.getDoctorId(), a.getAppointmentDate()),
+                        EntityChangeEvent.patientKey(a.getPatientId()));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * The bookingKey of each scheduled appointment or series occurrence that clashes with
+     * one in the batch, from one query over the batch's slots passed as arrays.
+     */
+    private Set<String> findTakenSlots(Connection conn, List<Appointment> appointments) throws SQLException {
+        String sql = "SELECT s.doctor_id, s.appointment_date, s.appointment_time"
+                + " FROM unnest(?::int[], ?::date[], ?::time[]) AS s(doctor_id, appointment_date, appointment_time)"
+                + " WHERE EXISTS (SELECT 1 FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a WHERE a.doctor_id = s.doctor_id"
+                + " AND a.appointment_date = s.appointment_date AND a.appointment_time = s.appointment_time"
+                + " AND a.status = 'Scheduled')";
+        Integer[] doctorIds = new Integer[appointments.size()];
+        Date[] dates = new Date[appointments.size()];
+        Time[] times = new Time[appointments.size()];
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment a = appointments.get(i);
+            doctorIds[i] = a.getDoctorId();
+            dates[i] = Date.valueOf(a.getAppointmentDate());
+            times[i] = Time.valueOf(a.getAppointmentTime());
+        }
+        Set<String> taken = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, conn.createArrayOf("integer", doctorIds));
+            ps.setArray(2, conn.createArrayOf("date", dates));
+            ps.setArray(3, conn.createArrayOf("time", times));
+            // Occurrences are only expanded between the batch's first and last day
+            ps.setDate(4, Collections.min(Arrays.asList(dates)));
+            ps.setDate(5, Collections.max(Arrays.asList(dates)));
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int id = rs.getInt(1);
-                    System.out.println("Inserted appointment id=" + id);
-                    return id;
+                while (rs.next())
+                    taken.add(bookingKey(rs.getInt(1), rs.getDate(2).toLocalDate(), rs.getTime(3).toLocalTime()));
+            }
+        }
+        return taken;
+    }
+
+    private void insertBatch(Connection conn, List<Appointment> appointments, List<Integer> toInsert, int[] ids)
+            throws SQLException {
+        if (toInsert.isEmpty())
+            return;
+        // DO NOTHING skips a clash committed since the check rather than failing the whole
+        // batch; uq_appointment_doctor_slot is the only unique index an insert can hit
+        String sql = "INSERT INTO appointment (appointment_date, appointment_time, status, patient_id, doctor_id) VALUES (?,?,?,?,?) ON CONFLICT DO NOTHING";
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] { "appointment_id" })) {
+            for (int i : toInsert) {
+                Appointment a = appointments.get(i);
+                ps.setDate(1, Date.valueOf(a.getAppointmentDate()));
+                ps.setTime(2, Time.valueOf(a.getAppointmentTime()));
+                ps.setString(3, a.getStatus());
+                ps.setInt(4, a.getPatientId());
+                ps.setInt(5, a.getDoctorId());
+                ps.addBatch();
+            }
+            int[] counts = ps.executeBatch();
+            // Keys come back in batch order, one per row actually inserted
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (int n = 0; n < counts.length; n++) {
+                    if (counts[n] != 0 && keys.next())
+                        ids[toInsert.get(n)] = keys.getInt(1);
                 }
             }
-        } catch (SQLException e) {
-            System.err.println("Error creating appointment: " + e.getMessage());
-            throw e;
         }
-        return -1;
+    }
+
+    private static String bookingKey(int doctorId, LocalDate date, LocalTime time) {
+        // Nanos do not survive the round trip through java.sql.Time
+        return DaySlots.key(doctorId, date) + "@" + time.withNano(0);
     }
 
     @Override
@@ -60,7 +233,8 @@ public class AppointmentDAOImpl implements AppointmentDAO {
      */
     public Appointment findById(int id) throws Exception {
         String sql = "SELECT appointment_id, appointment_date, appointment_time, status, patient_id, doctor_id FROM appointment WHERE appointment_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findById");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -82,7 +256,8 @@ public class AppointmentDAOImpl implements AppointmentDAO {
     public List<Appointment> findAll() throws Exception {
         String sql = "SELECT appointment_id, appointment_date, appointment_time, status, patient_id, doctor_id FROM appointment";
         List<Appointment> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findAll");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -94,25 +269,53 @@ public class AppointmentDAOImpl implements AppointmentDAO {
 
     @Override
     /**
-     * Updates an existing appointment.
+     * Updates an existing appointment. A scheduled one is checked against the doctor's other
+     * appointments and series occurrences while holding the doctor's booking lock.
      * 
      * @param appointment The updated appointment object.
      * @return true if successful, false otherwise.
-     * @throws Exception If a database error occurs.
+     * @throws Exception If a database error occurs; a clash is reported with SQLSTATE
+     *                   23505, like a unique violation.
      */
     public boolean update(Appointment appointment) throws Exception {
-        String sql = "UPDATE appointment SET appointment_date=?, appointment_time=?, status=?, patient_id=?, doctor_id=? WHERE appointment_id=?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDate(1, Date.valueOf(appointment.getAppointmentDate()));
-            ps.setTime(2, Time.valueOf(appointment.getAppointmentTime()));
-            ps.setString(3, appointment.getStatus());
-            ps.setInt(4, appointment.getPatientId());
-            ps.setInt(5, appointment.getDoctorId());
-            ps.setInt(6, appointment.getAppointmentId());
-            int updated = ps.executeUpdate();
-            return updated > 0;
+        // Returns the previous doctor, date and patient too, so the day and chart the appointment moved off are announced
+        String sql = "UPDATE appointment a SET appointment_date=?, appointment_time=?, status=?, patient_id=?, doctor_id=?"
+                + " FROM (SELECT doctor_id, appointment_date, patient_id FROM appointment WHERE appointment_id=? FOR UPDATE) old"
+                + " WHERE a.appointment_id=? RETURNING old.doctor_id, old.appointment_date, old.patient_id";
+        String previousSlot;
+        String previousPatient = null;
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.update");
+                Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                checkSlotFree(conn, appointment, appointment.getAppointmentId());
+                ps.setDate(1, Date.valueOf(appointment.getAppointmentDate()));
+                ps.setTime(2, Time.valueOf(appointment.getAppointmentTime()));
+                ps.setString(3, appointment.getStatus());
+                ps.setInt(4, appointment.getPatientId());
+                ps.setInt(5, appointment.getDoctorId());
+                ps.setInt(6, appointment.getAppointmentId());
+                ps.setInt(7, appointment.getAppointmentId());
+                try (ResultSet rs = ps.executeQuery()) {
+                    previousSlot = rs.next() ? slotKey(rs) : null;
+                    if (previousSlot != null)
+                        previousPatient = patientKey(rs);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
         }
+        if (previousSlot == null)
+            return false;
+        publish(ChangeType.UPDATED, appointment.getAppointmentId(), previousSlot,
+                DaySlots.key(appointment.getDoctorId(), appointment.getAppointmentDate()), previousPatient,
+                EntityChangeEvent.patientKey(appointment.getPatientId()));
+        return true;
     }
 
     @Override
@@ -124,12 +327,17 @@ public class AppointmentDAOImpl implements AppointmentDAO {
      * @throws Exception If a database error occurs.
      */
     public boolean delete(int id) throws Exception {
-        String sql = "DELETE FROM appointment WHERE appointment_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "DELETE FROM appointment WHERE appointment_id = ? RETURNING doctor_id, appointment_date, patient_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.delete");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
-            int affected = ps.executeUpdate();
-            return affected > 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                publish(ChangeType.DELETED, id, slotKey(rs), patientKey(rs));
+                return true;
+            }
         }
     }
 
@@ -144,7 +352,8 @@ public class AppointmentDAOImpl implements AppointmentDAO {
     public List<Appointment> findByDate(LocalDate date) throws Exception {
         String sql = "SELECT appointment_id, appointment_date, appointment_time, status, patient_id, doctor_id FROM appointment WHERE appointment_date = ?";
         List<Appointment> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findByDate");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setDate(1, Date.valueOf(date));
             try (ResultSet rs = ps.executeQuery()) {
@@ -155,6 +364,148 @@ public class AppointmentDAOImpl implements AppointmentDAO {
         return list;
     }
 
+    @Override
+    /**
+     * Lists appointments with the patient's and doctor's names, in date and time order.
+     * 
+     * @param from   The earliest date to include, or null for no lower bound.
+     * @param to     The latest date to include, or null for no upper bound.
+     * @param status The status to match, or null for any status.
+     * @return The matching appointment listings.
+     * @throws Exception If a database error occurs.
+     */
+    public List<AppointmentListing> findListings(LocalDate from, LocalDate to, String status) throws Exception {
+        return queryListings("AppointmentDAO.findListings", from, to, status, null, 0, 0);
+    }
+
+    @Override
+    /**
+     * Lists a range of appointments with the patient's and doctor's names, by position in
+     * date and time order.
+     * 
+     * @param from   The earliest date to include, or null for no lower bound.
+     * @param to     The latest date to include, or null for no upper bound.
+     * @param status The status to match, or null for any status.
+     * @param offset The number of listings to skip.
+     * @param limit  The maximum number of listings to return.
+     * @return The appointment listings in the range.
+     * @throws Exception If a database error occurs.
+     */
+    public List<AppointmentListing> findListingRange(LocalDate from, LocalDate to, String status, int offset, int limit)
+            throws Exception {
+        return queryListings("AppointmentDAO.findListingRange", from, to, status, null, offset, limit);
+    }
+
+    @Override
+    /**
+     * Lists the appointments that follow a given one in date and time order, with the
+     * patient's and doctor's names. Seeks past the given listing instead of counting rows
+     * with OFFSET, so deep pages cost the same as the first.
+     * 
+     * @param from   The earliest date to include, or null for no lower bound.
+     * @param to     The latest date to include, or null for no upper bound.
+     * @param status The status to match, or null for any status.
+     * @param after  The last listing of the previous page.
+     * @param limit  The maximum number of listings to return.
+     * @return The appointment listings after the given one.
+     * @throws Exception If a database error occurs.
+     */
+    public List<AppointmentListing> findListingsAfter(LocalDate from, LocalDate to, String status,
+            AppointmentListing after, int limit) throws Exception {
+        return queryListings("AppointmentDAO.findListingsAfter", from, to, status, after, 0, limit);
+    }
+
+    @Override
+    /**
+     * Counts the appointments findListings would return.
+     * 
+     * @param from   The earliest date to include, or null for no lower bound.
+     * @param to     The latest date to include, or null for no upper bound.
+     * @param status The status to match, or null for any status.
+     * @return The number of matching appointments.
+     * @throws Exception If a database error occurs.
+     */
+    public int countListings(LocalDate from, LocalDate to, String status) throws Exception {
+        String sql = "SELECT COUNT(*) FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a" + listingFilters(from, to, status);
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.countListings");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            bindListingFilters(ps, SeriesSql.bindWindow(ps, 1, from, to), from, to, status);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private List<AppointmentListing> queryListings(String timerName, LocalDate from, LocalDate to, String status,
+            AppointmentListing after, int offset, int limit) throws Exception {
+        // Both joins are on primary keys and the date filter uses idx_appointment_date_time.
+        // Series occurrences for the same dates are merged in; they have no appointment_id and
+        // appointments no series_id, so the coalesced pair orders them without NULLs and makes
+        // the sort key unique for the keyset condition. No index covers that key over the
+        // UNION ALL, so each block sorts every row in the filtered dates and the keyset
+        // condition only saves the rows skipped by OFFSET, not the sort
+        String filters = listingFilters(from, to, status);
+        if (after != null)
+            filters += (filters.isEmpty() ? " WHERE " : " AND ") + "(" + LISTING_ORDER + ") > (?, ?, ?, ?)";
+        String sql = "SELECT a.appointment_id, a.appointment_date, a.appointment_time, a.status, a.patient_id, a.doctor_id, a.series_id,"
+                + " p.first_name AS patient_first_name, p.last_name AS patient_last_name,"
+                + " d.first_name AS doctor_first_name, d.last_name AS doctor_last_name, d.specialization"
+                + " FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a"
+                + " JOIN patient p ON p.patient_id = a.patient_id"
+                + " JOIN doctor d ON d.doctor_id = a.doctor_id"
+                + filters
+                + " ORDER BY " + LISTING_ORDER
+                + (limit > 0 ? " LIMIT ? OFFSET ?" : "");
+        List<AppointmentListing> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time(timerName);
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql);
+                QueryCancellation.Registration cancellable = QueryCancellation.track(ps)) {
+            int i = bindListingFilters(ps, SeriesSql.bindWindow(ps, 1, from, to), from, to, status);
+            if (after != null) {
+                ps.setDate(i++, Date.valueOf(after.getAppointmentDate()));
+                ps.setTime(i++, Time.valueOf(after.getAppointmentTime()));
+                ps.setInt(i++, after.getAppointmentId() == null ? 0 : after.getAppointmentId());
+                ps.setInt(i++, after.getSeriesId() == null ? 0 : after.getSeriesId());
+            }
+            if (limit > 0) {
+                ps.setInt(i++, limit);
+                ps.setInt(i, offset);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    list.add(mapListing(rs));
+            }
+        }
+        return list;
+    }
+
+    private static String listingFilters(LocalDate from, LocalDate to, String status) {
+        StringBuilder where = new StringBuilder();
+        if (from != null)
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append("a.appointment_date >= ?");
+        if (to != null)
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append("a.appointment_date <= ?");
+        if (status != null)
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append("a.status = ?");
+        return where.toString();
+    }
+
+    /**
+     * Binds the parameters of listingFilters from the given index and returns the next one.
+     */
+    private static int bindListingFilters(PreparedStatement ps, int i, LocalDate from, LocalDate to, String status)
+            throws SQLException {
+        if (from != null)
+            ps.setDate(i++, Date.valueOf(from));
+        if (to != null)
+            ps.setDate(i++, Date.valueOf(to));
+        if (status != null)
+            ps.setString(i++, status);
+        return i;
+    }
+
     @Override
     /**
      * Finds appointments for a specific doctor.
@@ -166,7 +517,8 @@ public class AppointmentDAOImpl implements AppointmentDAO {
     public List<Appointment> findByDoctorId(int doctorId) throws Exception {
         String sql = "SELECT appointment_id, appointment_date, appointment_time, status, patient_id, doctor_id FROM appointment WHERE doctor_id = ?";
         List<Appointment> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findByDoctorId");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, doctorId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -188,7 +540,8 @@ public class AppointmentDAOImpl implements AppointmentDAO {
     public List<Appointment> findByPatientId(int patientId) throws Exception {
         String sql = "SELECT appointment_id, appointment_date, appointment_time, status, patient_id, doctor_id FROM appointment WHERE patient_id = ?";
         List<Appointment> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findByPatientId");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, patientId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -209,17 +562,259 @@ public class AppointmentDAOImpl implements AppointmentDAO {
      * @throws Exception If a database error occurs.
      */
     public boolean updateStatus(int appointmentId, String status) throws Exception {
-        String sql = "UPDATE appointment SET status = ? WHERE appointment_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "UPDATE appointment SET status = ? WHERE appointment_id = ? RETURNING doctor_id, appointment_date, patient_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.updateStatus");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, status);
             ps.setInt(2, appointmentId);
-            int updated = ps.executeUpdate();
-            return updated > 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                publish(ChangeType.UPDATED, appointmentId, slotKey(rs), patientKey(rs));
+                return true;
+            }
+        }
+    }
+
+    @Override
+    /**
+     * Checks whether a doctor has a scheduled appointment, or a series occurrence, at
+     * exactly the given date and time. The appointment side is answered from
+     * uq_appointment_doctor_slot.
+     * 
+     * @param doctorId               The doctor's ID.
+     * @param date                   The date of the slot.
+     * @param time                   The time of the slot.
+     * @param excludingAppointmentId An appointment to ignore, e.g. the one being moved, or 0.
+     * @return true if the slot is taken.
+     * @throws Exception If a database error occurs.
+     */
+    public boolean existsScheduledAt(int doctorId, LocalDate date, LocalTime time, int excludingAppointmentId)
+            throws Exception {
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.existsScheduledAt");
+                Connection conn = DatabaseConnection.getConnection()) {
+            return existsScheduledAt(conn, doctorId, date, time, excludingAppointmentId);
         }
     }
 
-    private Appointment mapRow(ResultSet rs) throws SQLException {
+    private boolean existsScheduledAt(Connection conn, int doctorId, LocalDate date, LocalTime time,
+            int excludingAppointmentId) throws SQLException {
+        String sql = "SELECT EXISTS (SELECT 1 FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a"
+                + " WHERE doctor_id = ? AND appointment_date = ? AND appointment_time = ? AND status = 'Scheduled'"
+                + " AND appointment_id IS DISTINCT FROM ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = SeriesSql.bindWindow(ps, 1, date, date);
+            ps.setInt(i++, doctorId);
+            ps.setDate(i++, Date.valueOf(date));
+            ps.setTime(i++, Time.valueOf(time));
+            ps.setInt(i, excludingAppointmentId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    @Override
+    /**
+     * Finds the times of a doctor's scheduled appointments and series occurrences on one day.
+     * 
+     * @param doctorId The doctor's ID.
+     * @param date     The day.
+     * @return The appointment times, in no particular order.
+     * @throws Exception If a database error occurs.
+     */
+    public List<LocalTime> findScheduledTimes(int doctorId, LocalDate date) throws Exception {
+        String sql = "SELECT appointment_time FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a"
+                + " WHERE doctor_id = ? AND appointment_date = ? AND status = 'Scheduled'";
+        List<LocalTime> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findScheduledTimes");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = SeriesSql.bindWindow(ps, 1, date, date);
+            ps.setInt(i++, doctorId);
+            ps.setDate(i, Date.valueOf(date));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    list.add(rs.getTime(1).toLocalTime());
+            }
+        }
+        return list;
+    }
+
+    @Override
+    /**
+     * Finds the scheduled appointments and series occurrences of several doctors over a
+     * range of days, e.g. to load a week of availability or one day of every doctor in a
+     * specialization at once.
+     * 
+     * @param doctorIds The doctors' IDs.
+     * @param from      The first day to include.
+     * @param to        The last day to include.
+     * @return The scheduled appointments and occurrences, in no particular order.
+     * @throws Exception If a database error occurs.
+     */
+    public List<Appointment> findScheduledBetween(Collection<Integer> doctorIds, LocalDate from, LocalDate to)
+            throws Exception {
+        List<Appointment> list = new ArrayList<>();
+        if (doctorIds.isEmpty())
+            return list;
+        String sql = "SELECT appointment_id, appointment_date, appointment_time, status, patient_id, doctor_id, series_id"
+                + " FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a"
+                + " WHERE doctor_id = ANY (?) AND appointment_date BETWEEN ? AND ? AND status = 'Scheduled'";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findScheduledBetween");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            int i = SeriesSql.bindWindow(ps, 1, from, to);
+            ps.setArray(i++, conn.createArrayOf("integer", doctorIds.toArray()));
+            ps.setDate(i++, Date.valueOf(from));
+            ps.setDate(i, Date.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Appointment a = mapRow(rs);
+                    int seriesId = rs.getInt("series_id");
+                    if (!rs.wasNull()) {
+                        a.setAppointmentId(null);
+                        a.setSeriesId(seriesId);
+                    }
+                    list.add(a);
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    /**
+     * Retrieves one page of appointments in id order, starting after the given id.
+     * 
+     * @param afterId The last appointment ID of the previous page, or 0 for the first page.
+     * @param limit   The maximum number of appointments to return.
+     * @return The page of appointments.
+     * @throws Exception If a database error occurs.
+     */
+    public Page<Appointment> findPage(int afterId, int limit) throws Exception {
+        String sql = "SELECT appointment_id, appointment_date, appointment_time, status, patient_id, doctor_id FROM appointment WHERE appointment_id > ? ORDER BY appointment_id LIMIT ?";
+        List<Appointment> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentDAO.findPage");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    list.add(mapRow(rs));
+            }
+        }
+        return Page.of(list, limit);
+    }
+
+    @Override
+    /**
+     * Retrieves one page of a doctor's appointments, newest first, with series occurrences
+     * up to a year ahead.
+     * 
+     * @param doctorId The doctor's ID.
+     * @param after    The last appointment of the previous page, or null for the first page.
+     * @param limit    The maximum number of appointments to return.
+     * @return The page of appointments.
+     * @throws Exception If a database error occurs.
+     */
+    public Page<Appointment> findPageByDoctorId(int doctorId, Appointment after, int limit) throws Exception {
+        return findPageNewestFirst("doctor_id", doctorId, after, limit, "AppointmentDAO.findPageByDoctorId");
+    }
+
+    @Override
+    /**
+     * Retrieves one page of a patient's appointments, newest first, with series occurrences
+     * up to a year ahead.
+     * 
+     * @param patientId The patient's ID.
+     * @param after     The last appointment of the previous page, or null for the first page.
+     * @param limit     The maximum number of appointments to return.
+     * @return The page of appointments.
+     * @throws Exception If a database error occurs.
+     */
+    public Page<Appointment> findPageByPatientId(int patientId, Appointment after, int limit) throws Exception {
+        return findPageNewestFirst("patient_id", patientId, after, limit, "AppointmentDAO.findPageByPatientId");
+    }
+
+    // Series occurrences are merged in up to OCCURRENCE_HORIZON_DAYS ahead, since open-ended
+    // series never run out. The owner filter reaches both branches, so only the owner's rows
+    // and series are read; they are then sorted on the same unique key as the listings,
+    // which no index can serve, and the page seeks past the previous one on that key.
+    private Page<Appointment> findPageNewestFirst(String ownerColumn, int ownerId, Appointment after, int limit,
+                                                  String queryName) throws Exception {
+        List<Appointment> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time(queryName);
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(pageNewestFirstSql(ownerColumn, after != null))) {
+            bindPageNewestFirst(ps, 1, ownerId, after, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    list.add(mapPageRow(rs));
+            }
+        }
+        return Page.of(list, limit);
+    }
+
+    /**
+     * The page query of findPageNewestFirst; PatientChartDAOImpl batches it with others.
+     */
+    static String pageNewestFirstSql(String ownerColumn, boolean seek) {
+        return "SELECT a.appointment_id, a.appointment_date, a.appointment_time, a.status, a.patient_id, a.doctor_id, a.series_id"
+                + " FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a WHERE a." + ownerColumn + " = ?"
+                + (seek ? " AND (" + LISTING_ORDER + ") < (?, ?, ?, ?)" : "")
+                + " ORDER BY a.appointment_date DESC, a.appointment_time DESC,"
+                + " COALESCE(a.appointment_id, 0) DESC, COALESCE(a.series_id, 0) DESC LIMIT ?";
+    }
+
+    /**
+     * Binds the parameters of pageNewestFirstSql from the given index and returns the next one.
+     */
+    static int bindPageNewestFirst(PreparedStatement ps, int i, int ownerId, Appointment after, int limit)
+            throws SQLException {
+        i = SeriesSql.bindWindow(ps, i, null, LocalDate.now().plusDays(OCCURRENCE_HORIZON_DAYS));
+        ps.setInt(i++, ownerId);
+        if (after != null) {
+            ps.setDate(i++, Date.valueOf(after.getAppointmentDate()));
+            ps.setTime(i++, Time.valueOf(after.getAppointmentTime()));
+            ps.setInt(i++, after.getAppointmentId() == null ? 0 : after.getAppointmentId());
+            ps.setInt(i++, after.getSeriesId() == null ? 0 : after.getSeriesId());
+        }
+        ps.setInt(i++, limit + 1);
+        return i;
+    }
+
+    // A row of pageNewestFirstSql: an appointment, or an occurrence with its series id
+    Appointment mapPageRow(ResultSet rs) throws SQLException {
+        Appointment a = mapRow(rs);
+        int seriesId = rs.getInt("series_id");
+        if (!rs.wasNull()) {
+            a.setAppointmentId(null);
+            a.setSeriesId(seriesId);
+        }
+        return a;
+    }
+
+    /**
+     * Publishes an appointment change with the doctor days and patients it touched as search
+     * keys, so per-day and per-patient caches can drop just those entries.
+     */
+    private static void publish(ChangeType change, int id, String... keys) {
+        EntityChangeBus.publish(new EntityChangeEvent(EntityType.APPOINTMENT, change, id,
+                new LinkedHashSet<>(Arrays.asList(keys))));
+    }
+
+    private static String slotKey(ResultSet rs) throws SQLException {
+        return DaySlots.key(rs.getInt("doctor_id"), rs.getDate("appointment_date").toLocalDate());
+    }
+
+    private static String patientKey(ResultSet rs) throws SQLException {
+        return EntityChangeEvent.patientKey(rs.getInt("patient_id"));
+    }
+
+    Appointment mapRow(ResultSet rs) throws SQLException {
         Appointment a = new Appointment();
         a.setAppointmentId(rs.getInt("appointment_id"));
         Date d = rs.getDate("appointment_date");
@@ -233,4 +828,29 @@ public class AppointmentDAOImpl implements AppointmentDAO {
         a.setDoctorId(rs.getInt("doctor_id"));
         return a;
     }
+
+    private AppointmentListing mapListing(ResultSet rs) throws SQLException {
+        AppointmentListing a = new AppointmentListing();
+        a.setAppointmentId(rs.getInt("appointment_id"));
+        int seriesId = rs.getInt("series_id");
+        if (!rs.wasNull()) {
+            a.setAppointmentId(null);
+            a.setSeriesId(seriesId);
+        }
+        Date d = rs.getDate("appointment_date");
+        if (d != null)
+            a.setAppointmentDate(d.toLocalDate());
+        Time t = rs.getTime("appointment_time");
+        if (t != null)
+            a.setAppointmentTime(t.toLocalTime());
+        a.setStatus(rs.getString("status"));
+        a.setPatientId(rs.getInt("patient_id"));
+        a.setDoctorId(rs.getInt("doctor_id"));
+        a.setPatientFirstName(rs.getString("patient_first_name"));
+        a.setPatientLastName(rs.getString("patient_last_name"));
+        a.setDoctorFirstName(rs.getString("doctor_first_name"));
+        a.setDoctorLastName(rs.getString("doctor_last_name"));
+        a.setDoctorSpecialization(rs.getString("specialization"));
+        return a;
+    }
 }
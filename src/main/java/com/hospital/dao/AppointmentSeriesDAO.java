@@ -0,0 +1,18 @@
+package com.hospital.dao;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSeries;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public interface AppointmentSeriesDAO {
+    int create(AppointmentSeries series) throws Exception;
+    AppointmentSeries findById(int id) throws Exception;
+    List<AppointmentSeries> findByPatientId(int patientId) throws Exception;
+    boolean delete(int id) throws Exception;
+    List<LocalDate> findClashes(int doctorId, LocalTime time, List<LocalDate> dates) throws Exception;
+    int replaceOccurrence(int seriesId, LocalDate occurrenceDate, Appointment replacement) throws Exception;
+    boolean removeOccurrence(int seriesId, LocalDate occurrenceDate) throws Exception;
+}
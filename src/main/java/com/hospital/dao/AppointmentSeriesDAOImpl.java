@@ -0,0 +1,361 @@
+package com.hospital.dao;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSeries;
+import com.hospital.util.DatabaseConnection;
+import com.hospital.util.DaySlots;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.PerformanceMonitor;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * JDBC implementation for AppointmentSeriesDAO
+ */
+public class AppointmentSeriesDAOImpl implements AppointmentSeriesDAO {
+    private static final String SCHEDULED = "Scheduled";
+    private static final String COLUMNS = "series_id, start_date, appointment_time, frequency, interval_count, end_date, occurrence_count, patient_id, doctor_id";
+
+    @Override
+    /**
+     * Creates a new appointment series. Its occurrences are checked against the doctor's
+     * appointments and other series while holding the doctor's booking lock, in the same
+     * transaction as the insert.
+     *
+     * @param series The series details; it must end, by date or by count.
+     * @return The generated series ID.
+     * @throws Exception If a database error occurs; clashing occurrences are reported with
+     *                   SQLSTATE 23505 and the clashing dates in the message.
+     */
+    public int create(AppointmentSeries series) throws Exception {
+        String sql = "INSERT INTO appointment_series (start_date, appointment_time, frequency, interval_count, end_date, occurrence_count, patient_id, doctor_id)"
+                + " VALUES (?,?,?,?,?,?,?,?) RETURNING series_id";
+        int id = -1;
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentSeriesDAO.create");
+                Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                DoctorBookingLock.lock(conn, series.getDoctorId());
+                List<LocalDate> clashes = findClashes(conn, series.getDoctorId(), series.getAppointmentTime(),
+                        series.allOccurrences());
+                if (!clashes.isEmpty())
+                    throw DoctorBookingLock.clash("Doctor is already booked at this time on " + clashes);
+                id = insert(conn, sql, series);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        if (id > 0) {
+            // Its occurrences may fall on any day, so no day keys
+            publish(EntityType.APPOINTMENT_SERIES, ChangeType.CREATED, id, EntityChangeEvent.patientKey(series.getPatientId()));
+        }
+        return id;
+    }
+
+    private int insert(Connection conn, String sql, AppointmentSeries series) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, Date.valueOf(series.getStartDate()));
+            ps.setTime(2, Time.valueOf(series.getAppointmentTime()));
+            ps.setString(3, series.getFrequency().name());
+            ps.setInt(4, series.getInterval());
+            if (series.getEndDate() != null)
+                ps.setDate(5, Date.valueOf(series.getEndDate()));
+            else
+                ps.setNull(5, Types.DATE);
+            if (series.getOccurrenceCount() != null)
+                ps.setInt(6, series.getOccurrenceCount());
+            else
+                ps.setNull(6, Types.INTEGER);
+            ps.setInt(7, series.getPatientId());
+            ps.setInt(8, series.getDoctorId());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    @Override
+    /**
+     * Finds an appointment series by ID.
+     *
+     * @param id The series ID.
+     * @return The series if found, null otherwise.
+     * @throws Exception If a database error occurs.
+     */
+    public AppointmentSeries findById(int id) throws Exception {
+        String sql = "SELECT " + COLUMNS + " FROM appointment_series WHERE series_id = ?";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentSeriesDAO.findById");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return mapRow(rs);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    /**
+     * Finds the appointment series of a patient.
+     *
+     * @param patientId The patient's ID.
+     * @return The patient's series, earliest first.
+     * @throws Exception If a database error occurs.
+     */
+    public List<AppointmentSeries> findByPatientId(int patientId) throws Exception {
+        String sql = "SELECT " + COLUMNS + " FROM appointment_series WHERE patient_id = ? ORDER BY start_date, series_id";
+        List<AppointmentSeries> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentSeriesDAO.findByPatientId");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, patientId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    list.add(mapRow(rs));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    /**
+     * Deletes a series and so all of its remaining occurrences. Occurrences already
+     * materialized as appointments are kept.
+     *
+     * @param id The series ID.
+     * @return true if successful, false otherwise.
+     * @throws Exception If a database error occurs.
+     */
+    public boolean delete(int id) throws Exception {
+        String sql = "DELETE FROM appointment_series WHERE series_id = ? RETURNING patient_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentSeriesDAO.delete");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                publish(EntityType.APPOINTMENT_SERIES, ChangeType.DELETED, id, EntityChangeEvent.patientKey(rs.getInt(1)));
+                return true;
+            }
+        }
+    }
+
+    @Override
+    /**
+     * Finds the dates on which a doctor already has a scheduled appointment or series
+     * occurrence at the given time, checking all the dates in one query.
+     *
+     * @param doctorId The doctor's ID.
+     * @param time     The time of day.
+     * @param dates    The dates to check.
+     * @return The dates that are taken, in order.
+     * @throws Exception If a database error occurs.
+     */
+    public List<LocalDate> findClashes(int doctorId, LocalTime time, List<LocalDate> dates) throws Exception {
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentSeriesDAO.findClashes");
+                Connection conn = DatabaseConnection.getConnection()) {
+            return findClashes(conn, doctorId, time, dates);
+        }
+    }
+
+    private List<LocalDate> findClashes(Connection conn, int doctorId, LocalTime time, List<LocalDate> dates)
+            throws SQLException {
+        List<LocalDate> clashes = new ArrayList<>();
+        if (dates.isEmpty())
+            return clashes;
+        String sql = "SELECT d.day FROM unnest(?::date[]) AS d(day)"
+                + " WHERE EXISTS (SELECT 1 FROM " + SeriesSql.APPOINTMENTS_WITH_OCCURRENCES + " a"
+                + " WHERE a.doctor_id = ? AND a.appointment_date = d.day AND a.appointment_time = ? AND a.status = 'Scheduled')"
+                + " ORDER BY d.day";
+        Date[] days = new Date[dates.size()];
+        for (int i = 0; i < days.length; i++)
+            days[i] = Date.valueOf(dates.get(i));
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, conn.createArrayOf("date", days));
+            int i = SeriesSql.bindWindow(ps, 2, Collections.min(dates), Collections.max(dates));
+            ps.setInt(i++, doctorId);
+            ps.setTime(i, Time.valueOf(time));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    clashes.add(rs.getDate(1).toLocalDate());
+            }
+        }
+        return clashes;
+    }
+
+    @Override
+    /**
+     * Materializes one occurrence as an appointment row, e.g. when it is moved, completed
+     * or cancelled, and records the exception so the series no longer produces it. Both
+     * writes happen in one transaction; a scheduled replacement is checked for clashes in it
+     * too, holding its doctor's booking lock.
+     *
+     * @param seriesId       The series ID.
+     * @param occurrenceDate The date the occurrence falls on by the series' rule.
+     * @param replacement    The appointment that replaces it.
+     * @return The new appointment ID, or -1 if the occurrence was already replaced or removed.
+     * @throws Exception If a database error occurs; a clash is reported with SQLSTATE
+     *                   23505, like a unique violation.
+     */
+    public int replaceOccurrence(int seriesId, LocalDate occurrenceDate, Appointment replacement) throws Exception {
+        String insertAppointment = "INSERT INTO appointment (appointment_date, appointment_time, status, patient_id, doctor_id) VALUES (?,?,?,?,?) RETURNING appointment_id";
+        String insertException = "INSERT INTO appointment_series_exception (series_id, occurrence_date) VALUES (?,?)"
+                + " ON CONFLICT DO NOTHING";
+        String linkException = "UPDATE appointment_series_exception SET appointment_id = ? WHERE series_id = ? AND occurrence_date = ?";
+        int appointmentId;
+        int seriesDoctorId;
+        int seriesPatientId;
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentSeriesDAO.replaceOccurrence");
+                Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int[] owners = lockSeries(conn, seriesId);
+                if (owners == null) {
+                    conn.rollback();
+                    return -1;
+                }
+                seriesDoctorId = owners[0];
+                seriesPatientId = owners[1];
+                // The exception goes in first, so the clash check no longer sees the occurrence itself
+                try (PreparedStatement ps = conn.prepareStatement(insertException)) {
+                    ps.setInt(1, seriesId);
+                    ps.setDate(2, Date.valueOf(occurrenceDate));
+                    if (ps.executeUpdate() == 0) {
+                        conn.rollback();
+                        return -1;
+                    }
+                }
+                if (SCHEDULED.equals(replacement.getStatus())) {
+                    DoctorBookingLock.lock(conn, replacement.getDoctorId());
+                    if (!findClashes(conn, replacement.getDoctorId(), replacement.getAppointmentTime(),
+                            List.of(replacement.getAppointmentDate())).isEmpty())
+                        throw DoctorBookingLock.clash("Doctor is already booked at this time");
+                }
+                try (PreparedStatement ps = conn.prepareStatement(insertAppointment)) {
+                    ps.setDate(1, Date.valueOf(replacement.getAppointmentDate()));
+                    ps.setTime(2, Time.valueOf(replacement.getAppointmentTime()));
+                    ps.setString(3, replacement.getStatus());
+                    ps.setInt(4, replacement.getPatientId());
+                    ps.setInt(5, replacement.getDoctorId());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        rs.next();
+                        appointmentId = rs.getInt(1);
+                    }
+                }
+                try (PreparedStatement ps = conn.prepareStatement(linkException)) {
+                    ps.setInt(1, appointmentId);
+                    ps.setInt(2, seriesId);
+                    ps.setDate(3, Date.valueOf(occurrenceDate));
+                    ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                System.err.println("Error replacing series occurrence: " + e.getMessage());
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        publish(EntityType.APPOINTMENT_SERIES, ChangeType.UPDATED, seriesId, DaySlots.key(seriesDoctorId, occurrenceDate),
+                EntityChangeEvent.patientKey(seriesPatientId));
+        publish(EntityType.APPOINTMENT, ChangeType.CREATED, appointmentId,
+                DaySlots.key(replacement.getDoctorId(), replacement.getAppointmentDate()),
+                EntityChangeEvent.patientKey(replacement.getPatientId()));
+        return appointmentId;
+    }
+
+    @Override
+    /**
+     * Removes one occurrence from a series without replacing it.
+     *
+     * @param seriesId       The series ID.
+     * @param occurrenceDate The date the occurrence falls on by the series' rule.
+     * @return true if removed, false if the series does not exist or the occurrence was
+     *         already replaced or removed.
+     * @throws Exception If a database error occurs.
+     */
+    public boolean removeOccurrence(int seriesId, LocalDate occurrenceDate) throws Exception {
+        String sql = "WITH s AS (SELECT series_id, doctor_id, patient_id FROM appointment_series WHERE series_id = ?),"
+                + " x AS (INSERT INTO appointment_series_exception (series_id, occurrence_date)"
+                + " SELECT series_id, ? FROM s ON CONFLICT DO NOTHING RETURNING series_id)"
+                + " SELECT s.doctor_id, s.patient_id FROM s JOIN x ON x.series_id = s.series_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("AppointmentSeriesDAO.removeOccurrence");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, seriesId);
+            ps.setDate(2, Date.valueOf(occurrenceDate));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                publish(EntityType.APPOINTMENT_SERIES, ChangeType.UPDATED, seriesId,
+                        DaySlots.key(rs.getInt(1), occurrenceDate), EntityChangeEvent.patientKey(rs.getInt(2)));
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Locks the series row for the transaction and returns its doctor and patient ids, or
+     * null if it does not exist.
+     */
+    private int[] lockSeries(Connection conn, int seriesId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT doctor_id, patient_id FROM appointment_series WHERE series_id = ? FOR UPDATE")) {
+            ps.setInt(1, seriesId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new int[] { rs.getInt(1), rs.getInt(2) } : null;
+            }
+        }
+    }
+
+    /**
+     * Publishes a change with the doctor days and patients it touched, like AppointmentDAOImpl does.
+     */
+    private static void publish(EntityType type, ChangeType change, int id, String... keys) {
+        EntityChangeBus.publish(new EntityChangeEvent(type, change, id, new LinkedHashSet<>(Arrays.asList(keys))));
+    }
+
+    AppointmentSeries mapRow(ResultSet rs) throws SQLException {
+        AppointmentSeries s = new AppointmentSeries();
+        s.setSeriesId(rs.getInt("series_id"));
+        s.setStartDate(rs.getDate("start_date").toLocalDate());
+        s.setAppointmentTime(rs.getTime("appointment_time").toLocalTime());
+        s.setFrequency(AppointmentSeries.Frequency.valueOf(rs.getString("frequency")));
+        s.setInterval(rs.getInt("interval_count"));
+        Date end = rs.getDate("end_date");
+        if (end != null)
+            s.setEndDate(end.toLocalDate());
+        int count = rs.getInt("occurrence_count");
+        if (!rs.wasNull())
+            s.setOccurrenceCount(count);
+        s.setPatientId(rs.getInt("patient_id"));
+        s.setDoctorId(rs.getInt("doctor_id"));
+        return s;
+    }
+}
@@ -3,11 +3,14 @@ package com.hospital.dao;
 import com.hospital.model.Department;
 
 import java.util.List;
+import java.util.Map;
 
 public interface DepartmentDAO {
     int create(Department department) throws Exception;
     Department findById(int id) throws Exception;
     List<Department> findAll() throws Exception;
+    Page<Department> findPage(int afterId, int limit) throws Exception;
     boolean update(Department department) throws Exception;
     boolean delete(int id) throws Exception;
+    Map<Integer, Integer> countDoctorsByDepartment() throws Exception;
 }
@@ -2,13 +2,19 @@ package com.hospital.dao;
 
 import com.hospital.model.Department;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.PerformanceMonitor;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * JDBC implementation for DepartmentDAO
@@ -25,7 +31,8 @@ public class DepartmentDAOImpl implements DepartmentDAO {
      */
     public int create(Department department) throws Exception {
         String sql = "INSERT INTO department (department_name, location) VALUES (?,?) RETURNING department_id";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DepartmentDAO.create");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, department.getDepartmentName());
             ps.setString(2, department.getLocation());
@@ -33,6 +40,7 @@ public class DepartmentDAOImpl implements DepartmentDAO {
                 if (rs.next()) {
                     int id = rs.getInt(1);
                     System.out.println("Inserted department id=" + id);
+                    EntityChangeBus.publish(EntityType.DEPARTMENT, ChangeType.CREATED, id);
                     return id;
                 }
             }
@@ -53,7 +61,8 @@ public class DepartmentDAOImpl implements DepartmentDAO {
      */
     public Department findById(int id) throws Exception {
         String sql = "SELECT department_id, department_name, location FROM department WHERE department_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DepartmentDAO.findById");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -80,7 +89,8 @@ public class DepartmentDAOImpl implements DepartmentDAO {
     public List<Department> findAll() throws Exception {
         String sql = "SELECT department_id, department_name, location FROM department";
         List<Department> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DepartmentDAO.findAll");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -95,6 +105,37 @@ public class DepartmentDAOImpl implements DepartmentDAO {
         return list;
     }
 
+    @Override
+    /**
+     * Retrieves one page of departments in id order, starting after the given id.
+     * 
+     * @param afterId The last department ID of the previous page, or 0 for the first page.
+     * @param limit   The maximum number of departments to return.
+     * @return The page of departments.
+     * @throws Exception If a database error occurs.
+     */
+    public Page<Department> findPage(int afterId, int limit) throws Exception {
+        String sql = "SELECT department_id, department_name, location FROM department WHERE department_id > ? ORDER BY department_id LIMIT ?";
+        List<Department> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DepartmentDAO.findPage");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Department d = new Department();
+                    d.setDepartmentId(rs.getInt("department_id"));
+                    d.setDepartmentName(rs.getString("department_name"));
+                    d.setDescription(null);
+                    d.setLocation(rs.getString("location"));
+                    list.add(d);
+                }
+            }
+        }
+        return Page.of(list, limit);
+    }
+
     @Override
     /**
      * Updates an existing department's information.
@@ -105,12 +146,15 @@ public class DepartmentDAOImpl implements DepartmentDAO {
      */
     public boolean update(Department department) throws Exception {
         String sql = "UPDATE department SET department_name=?, location=? WHERE department_id=?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DepartmentDAO.update");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, department.getDepartmentName());
             ps.setString(2, department.getLocation());
             ps.setInt(3, department.getDepartmentId());
             int updated = ps.executeUpdate();
+            if (updated > 0)
+                EntityChangeBus.publish(EntityType.DEPARTMENT, ChangeType.UPDATED, department.getDepartmentId());
             return updated > 0;
         }
     }
@@ -125,11 +169,36 @@ public class DepartmentDAOImpl implements DepartmentDAO {
      */
     public boolean delete(int id) throws Exception {
         String sql = "DELETE FROM department WHERE department_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DepartmentDAO.delete");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             int affected = ps.executeUpdate();
+            if (affected > 0)
+                EntityChangeBus.publish(EntityType.DEPARTMENT, ChangeType.DELETED, id);
             return affected > 0;
         }
     }
+
+    @Override
+    /**
+     * Counts the doctors in each department with one aggregate query.
+     * 
+     * @return Doctor counts keyed by department ID; departments without doctors are absent.
+     * @throws Exception If a database error occurs.
+     */
+    public Map<Integer, Integer> countDoctorsByDepartment() throws Exception {
+        // Answered from idx_doctor_department without reading the doctor rows
+        String sql = "SELECT department_id, COUNT(*) FROM doctor GROUP BY department_id";
+        Map<Integer, Integer> counts = new HashMap<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DepartmentDAO.countDoctorsByDepartment");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getInt(1), rs.getInt(2));
+            }
+        }
+        return counts;
+    }
 }
@@ -0,0 +1,49 @@
+package com.hospital.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Serializes bookings per doctor with a transaction-scoped advisory lock. The unique index
+ * uq_appointment_doctor_slot only covers appointment rows; series occurrences are never
+ * stored, so a clash with one can only be ruled out by checking and writing while holding
+ * the doctor's lock. Every write that can take a doctor's slot locks the doctor first and
+ * checks inside the same transaction.
+ */
+final class DoctorBookingLock {
+    // SQLSTATE of a unique violation, so a clash found under the lock is reported the same
+    // way as one caught by uq_appointment_doctor_slot
+    static final String CLASH_STATE = "23505";
+    // First key of the two-key advisory lock, keeping doctor ids apart from other locks
+    private static final int NAMESPACE = 0x44_6f_63; // "Doc"
+
+    private DoctorBookingLock() {
+    }
+
+    /**
+     * Takes the doctor's lock until the transaction ends. Auto-commit must be off.
+     */
+    static void lock(Connection conn, int doctorId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT pg_advisory_xact_lock(?, ?)")) {
+            ps.setInt(1, NAMESPACE);
+            ps.setInt(2, doctorId);
+            ps.execute();
+        }
+    }
+
+    /**
+     * Takes every doctor's lock, in id order so two batches cannot deadlock.
+     */
+    static void lockAll(Connection conn, Collection<Integer> doctorIds) throws SQLException {
+        for (int doctorId : new TreeSet<>(doctorIds)) {
+            lock(conn, doctorId);
+        }
+    }
+
+    static SQLException clash(String message) {
+        return new SQLException(message, CLASH_STATE);
+    }
+}
@@ -11,6 +11,10 @@ public interface DoctorDAO {
 
     List<Doctor> findAll() throws Exception;
 
+    Page<Doctor> findPage(int afterId, int limit) throws Exception;
+
+    int count() throws Exception;
+
     List<Doctor> findByDepartment(int departmentId) throws Exception;
 
     List<Doctor> findBySpecialization(String specialization) throws Exception;
@@ -20,4 +24,6 @@ public interface DoctorDAO {
     boolean delete(int id) throws Exception;
 
     List<Doctor> searchByName(String name) throws Exception;
+
+    List<Doctor> search(String query, int limit) throws Exception;
 }
@@ -2,6 +2,12 @@ package com.hospital.dao;
 
 import com.hospital.model.Doctor;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.PerformanceMonitor;
+import com.hospital.util.QueryCancellation;
+import com.hospital.util.SchemaMigrator;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -14,6 +20,7 @@ import java.util.List;
  * JDBC implementation for DoctorDAO
  */
 public class DoctorDAOImpl implements DoctorDAO {
+    private static final int SEARCH_LIMIT = 100;
 
     @Override
     /**
@@ -25,7 +32,8 @@ public class DoctorDAOImpl implements DoctorDAO {
      */
     public int create(Doctor doctor) throws Exception {
         String sql = "INSERT INTO doctor (first_name, last_name, specialization, phone, email, department_id, license_number) VALUES (?,?,?,?,?,?,?) RETURNING doctor_id";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.create");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, doctor.getFirstName());
             ps.setString(2, doctor.getLastName());
@@ -38,6 +46,7 @@ public class DoctorDAOImpl implements DoctorDAO {
                 if (rs.next()) {
                     int id = rs.getInt(1);
                     System.out.println("Inserted doctor id=" + id);
+                    EntityChangeBus.publish(EntityType.DOCTOR, ChangeType.CREATED, id);
                     return id;
                 }
             }
@@ -58,7 +67,8 @@ public class DoctorDAOImpl implements DoctorDAO {
      */
     public Doctor findById(int id) throws Exception {
         String sql = "SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number FROM doctor WHERE doctor_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.findById");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -80,7 +90,8 @@ public class DoctorDAOImpl implements DoctorDAO {
     public List<Doctor> findAll() throws Exception {
         String sql = "SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number FROM doctor";
         List<Doctor> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.findAll");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -90,6 +101,23 @@ public class DoctorDAOImpl implements DoctorDAO {
         return list;
     }
 
+    @Override
+    /**
+     * Counts all doctors.
+     * 
+     * @return The number of doctors.
+     * @throws Exception If a database error occurs.
+     */
+    public int count() throws Exception {
+        String sql = "SELECT COUNT(*) FROM doctor";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.count");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
     @Override
     /**
      * Finds doctors belonging to a specific department.
@@ -101,7 +129,8 @@ public class DoctorDAOImpl implements DoctorDAO {
     public List<Doctor> findByDepartment(int departmentId) throws Exception {
         String sql = "SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number FROM doctor WHERE department_id = ?";
         List<Doctor> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.findByDepartment");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, departmentId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -124,7 +153,8 @@ public class DoctorDAOImpl implements DoctorDAO {
     public List<Doctor> findBySpecialization(String specialization) throws Exception {
         String sql = "SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number FROM doctor WHERE specialization = ?";
         List<Doctor> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.findBySpecialization");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, specialization);
             try (ResultSet rs = ps.executeQuery()) {
@@ -146,7 +176,8 @@ public class DoctorDAOImpl implements DoctorDAO {
      */
     public boolean update(Doctor doctor) throws Exception {
         String sql = "UPDATE doctor SET first_name=?, last_name=?, specialization=?, phone=?, email=?, department_id=?, license_number=? WHERE doctor_id=?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.update");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, doctor.getFirstName());
             ps.setString(2, doctor.getLastName());
@@ -157,6 +188,8 @@ public class DoctorDAOImpl implements DoctorDAO {
             ps.setString(7, doctor.getLicenseNumber());
             ps.setInt(8, doctor.getDoctorId());
             int updated = ps.executeUpdate();
+            if (updated > 0)
+                EntityChangeBus.publish(EntityType.DOCTOR, ChangeType.UPDATED, doctor.getDoctorId());
             return updated > 0;
         }
     }
@@ -171,30 +204,73 @@ public class DoctorDAOImpl implements DoctorDAO {
      */
     public boolean delete(int id) throws Exception {
         String sql = "DELETE FROM doctor WHERE doctor_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.delete");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             int affected = ps.executeUpdate();
+            if (affected > 0)
+                EntityChangeBus.publish(EntityType.DOCTOR, ChangeType.DELETED, id);
             return affected > 0;
         }
     }
 
     @Override
     /**
-     * Searches for doctors by name (partial match).
+     * Searches for doctors by name or email (partial or fuzzy match), best matches first.
      * 
      * @param name The name search query.
      * @return A list of matching Doctor objects.
      * @throws Exception If a database error occurs.
      */
     public List<Doctor> searchByName(String name) throws Exception {
-        String sql = "SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number FROM doctor WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ?";
+        return search(name, SEARCH_LIMIT);
+    }
+
+    @Override
+    /**
+     * Searches doctors by name or email, best matches first. Terms contained in the name or
+     * email rank above fuzzy (trigram similarity) name matches. Backed by the pg_trgm GIN
+     * indexes; without pg_trgm only contained terms match.
+     * 
+     * @param query The search term.
+     * @param limit The maximum number of doctors to return.
+     * @return The matching doctors, best first.
+     * @throws Exception If a database error occurs.
+     */
+    public List<Doctor> search(String query, int limit) throws Exception {
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        String term = SearchSql.normalize(query);
+        String like = SearchSql.contains(term);
+        boolean trigram = SchemaMigrator.isTrigramSearchAvailable();
+        String name = SearchSql.FULL_NAME;
+        String sql = trigram
+                ? "SELECT * FROM (SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number,"
+                        + " (" + name + " LIKE ? OR lower(email) LIKE ?) AS contained,"
+                        + " GREATEST(similarity(" + name + ", ?), similarity(lower(coalesce(email, '')), ?)) AS score"
+                        + " FROM doctor WHERE " + name + " LIKE ? OR " + name + " % ? OR lower(email) LIKE ?) ranked"
+                        + " ORDER BY contained DESC, score DESC, doctor_id LIMIT ?"
+                : "SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number FROM doctor"
+                        + " WHERE " + name + " LIKE ? OR lower(email) LIKE ?"
+                        + " ORDER BY last_name, first_name, doctor_id LIMIT ?";
         List<Doctor> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement ps = conn.prepareStatement(sql)) {
-            String q = "%" + name.toLowerCase() + "%";
-            ps.setString(1, q);
-            ps.setString(2, q);
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.search");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql);
+                QueryCancellation.Registration cancellable = QueryCancellation.track(ps)) {
+            int i = 1;
+            ps.setString(i++, like);
+            ps.setString(i++, like);
+            if (trigram) {
+                ps.setString(i++, term);
+                ps.setString(i++, term);
+                ps.setString(i++, like);
+                ps.setString(i++, term);
+                ps.setString(i++, like);
+            }
+            ps.setInt(i, limit);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     list.add(mapRow(rs));
@@ -204,7 +280,32 @@ public class DoctorDAOImpl implements DoctorDAO {
         return list;
     }
 
-    private Doctor mapRow(ResultSet rs) throws SQLException {
+    @Override
+    /**
+     * Retrieves one page of doctors in id order, starting after the given id.
+     * 
+     * @param afterId The last doctor ID of the previous page, or 0 for the first page.
+     * @param limit   The maximum number of doctors to return.
+     * @return The page of doctors.
+     * @throws Exception If a database error occurs.
+     */
+    public Page<Doctor> findPage(int afterId, int limit) throws Exception {
+        String sql = "SELECT doctor_id, first_name, last_name, specialization, phone, email, department_id, license_number FROM doctor WHERE doctor_id > ? ORDER BY doctor_id LIMIT ?";
+        List<Doctor> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("DoctorDAO.findPage");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit + 1);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    list.add(mapRow(rs));
+            }
+        }
+        return Page.of(list, limit);
+    }
+
+    Doctor mapRow(ResultSet rs) throws SQLException {
         Doctor d = new Doctor();
         d.setDoctorId(rs.getInt("doctor_id"));
         d.setFirstName(rs.getString("first_name"));
@@ -7,5 +7,7 @@ public interface MedicalRecordDAO {
     void add(MedicalRecord record);
 
     List<MedicalRecord> getByPatientId(int patientId);
+
+    Page<MedicalRecord> getPageByPatientId(int patientId, MedicalRecord after, int limit);
     // Add other methods as needed
 }
@@ -2,24 +2,37 @@ package com.hospital.dao;
 
 import com.hospital.model.MedicalRecord;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.PerformanceMonitor;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class MedicalRecordDAOImpl implements MedicalRecordDAO {
 
     @Override
     public void add(MedicalRecord record) {
-        String sql = "INSERT INTO medical_record (diagnosis, treatment, record_date, patient_id, doctor_id) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "INSERT INTO medical_record (diagnosis, treatment, record_date, patient_id, doctor_id) VALUES (?, ?, ?, ?, ?) RETURNING record_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("MedicalRecordDAO.add");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, record.getDiagnosis());
             stmt.setString(2, record.getTreatment());
             stmt.setDate(3, Date.valueOf(record.getRecordDate()));
             stmt.setInt(4, record.getPatientId());
             stmt.setInt(5, record.getDoctorId());
-            stmt.executeUpdate();
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    record.setRecordId(rs.getInt(1));
+                    EntityChangeBus.publish(new EntityChangeEvent(EntityType.MEDICAL_RECORD, ChangeType.CREATED,
+                            record.getRecordId(), Set.of(EntityChangeEvent.patientKey(record.getPatientId()))));
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             throw new RuntimeException("Error adding medical record", e);
@@ -30,19 +43,13 @@ public class MedicalRecordDAOImpl implements MedicalRecordDAO {
     public List<MedicalRecord> getByPatientId(int patientId) {
         List<MedicalRecord> list = new ArrayList<>();
         String sql = "SELECT * FROM medical_record WHERE patient_id = ? ORDER BY record_date DESC";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("MedicalRecordDAO.getByPatientId");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, patientId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    MedicalRecord r = new MedicalRecord();
-                    r.setRecordId(rs.getInt("record_id"));
-                    r.setDiagnosis(rs.getString("diagnosis"));
-                    r.setTreatment(rs.getString("treatment"));
-                    r.setRecordDate(rs.getDate("record_date").toLocalDate());
-                    r.setPatientId(rs.getInt("patient_id"));
-                    r.setDoctorId(rs.getInt("doctor_id"));
-                    list.add(r);
+                    list.add(mapRow(rs));
                 }
             }
         } catch (SQLException e) {
@@ -51,4 +58,57 @@ public class MedicalRecordDAOImpl implements MedicalRecordDAO {
         }
         return list;
     }
+
+    @Override
+    public Page<MedicalRecord> getPageByPatientId(int patientId, MedicalRecord after, int limit) {
+        List<MedicalRecord> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("MedicalRecordDAO.getPageByPatientId");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(pageByPatientSql(after != null))) {
+            bindPageByPatient(stmt, 1, patientId, after, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error fetching medical records", e);
+        }
+        return Page.of(list, limit);
+    }
+
+    /**
+     * The page query of getPageByPatientId; PatientChartDAOImpl batches it with others.
+     */
+    static String pageByPatientSql(boolean seek) {
+        return "SELECT * FROM medical_record WHERE patient_id = ?"
+                + (seek ? " AND (record_date, record_id) < (?, ?)" : "")
+                + " ORDER BY record_date DESC, record_id DESC LIMIT ?";
+    }
+
+    /**
+     * Binds the parameters of pageByPatientSql from the given index and returns the next one.
+     */
+    static int bindPageByPatient(PreparedStatement stmt, int i, int patientId, MedicalRecord after, int limit)
+            throws SQLException {
+        stmt.setInt(i++, patientId);
+        if (after != null) {
+            stmt.setDate(i++, Date.valueOf(after.getRecordDate()));
+            stmt.setInt(i++, after.getRecordId());
+        }
+        stmt.setInt(i++, limit + 1);
+        return i;
+    }
+
+    MedicalRecord mapRow(ResultSet rs) throws SQLException {
+        MedicalRecord r = new MedicalRecord();
+        r.setRecordId(rs.getInt("record_id"));
+        r.setDiagnosis(rs.getString("diagnosis"));
+        r.setTreatment(rs.getString("treatment"));
+        r.setRecordDate(rs.getDate("record_date").toLocalDate());
+        r.setPatientId(rs.getInt("patient_id"));
+        r.setDoctorId(rs.getInt("doctor_id"));
+        return r;
+    }
 }
@@ -0,0 +1,48 @@
+package com.hospital.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query. The next page is requested with the last item of
+ * this one (or its id) as the cursor, so pages are read with an index seek instead of an
+ * OFFSET scan and stay cheap however deep the caller scrolls.
+ *
+ * DAOs fetch limit + 1 rows; the extra row only tells whether there is another page.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final boolean hasMore;
+
+    public Page(List<T> items, boolean hasMore) {
+        this.items = Collections.unmodifiableList(items);
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Builds a page from up to limit + 1 fetched rows, dropping the look-ahead row.
+     */
+    public static <T> Page<T> of(List<T> rows, int limit) {
+        boolean more = rows.size() > limit;
+        return new Page<>(more ? rows.subList(0, limit) : rows, more);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * The cursor for the next page, or null if this page is empty.
+     */
+    public T getLast() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+}
@@ -0,0 +1,7 @@
+package com.hospital.dao;
+
+import com.hospital.model.PatientChart;
+
+public interface PatientChartDAO {
+    PatientChart findChart(int patientId, int limit) throws Exception;
+}
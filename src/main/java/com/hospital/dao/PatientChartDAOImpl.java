@@ -0,0 +1,102 @@
+package com.hospital.dao;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.MedicalRecord;
+import com.hospital.model.PatientChart;
+import com.hospital.model.PatientNote;
+import com.hospital.model.Prescription;
+import com.hospital.model.PrescriptionItem;
+import com.hospital.util.DatabaseConnection;
+import com.hospital.util.PerformanceMonitor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the first page of each part of a patient's chart with one PostgreSQL round-trip
+ * and one MongoDB query. The page queries of the appointment, prescription and medical
+ * record DAOs, plus the items of the first prescription page, are sent as one
+ * multi-statement query, which pgjdbc executes in a single round-trip on one connection.
+ */
+public class PatientChartDAOImpl implements PatientChartDAO {
+    // The items of the prescriptions pageByPatientSql returns on the first page
+    private static final String FIRST_PAGE_ITEMS = PrescriptionDAOImpl.ITEMS_SELECT
+            + " WHERE pi.prescription_id IN (SELECT prescription_id FROM prescription WHERE patient_id = ?"
+            + " ORDER BY prescription_date DESC, prescription_id DESC LIMIT ?)"
+            + " ORDER BY pi.prescription_id, pi.prescription_item_id";
+    private static final String CHART_SQL = AppointmentDAOImpl.pageNewestFirstSql("patient_id", false)
+            + "; " + PrescriptionDAOImpl.pageByPatientSql(false)
+            + "; " + FIRST_PAGE_ITEMS
+            + "; " + MedicalRecordDAOImpl.pageByPatientSql(false);
+
+    private final AppointmentDAOImpl appointmentDAO = new AppointmentDAOImpl();
+    private final PrescriptionDAOImpl prescriptionDAO = new PrescriptionDAOImpl();
+    private final MedicalRecordDAOImpl medicalRecordDAO = new MedicalRecordDAOImpl();
+    private final PatientNoteDAO noteDAO = new PatientNoteDAO();
+
+    @Override
+    /**
+     * Loads the first page of the patient's appointments (with series occurrences),
+     * prescriptions with their items, medical records and notes.
+     *
+     * @param patientId The patient's ID.
+     * @param limit     The page size of each part.
+     * @return The patient's chart.
+     * @throws Exception If a database error occurs.
+     */
+    public PatientChart findChart(int patientId, int limit) throws Exception {
+        List<Appointment> appointments = new ArrayList<>();
+        List<Prescription> prescriptions = new ArrayList<>();
+        Map<Integer, List<PrescriptionItem>> items = new HashMap<>();
+        List<MedicalRecord> records = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientChartDAO.findChart");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(CHART_SQL)) {
+            int i = AppointmentDAOImpl.bindPageNewestFirst(ps, 1, patientId, null, limit);
+            i = PrescriptionDAOImpl.bindPageByPatient(ps, i, patientId, null, limit);
+            ps.setInt(i++, patientId);
+            ps.setInt(i++, limit);
+            MedicalRecordDAOImpl.bindPageByPatient(ps, i, patientId, null, limit);
+
+            ps.execute();
+            try (ResultSet rs = nextResult(ps, true)) {
+                while (rs.next())
+                    appointments.add(appointmentDAO.mapPageRow(rs));
+            }
+            try (ResultSet rs = nextResult(ps, false)) {
+                while (rs.next())
+                    prescriptions.add(prescriptionDAO.mapRow(rs));
+            }
+            try (ResultSet rs = nextResult(ps, false)) {
+                while (rs.next()) {
+                    PrescriptionItem item = PrescriptionDAOImpl.mapItem(rs);
+                    items.computeIfAbsent(item.getPrescriptionId(), id -> new ArrayList<>()).add(item);
+                }
+            }
+            try (ResultSet rs = nextResult(ps, false)) {
+                while (rs.next())
+                    records.add(medicalRecordDAO.mapRow(rs));
+            }
+        }
+        for (Prescription p : prescriptions)
+            p.setItems(items.getOrDefault(p.getPrescriptionId(), Collections.emptyList()));
+        Page<PatientNote> notes = noteDAO.findPageByPatientId(patientId, null, limit);
+        return new PatientChart(patientId, Page.of(appointments, limit), Page.of(prescriptions, limit),
+                Page.of(records, limit), notes, LocalDateTime.now());
+    }
+
+    // The result set of the first, or the next, statement of CHART_SQL
+    private static ResultSet nextResult(PreparedStatement ps, boolean first) throws SQLException {
+        if (!first && !ps.getMoreResults())
+            throw new SQLException("Chart query returned fewer results than statements");
+        return ps.getResultSet();
+    }
+}
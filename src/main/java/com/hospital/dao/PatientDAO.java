@@ -5,10 +5,19 @@ import com.hospital.model.Patient;
 import java.util.List;
 
 public interface PatientDAO {
+    // importBatch results for rows that were skipped
+    int DUPLICATE_PHONE = -1;
+    int DUPLICATE_EMAIL = -2;
+
     int create(Patient patient) throws Exception;
+    int[] importBatch(List<Patient> patients) throws Exception;
     Patient findById(int id) throws Exception;
     List<Patient> findAll() throws Exception;
+    Page<Patient> findPage(int afterId, int limit) throws Exception;
+    List<Patient> findRange(int offset, int limit) throws Exception;
+    int count() throws Exception;
     boolean update(Patient patient) throws Exception;
     boolean delete(int id) throws Exception;
     List<Patient> searchByName(String name) throws Exception;
+    List<Patient> search(String query, int limit) throws Exception;
 }
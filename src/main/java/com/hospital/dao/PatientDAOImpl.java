@@ -1,14 +1,24 @@
 package com.hospital.dao;
 
 import com.hospital.model.Patient;
-import com.hospital.util.Cache;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
 import com.hospital.util.PerformanceMonitor;
+import com.hospital.util.PrefixSearchCache;
+import com.hospital.util.QueryCancellation;
+import com.hospital.util.SchemaMigrator;
+import org.postgresql.PGConnection;
 
+import java.io.StringReader;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * JDBC implementation of PatientDAO. Uses PreparedStatements and connection
@@ -16,8 +26,38 @@ import java.util.List;
  */
 public class PatientDAOImpl implements PatientDAO {
 
-    // Cache for search results (TTL: 15 minutes)
-    private static final Cache<String, List<Patient>> searchCache = new Cache<>(15);
+    // Rows fetched per search query; a result shorter than this is complete
+    private static final int SEARCH_LIMIT = 100;
+
+    // Staging for importBatch, dropped when the import's transaction ends
+    private static final String CREATE_STAGING = "CREATE TEMP TABLE patient_import (row_no INT PRIMARY KEY,"
+            + " first_name VARCHAR(50), last_name VARCHAR(50), date_of_birth DATE, gender VARCHAR(10), phone VARCHAR(20),"
+            + " email VARCHAR(100), address TEXT, blood_group VARCHAR(10), registration_date DATE, duplicate SMALLINT)"
+            + " ON COMMIT DROP";
+    private static final String COPY_STAGING = "COPY patient_import (row_no, first_name, last_name, date_of_birth, gender,"
+            + " phone, email, address, blood_group, registration_date) FROM STDIN WITH (FORMAT csv)";
+    // A row is a duplicate if its phone or email is registered or used by an earlier row
+    private static final String MARK_DUPLICATES = "UPDATE patient_import i SET duplicate = CASE"
+            + " WHEN r.phone_rank > 1 OR EXISTS (SELECT 1 FROM patient p WHERE p.phone = i.phone) THEN " + DUPLICATE_PHONE
+            + " WHEN i.email IS NOT NULL AND (r.email_rank > 1 OR EXISTS (SELECT 1 FROM patient p WHERE p.email = i.email)) THEN " + DUPLICATE_EMAIL
+            + " END FROM (SELECT row_no, row_number() OVER (PARTITION BY phone ORDER BY row_no) AS phone_rank,"
+            + " row_number() OVER (PARTITION BY email ORDER BY row_no) AS email_rank FROM patient_import) r"
+            + " WHERE r.row_no = i.row_no";
+    // ON CONFLICT covers a patient registered since MARK_DUPLICATES ran
+    private static final String INSERT_STAGED = "WITH inserted AS (INSERT INTO patient (first_name, last_name,"
+            + " date_of_birth, gender, phone, email, address, blood_group, registration_date)"
+            + " SELECT first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date"
+            + " FROM patient_import WHERE duplicate IS NULL ORDER BY row_no ON CONFLICT DO NOTHING RETURNING patient_id, phone)"
+            + " SELECT i.row_no, inserted.patient_id FROM inserted JOIN patient_import i"
+            + " ON i.phone = inserted.phone AND i.duplicate IS NULL";
+
+    // Search results by term (TTL: 10 minutes); longer terms are filtered from a cached
+    // prefix. Writes evict affected entries through the EntityChangeBus; the TTL bounds
+    // staleness from writes made outside this app and from a written patient that only
+    // matches a cached term fuzzily.
+    private static final PrefixSearchCache<Patient> searchCache = new PrefixSearchCache<>("patientSearch",
+            EntityType.PATIENT, SEARCH_LIMIT, Patient::getPatientId,
+            (patient, term) -> searchKeys(patient).stream().anyMatch(key -> key.contains(term)));
 
     @Override
     /**
@@ -29,7 +69,8 @@ public class PatientDAOImpl implements PatientDAO {
      */
     public int create(Patient patient) throws Exception {
         String sql = "INSERT INTO patient (first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date) VALUES (?,?,?,?,?,?,?,?,?) RETURNING patient_id";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.create");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setString(1, patient.getFirstName());
@@ -45,7 +86,8 @@ public class PatientDAOImpl implements PatientDAO {
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
                     int id = rs.getInt(1);
-                    System.out.println("Inserted patient id=" + id);
+                    EntityChangeBus.publish(new EntityChangeEvent(EntityType.PATIENT, ChangeType.CREATED, id,
+                            searchKeys(patient)));
                     return id;
                 }
             }
@@ -56,6 +98,84 @@ public class PatientDAOImpl implements PatientDAO {
         return -1;
     }
 
+    @Override
+    /**
+     * Imports patients in one transaction. The rows are streamed into a temporary staging
+     * table with COPY; rows whose phone or email is already registered, or repeats that of an
+     * earlier row, are marked there with indexed lookups, and the rest are inserted with one
+     * INSERT ... SELECT. Every patient must have a phone number, which maps inserted rows
+     * back to their position.
+     * 
+     * @param patients The patients to import, already validated.
+     * @return The generated IDs in the same order, with {@link #DUPLICATE_PHONE} or
+     *         {@link #DUPLICATE_EMAIL} for skipped rows, or 0 for a row that clashed with a
+     *         patient registered while the import ran.
+     * @throws Exception If a database error occurs; nothing is imported then.
+     */
+    public int[] importBatch(List<Patient> patients) throws Exception {
+        int[] ids = new int[patients.size()];
+        if (patients.isEmpty())
+            return ids;
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.importBatch");
+                Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(CREATE_STAGING);
+                conn.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING,
+                        new StringReader(toCopyCsv(patients)));
+                // A temporary table has no statistics until analyzed
+                stmt.execute("ANALYZE patient_import");
+                stmt.executeUpdate(MARK_DUPLICATES);
+                try (ResultSet rs = stmt.executeQuery(INSERT_STAGED)) {
+                    while (rs.next())
+                        ids[rs.getInt(1)] = rs.getInt(2);
+                }
+                try (ResultSet rs = stmt.executeQuery("SELECT row_no, duplicate FROM patient_import WHERE duplicate IS NOT NULL")) {
+                    while (rs.next())
+                        ids[rs.getInt(1)] = rs.getInt(2);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                System.err.println("Error importing patients: " + e.getMessage());
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        // One event for the chunk: a per-row event would re-scan the search cache for every row
+        List<Integer> imported = new ArrayList<>();
+        for (int id : ids) {
+            if (id > 0)
+                imported.add(id);
+        }
+        if (!imported.isEmpty())
+            EntityChangeBus.publish(EntityChangeEvent.bulk(EntityType.PATIENT, ChangeType.CREATED, imported));
+        return ids;
+    }
+
+    /**
+     * The patients as CSV rows for {@link #COPY_STAGING}, numbered from 0. Nulls are
+     * written as unquoted empty fields and everything else is quoted, as COPY's CSV format
+     * expects.
+     */
+    private static String toCopyCsv(List<Patient> patients) {
+        StringBuilder csv = new StringBuilder(patients.size() * 128);
+        for (int i = 0; i < patients.size(); i++) {
+            Patient p = patients.get(i);
+            csv.append(i);
+            for (Object value : new Object[] { p.getFirstName(), p.getLastName(), p.getDateOfBirth(), p.getGender(),
+                    p.getPhone(), p.getEmail(), p.getAddress(), p.getBloodGroup(), p.getRegistrationDate() }) {
+                csv.append(',');
+                if (value != null)
+                    csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
     @Override
     /**
      * Finds a patient by their unique ID.
@@ -66,7 +186,8 @@ public class PatientDAOImpl implements PatientDAO {
      */
     public Patient findById(int id) throws Exception {
         String sql = "SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date FROM patient WHERE patient_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.findById");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -88,7 +209,8 @@ public class PatientDAOImpl implements PatientDAO {
     public List<Patient> findAll() throws Exception {
         String sql = "SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date FROM patient";
         List<Patient> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.findAll");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql);
                 ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -108,7 +230,8 @@ public class PatientDAOImpl implements PatientDAO {
      */
     public boolean update(Patient patient) throws Exception {
         String sql = "UPDATE patient SET first_name=?, last_name=?, date_of_birth=?, gender=?, phone=?, email=?, address=?, blood_group=?, registration_date=? WHERE patient_id=?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.update");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, patient.getFirstName());
             ps.setString(2, patient.getLastName());
@@ -122,6 +245,10 @@ public class PatientDAOImpl implements PatientDAO {
             ps.setInt(10, patient.getPatientId());
 
             int updated = ps.executeUpdate();
+            if (updated > 0) {
+                EntityChangeBus.publish(new EntityChangeEvent(EntityType.PATIENT, ChangeType.UPDATED,
+                        patient.getPatientId(), searchKeys(patient)));
+            }
             return updated > 0;
         }
     }
@@ -136,10 +263,14 @@ public class PatientDAOImpl implements PatientDAO {
      */
     public boolean delete(int id) throws Exception {
         String sql = "DELETE FROM patient WHERE patient_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.delete");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             int affected = ps.executeUpdate();
+            if (affected > 0) {
+                EntityChangeBus.publish(EntityType.PATIENT, ChangeType.DELETED, id);
+            }
             return affected > 0;
         }
     }
@@ -158,43 +289,168 @@ public class PatientDAOImpl implements PatientDAO {
             return new ArrayList<>();
         }
 
-        String cacheKey = "search_" + name.toLowerCase().trim();
+        // Check cache first; a cached prefix of the term is filtered instead of querying
+        long lookupStart = System.nanoTime();
+        boolean[] queried = { false };
+        List<Patient> list = searchCache.search(name, (term, limit) -> {
+            queried[0] = true;
+            try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.searchByName (database)")) {
+                return querySearch(term, limit);
+            }
+        });
+        if (!queried[0]) {
+            PerformanceMonitor.recordQueryTimeNanos("PatientDAO.searchByName (cached)",
+                    System.nanoTime() - lookupStart, true);
+        }
+        return list;
+    }
 
-        // Check cache first
-        List<Patient> cachedResult = searchCache.get(cacheKey);
-        if (cachedResult != null) {
-            PerformanceMonitor.recordQueryTime("PatientDAO.searchByName (cached)", 0, true);
-            return new ArrayList<>(cachedResult); // Return copy to prevent external modification
+    @Override
+    /**
+     * Searches patients by name, phone or email, best matches first. Terms contained in a
+     * name, phone or email rank above fuzzy (trigram similarity) name matches, which catch
+     * misspellings. Backed by the pg_trgm GIN indexes; without pg_trgm only contained
+     * terms match.
+     * 
+     * @param query The search term.
+     * @param limit The maximum number of patients to return.
+     * @return The matching patients, best first.
+     * @throws Exception If a database error occurs.
+     */
+    public List<Patient> search(String query, int limit) throws Exception {
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.search")) {
+            return querySearch(query, limit);
         }
+    }
 
-        // Cache miss - execute database query
-        long startTime = System.currentTimeMillis();
-        String sql = "SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date FROM patient WHERE LOWER(first_name) LIKE ? OR LOWER(last_name) LIKE ?";
+    private List<Patient> querySearch(String query, int limit) throws SQLException {
+        String term = SearchSql.normalize(query);
+        String like = SearchSql.contains(term);
+        boolean trigram = SchemaMigrator.isTrigramSearchAvailable();
+        String name = SearchSql.FULL_NAME;
+        String sql = trigram
+                ? "SELECT * FROM (SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date,"
+                        + " (" + name + " LIKE ? OR phone LIKE ? OR lower(email) LIKE ?) AS contained,"
+                        + " GREATEST(similarity(" + name + ", ?), similarity(coalesce(phone, ''), ?), similarity(lower(coalesce(email, '')), ?)) AS score"
+                        + " FROM patient WHERE " + name + " LIKE ? OR " + name + " % ? OR phone LIKE ? OR lower(email) LIKE ?) ranked"
+                        + " ORDER BY contained DESC, score DESC, patient_id LIMIT ?"
+                : "SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date FROM patient"
+                        + " WHERE " + name + " LIKE ? OR phone LIKE ? OR lower(email) LIKE ?"
+                        + " ORDER BY last_name, first_name, patient_id LIMIT ?";
         List<Patient> list = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql);
+                QueryCancellation.Registration cancellable = QueryCancellation.track(ps)) {
+            int i = 1;
+            ps.setString(i++, like);
+            ps.setString(i++, like);
+            ps.setString(i++, like);
+            if (trigram) {
+                ps.setString(i++, term);
+                ps.setString(i++, term);
+                ps.setString(i++, term);
+                ps.setString(i++, like);
+                ps.setString(i++, term);
+                ps.setString(i++, like);
+                ps.setString(i++, like);
+            }
+            ps.setInt(i, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    /**
+     * Retrieves one page of patients in id order, starting after the given id.
+     * 
+     * @param afterId The last patient ID of the previous page, or 0 for the first page.
+     * @param limit   The maximum number of patients to return.
+     * @return The page of patients.
+     * @throws Exception If a database error occurs.
+     */
+    public Page<Patient> findPage(int afterId, int limit) throws Exception {
+        String sql = "SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date FROM patient WHERE patient_id > ? ORDER BY patient_id LIMIT ?";
+        List<Patient> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.findPage");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
-            String q = "%" + name.toLowerCase() + "%";
-            ps.setString(1, q);
-            ps.setString(2, q);
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit + 1);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     list.add(mapRow(rs));
                 }
             }
         }
-        long endTime = System.currentTimeMillis();
-        long executionTime = endTime - startTime;
+        return Page.of(list, limit);
+    }
 
-        // Record performance (before optimization - no caching)
-        PerformanceMonitor.recordQueryTime("PatientDAO.searchByName (database)", executionTime, false);
+    @Override
+    /**
+     * Retrieves patients in id order by position, for jumping to an arbitrary row.
+     * Prefer findPage when the previous row is known, as OFFSET scans the skipped rows.
+     * 
+     * @param offset The number of patients to skip.
+     * @param limit  The maximum number of patients to return.
+     * @return The patients in the range.
+     * @throws Exception If a database error occurs.
+     */
+    public List<Patient> findRange(int offset, int limit) throws Exception {
+        String sql = "SELECT patient_id, first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date FROM patient ORDER BY patient_id LIMIT ? OFFSET ?";
+        List<Patient> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.findRange");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, limit);
+            ps.setInt(2, offset);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                }
+            }
+        }
+        return list;
+    }
 
-        // Cache the result
-        searchCache.put(cacheKey, new ArrayList<>(list));
+    @Override
+    /**
+     * Counts all patients.
+     * 
+     * @return The number of patients.
+     * @throws Exception If a database error occurs.
+     */
+    public int count() throws Exception {
+        String sql = "SELECT COUNT(*) FROM patient";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.count");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql);
+                ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
 
-        return list;
+    /**
+     * Values a patient can be found by through searchByName, lower-cased like search terms.
+     */
+    private static Set<String> searchKeys(Patient patient) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add((patient.getFirstName() + " " + patient.getLastName()).toLowerCase());
+        if (patient.getPhone() != null)
+            keys.add(patient.getPhone());
+        if (patient.getEmail() != null)
+            keys.add(patient.getEmail().toLowerCase());
+        return keys;
     }
 
-    private Patient mapRow(ResultSet rs) throws SQLException {
+    Patient mapRow(ResultSet rs) throws SQLException {
         Patient p = new Patient();
         p.setPatientId(rs.getInt("patient_id"));
         p.setFirstName(rs.getString("first_name"));
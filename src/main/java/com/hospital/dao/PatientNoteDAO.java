@@ -2,30 +2,57 @@ package com.hospital.dao;
 
 import com.hospital.model.PatientNote;
 import com.hospital.util.MongoConnection;
+import com.hospital.util.PerformanceMonitor;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static com.mongodb.client.model.Filters.and;
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.lt;
 
 public class PatientNoteDAO {
     private static final String COLLECTION_NAME = "notes";
 
+    // Set once the patient index is known to exist; createIndex is a no-op when it does
+    private static volatile boolean indexed;
+
     private MongoCollection<Document> getCollection() {
         MongoDatabase db = MongoConnection.getDatabase();
         if (db == null)
             return null;
-        return db.getCollection(COLLECTION_NAME);
+        MongoCollection<Document> col = db.getCollection(COLLECTION_NAME);
+        if (!indexed)
+            ensureIndex(col);
+        return col;
+    }
+
+    /**
+     * Creates the {patient_id: 1, _id: -1} index that a patient's notes, newest first, are
+     * read from. A failure is retried on the next access.
+     */
+    private static void ensureIndex(MongoCollection<Document> col) {
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientNoteDAO.ensureIndex")) {
+            col.createIndex(Indexes.compoundIndex(Indexes.ascending("patient_id"), Indexes.descending("_id")));
+            indexed = true;
+        } catch (RuntimeException e) {
+            System.err.println("Could not create the notes index: " + e.getMessage());
+        }
     }
 
     public void save(PatientNote note) {
         MongoCollection<Document> col = getCollection();
         if (col == null)
             return; // Fail safe
-        col.insertOne(note.toDocument());
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientNoteDAO.save")) {
+            col.insertOne(note.toDocument());
+        }
     }
 
     public List<PatientNote> findByPatientId(int patientId) {
@@ -34,9 +61,31 @@ public class PatientNoteDAO {
         if (col == null)
             return list;
 
-        for (Document doc : col.find(eq("patient_id", patientId))) {
-            list.add(PatientNote.fromDocument(doc));
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientNoteDAO.findByPatientId")) {
+            for (Document doc : col.find(eq("patient_id", patientId))) {
+                list.add(PatientNote.fromDocument(doc));
+            }
         }
         return list;
     }
+
+    /**
+     * One page of a patient's notes, newest first. ObjectIds grow with insertion time, so
+     * seeking on _id keeps every page a range scan of the {patient_id: 1, _id: -1} index.
+     */
+    public Page<PatientNote> findPageByPatientId(int patientId, PatientNote after, int limit) {
+        MongoCollection<Document> col = getCollection();
+        if (col == null)
+            return new Page<>(new ArrayList<>(), false);
+
+        Bson filter = after == null ? eq("patient_id", patientId)
+                : and(eq("patient_id", patientId), lt("_id", after.getId()));
+        List<PatientNote> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientNoteDAO.findPageByPatientId")) {
+            for (Document doc : col.find(filter).sort(Sorts.descending("_id")).limit(limit + 1)) {
+                list.add(PatientNote.fromDocument(doc));
+            }
+        }
+        return Page.of(list, limit);
+    }
 }
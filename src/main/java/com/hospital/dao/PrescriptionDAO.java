@@ -3,14 +3,19 @@ package com.hospital.dao;
 import com.hospital.model.Appointment;
 import com.hospital.model.Patient;
 import com.hospital.model.Prescription;
+import com.hospital.model.PrescriptionItem;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface PrescriptionDAO {
     int create(int patientId, int doctorId, Integer appointmentId) throws Exception;
     Prescription findById(int id) throws Exception;
     List<Prescription> findByPatient(int patientId) throws Exception;
+    Page<Prescription> findPageByPatient(int patientId, Prescription after, int limit) throws Exception;
     Prescription findByAppointment(int appointmentId) throws Exception;
+    Map<Integer, List<PrescriptionItem>> findItemsByPrescriptionIds(Collection<Integer> prescriptionIds) throws Exception;
     boolean update(Prescription prescription) throws Exception;
     boolean delete(int id) throws Exception;
 }
@@ -1,17 +1,32 @@
 package com.hospital.dao;
 
 import com.hospital.model.Prescription;
+import com.hospital.model.PrescriptionItem;
 import com.hospital.util.DatabaseConnection;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.PerformanceMonitor;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * JDBC implementation for PrescriptionDAO
  */
 public class PrescriptionDAOImpl implements PrescriptionDAO {
+    // Prescription items with each item's inventory name, for mapItem
+    static final String ITEMS_SELECT = "SELECT pi.prescription_item_id, pi.prescription_id, pi.inventory_id, mi.item_name,"
+            + " pi.dosage, pi.duration, pi.quantity"
+            + " FROM prescription_item pi JOIN medical_inventory mi ON mi.inventory_id = pi.inventory_id";
 
     @Override
     /**
@@ -25,7 +40,8 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
      */
     public int create(int patientId, int doctorId, Integer appointmentId) throws Exception {
         String sql = "INSERT INTO prescription (patient_id, doctor_id, appointment_id) VALUES (?,?,?) RETURNING prescription_id";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.create");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, patientId);
             ps.setInt(2, doctorId);
@@ -34,8 +50,11 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
             else
                 ps.setInt(3, appointmentId);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next())
-                    return rs.getInt(1);
+                if (rs.next()) {
+                    int id = rs.getInt(1);
+                    publish(ChangeType.CREATED, id, patientId);
+                    return id;
+                }
             }
         }
         return -1;
@@ -51,7 +70,8 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
      */
     public Prescription findById(int id) throws Exception {
         String sql = "SELECT prescription_id, prescription_date, patient_id, doctor_id, appointment_id FROM prescription WHERE prescription_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.findById");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
@@ -75,7 +95,8 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
     public List<Prescription> findByPatient(int patientId) throws Exception {
         String sql = "SELECT prescription_id, prescription_date, patient_id, doctor_id, appointment_id FROM prescription WHERE patient_id = ?";
         List<Prescription> list = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.findByPatient");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, patientId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -96,7 +117,8 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
      */
     public Prescription findByAppointment(int appointmentId) throws Exception {
         String sql = "SELECT prescription_id, prescription_date, patient_id, doctor_id, appointment_id FROM prescription WHERE appointment_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.findByAppointment");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, appointmentId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -116,8 +138,12 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
      * @throws Exception If a database error occurs.
      */
     public boolean update(Prescription prescription) throws Exception {
-        String sql = "UPDATE prescription SET patient_id = ?, doctor_id = ?, appointment_id = ? WHERE prescription_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        // Returns the previous patient too, so the chart the prescription moved off is announced
+        String sql = "UPDATE prescription p SET patient_id = ?, doctor_id = ?, appointment_id = ?"
+                + " FROM (SELECT patient_id FROM prescription WHERE prescription_id = ? FOR UPDATE) old"
+                + " WHERE p.prescription_id = ? RETURNING old.patient_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.update");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, prescription.getPatientId());
             ps.setInt(2, prescription.getDoctorId());
@@ -126,8 +152,13 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
             else
                 ps.setInt(3, prescription.getAppointmentId());
             ps.setInt(4, prescription.getPrescriptionId());
-            int updated = ps.executeUpdate();
-            return updated > 0;
+            ps.setInt(5, prescription.getPrescriptionId());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                publish(ChangeType.UPDATED, prescription.getPrescriptionId(), rs.getInt(1), prescription.getPatientId());
+                return true;
+            }
         }
     }
 
@@ -140,16 +171,123 @@ public class PrescriptionDAOImpl implements PrescriptionDAO {
      * @throws Exception If a database error occurs.
      */
     public boolean delete(int id) throws Exception {
-        String sql = "DELETE FROM prescription WHERE prescription_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "DELETE FROM prescription WHERE prescription_id = ? RETURNING patient_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.delete");
+                Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
-            int deleted = ps.executeUpdate();
-            return deleted > 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                publish(ChangeType.DELETED, id, rs.getInt(1));
+                return true;
+            }
+        }
+    }
+
+    @Override
+    /**
+     * Retrieves one page of a patient's prescriptions, newest first.
+     * 
+     * @param patientId The ID of the patient.
+     * @param after     The last prescription of the previous page, or null for the first page.
+     * @param limit     The maximum number of prescriptions to return.
+     * @return The page of prescriptions.
+     * @throws Exception If a database error occurs.
+     */
+    public Page<Prescription> findPageByPatient(int patientId, Prescription after, int limit) throws Exception {
+        List<Prescription> list = new ArrayList<>();
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.findPageByPatient");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(pageByPatientSql(after != null))) {
+            bindPageByPatient(ps, 1, patientId, after, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next())
+                    list.add(mapRow(rs));
+            }
+        }
+        return Page.of(list, limit);
+    }
+
+    @Override
+    /**
+     * Retrieves the items of several prescriptions in one query, with each item's
+     * inventory name.
+     * 
+     * @param prescriptionIds The prescriptions to load items for.
+     * @return The items keyed by prescription ID; prescriptions without items are absent.
+     * @throws Exception If a database error occurs.
+     */
+    public Map<Integer, List<PrescriptionItem>> findItemsByPrescriptionIds(Collection<Integer> prescriptionIds)
+            throws Exception {
+        Map<Integer, List<PrescriptionItem>> items = new HashMap<>();
+        if (prescriptionIds.isEmpty()) {
+            return items;
+        }
+        // One array parameter instead of an IN list keeps a single cached statement
+        String sql = ITEMS_SELECT + " WHERE pi.prescription_id = ANY (?) ORDER BY pi.prescription_id, pi.prescription_item_id";
+        try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PrescriptionDAO.findItemsByPrescriptionIds");
+                Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setArray(1, conn.createArrayOf("integer", prescriptionIds.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    PrescriptionItem item = mapItem(rs);
+                    items.computeIfAbsent(item.getPrescriptionId(), id -> new ArrayList<>()).add(item);
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * The page query of findPageByPatient; PatientChartDAOImpl batches it with others.
+     */
+    static String pageByPatientSql(boolean seek) {
+        return "SELECT prescription_id, prescription_date, patient_id, doctor_id, appointment_id FROM prescription WHERE patient_id = ?"
+                + (seek ? " AND (prescription_date, prescription_id) < (?, ?)" : "")
+                + " ORDER BY prescription_date DESC, prescription_id DESC LIMIT ?";
+    }
+
+    /**
+     * Binds the parameters of pageByPatientSql from the given index and returns the next one.
+     */
+    static int bindPageByPatient(PreparedStatement ps, int i, int patientId, Prescription after, int limit)
+            throws SQLException {
+        ps.setInt(i++, patientId);
+        if (after != null) {
+            ps.setDate(i++, Date.valueOf(after.getPrescriptionDate()));
+            ps.setInt(i++, after.getPrescriptionId());
+        }
+        ps.setInt(i++, limit + 1);
+        return i;
+    }
+
+    static PrescriptionItem mapItem(ResultSet rs) throws SQLException {
+        PrescriptionItem item = new PrescriptionItem();
+        item.setPrescriptionItemId(rs.getInt("prescription_item_id"));
+        item.setPrescriptionId(rs.getInt("prescription_id"));
+        item.setInventoryId(rs.getInt("inventory_id"));
+        item.setItemName(rs.getString("item_name"));
+        item.setDosage(rs.getString("dosage"));
+        item.setDuration(rs.getString("duration"));
+        item.setQuantity(rs.getInt("quantity"));
+        return item;
+    }
+
+    /**
+     * Publishes a prescription change with the patients it touched as search keys, so
+     * per-patient caches can drop just those entries.
+     */
+    private static void publish(ChangeType change, int id, int... patientIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int patientId : patientIds) {
+            keys.add(EntityChangeEvent.patientKey(patientId));
         }
+        EntityChangeBus.publish(new EntityChangeEvent(EntityType.PRESCRIPTION, change, id, keys));
     }
 
-    private Prescription mapRow(ResultSet rs) throws SQLException {
+    Prescription mapRow(ResultSet rs) throws SQLException {
         Prescription p = new Prescription();
         p.setPrescriptionId(rs.getInt("prescription_id"));
         Date d = rs.getDate("prescription_date");
@@ -0,0 +1,27 @@
+package com.hospital.dao;
+
+/**
+ * SQL fragments shared by the patient and doctor search queries. The name expression must
+ * match the trigram index definitions in schema.sql / SchemaMigrator exactly, otherwise
+ * PostgreSQL cannot use those indexes.
+ */
+final class SearchSql {
+    static final String FULL_NAME = "lower(first_name || ' ' || last_name)";
+
+    private SearchSql() {
+    }
+
+    /**
+     * Normalizes a search term the way the indexed expressions are normalized.
+     */
+    static String normalize(String query) {
+        return query.trim().toLowerCase();
+    }
+
+    /**
+     * A LIKE pattern matching the term anywhere, with LIKE wildcards in the term escaped.
+     */
+    static String contains(String term) {
+        return "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,67 @@
+package com.hospital.dao;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * SQL that expands recurring appointment series into their occurrences for a date window,
+ * so listings and clash checks see series occurrences next to materialized appointments
+ * without the occurrences ever being stored. Only the occurrences inside the window are
+ * generated: the index range of each series is computed from the window's bounds.
+ *
+ * The date arithmetic must match {@link com.hospital.model.AppointmentSeries#occurrencesBetween}.
+ */
+final class SeriesSql {
+    // Stand-ins for an open end of a listing's date range
+    static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    // Days between occurrences; for monthly series, the shortest and longest month bound it
+    private static final String STEP_MIN_DAYS = "s.interval_count * CASE s.frequency WHEN 'DAILY' THEN 1 WHEN 'WEEKLY' THEN 7 ELSE 28 END";
+    private static final String STEP_MAX_DAYS = "s.interval_count * CASE s.frequency WHEN 'DAILY' THEN 1 WHEN 'WEEKLY' THEN 7 ELSE 31 END";
+
+    /**
+     * The occurrences of every series in the window that no exception replaces, shaped like
+     * appointment rows plus series_id, with a null appointment_id. Takes the window's first
+     * and last day as its two parameters, see {@link #bindWindow}.
+     */
+    static final String OCCURRENCES = "SELECT NULL::int AS appointment_id, o.appointment_date, s.appointment_time,"
+            + " 'Scheduled'::varchar AS status, s.patient_id, s.doctor_id, s.series_id"
+            + " FROM (SELECT ?::date AS first_day, ?::date AS last_day) w"
+            + " JOIN appointment_series s ON s.start_date <= w.last_day AND (s.end_date IS NULL OR s.end_date >= w.first_day)"
+            + " CROSS JOIN LATERAL generate_series("
+            + "GREATEST(0, (w.first_day - s.start_date) / (" + STEP_MAX_DAYS + ")),"
+            + " LEAST(COALESCE(s.occurrence_count, 2147483647) - 1,"
+            + " (LEAST(w.last_day, COALESCE(s.end_date, w.last_day)) - s.start_date) / (" + STEP_MIN_DAYS + "))) AS n"
+            + " CROSS JOIN LATERAL (SELECT CASE s.frequency"
+            + " WHEN 'MONTHLY' THEN (s.start_date + make_interval(months => n * s.interval_count))::date"
+            + " WHEN 'WEEKLY' THEN s.start_date + n * s.interval_count * 7"
+            + " ELSE s.start_date + n * s.interval_count END AS appointment_date) o"
+            + " WHERE o.appointment_date BETWEEN w.first_day AND w.last_day"
+            + " AND (s.end_date IS NULL OR o.appointment_date <= s.end_date)"
+            + " AND NOT EXISTS (SELECT 1 FROM appointment_series_exception x"
+            + " WHERE x.series_id = s.series_id AND x.occurrence_date = o.appointment_date)";
+
+    /**
+     * Materialized appointments and series occurrences together, for use as a FROM item.
+     * Filters on the outer query are pushed into both branches, so the appointment indexes
+     * still apply. Takes the same two parameters as {@link #OCCURRENCES}.
+     */
+    static final String APPOINTMENTS_WITH_OCCURRENCES = "(SELECT appointment_id, appointment_date, appointment_time, status,"
+            + " patient_id, doctor_id, NULL::int AS series_id FROM appointment UNION ALL " + OCCURRENCES + ")";
+
+    private SeriesSql() {
+    }
+
+    /**
+     * Binds the window of {@link #OCCURRENCES}, with null meaning unbounded, and returns the
+     * next parameter index.
+     */
+    static int bindWindow(PreparedStatement ps, int index, LocalDate from, LocalDate to) throws SQLException {
+        ps.setDate(index++, Date.valueOf(from == null ? MIN_DATE : from));
+        ps.setDate(index++, Date.valueOf(to == null ? MAX_DATE : to));
+        return index;
+    }
+}
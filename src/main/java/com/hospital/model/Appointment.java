@@ -14,6 +14,9 @@ public class Appointment {
     private LocalTime appointmentTime;
     private String status;
     private String reason;
+    // Set on an occurrence of a recurring series that has not been materialized; such an
+    // appointment has no id of its own
+    private Integer seriesId;
 
     public Appointment() {
     }
@@ -85,6 +88,21 @@ public class Appointment {
         this.reason = reason;
     }
 
+    public Integer getSeriesId() {
+        return seriesId;
+    }
+
+    public void setSeriesId(Integer seriesId) {
+        this.seriesId = seriesId;
+    }
+
+    /**
+     * Whether this is an occurrence of a series rather than a row of the appointment table.
+     */
+    public boolean isOccurrence() {
+        return seriesId != null;
+    }
+
     @Override
     public String toString() {
         return "Appointment{" +
@@ -95,6 +113,7 @@ public class Appointment {
                 ", appointmentTime=" + appointmentTime +
                 ", status='" + status + '\'' +
                 ", reason='" + reason + '\'' +
+                (seriesId != null ? ", seriesId=" + seriesId : "") +
                 '}';
     }
 }
@@ -0,0 +1,77 @@
+package com.hospital.model;
+
+/**
+ * Appointment display row: the appointment plus the patient's and doctor's names, read in
+ * one JOIN so list screens need not load patients and doctors separately.
+ */
+public class AppointmentListing extends Appointment {
+    private String patientFirstName;
+    private String patientLastName;
+    private String doctorFirstName;
+    private String doctorLastName;
+    private String doctorSpecialization;
+
+    public AppointmentListing() {
+    }
+
+    public String getPatientFirstName() {
+        return patientFirstName;
+    }
+
+    public void setPatientFirstName(String patientFirstName) {
+        this.patientFirstName = patientFirstName;
+    }
+
+    public String getPatientLastName() {
+        return patientLastName;
+    }
+
+    public void setPatientLastName(String patientLastName) {
+        this.patientLastName = patientLastName;
+    }
+
+    public String getDoctorFirstName() {
+        return doctorFirstName;
+    }
+
+    public void setDoctorFirstName(String doctorFirstName) {
+        this.doctorFirstName = doctorFirstName;
+    }
+
+    public String getDoctorLastName() {
+        return doctorLastName;
+    }
+
+    public void setDoctorLastName(String doctorLastName) {
+        this.doctorLastName = doctorLastName;
+    }
+
+    public String getDoctorSpecialization() {
+        return doctorSpecialization;
+    }
+
+    public void setDoctorSpecialization(String doctorSpecialization) {
+        this.doctorSpecialization = doctorSpecialization;
+    }
+
+    public String getPatientName() {
+        return patientFirstName + " " + patientLastName;
+    }
+
+    public String getDoctorName() {
+        return doctorFirstName + " " + doctorLastName;
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentListing{" +
+                "appointmentId=" + getAppointmentId() +
+                ", appointmentDate=" + getAppointmentDate() +
+                ", appointmentTime=" + getAppointmentTime() +
+                ", status='" + getStatus() + '\'' +
+                ", patient='" + getPatientName() + '\'' +
+                ", doctor='" + getDoctorName() + '\'' +
+                ", specialization='" + doctorSpecialization + '\'' +
+                '}';
+    }
+}
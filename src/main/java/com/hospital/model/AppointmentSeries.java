@@ -0,0 +1,182 @@
+package com.hospital.model;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recurring appointment: one patient with one doctor at the same time every day, week or
+ * month, until an end date or for a number of occurrences. Only the rule is stored.
+ * Occurrences are expanded for the dates being looked at, and an occurrence is only
+ * written to the appointment table when it stops following the rule (moved, completed or
+ * cancelled).
+ */
+public class AppointmentSeries {
+
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY
+    }
+
+    private Integer seriesId;
+    private Integer patientId;
+    private Integer doctorId;
+    private LocalDate startDate;
+    private LocalTime appointmentTime;
+    private Frequency frequency;
+    // Every interval days, weeks or months
+    private int interval = 1;
+    private LocalDate endDate;
+    private Integer occurrenceCount;
+
+    public AppointmentSeries() {
+    }
+
+    public Integer getSeriesId() {
+        return seriesId;
+    }
+
+    public void setSeriesId(Integer seriesId) {
+        this.seriesId = seriesId;
+    }
+
+    public Integer getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(Integer patientId) {
+        this.patientId = patientId;
+    }
+
+    public Integer getDoctorId() {
+        return doctorId;
+    }
+
+    public void setDoctorId(Integer doctorId) {
+        this.doctorId = doctorId;
+    }
+
+    /**
+     * The date of the first occurrence.
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalTime getAppointmentTime() {
+        return appointmentTime;
+    }
+
+    public void setAppointmentTime(LocalTime appointmentTime) {
+        this.appointmentTime = appointmentTime;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(Frequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void setInterval(int interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * The last day an occurrence may fall on, or null if the series ends after a count.
+     */
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    /**
+     * The number of occurrences, or null if the series ends on a date.
+     */
+    public Integer getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public void setOccurrenceCount(Integer occurrenceCount) {
+        this.occurrenceCount = occurrenceCount;
+    }
+
+    /**
+     * The date of the occurrence with the given zero-based index. Monthly occurrences keep
+     * the start's day of month where the month has it and fall on its last day otherwise.
+     */
+    public LocalDate occurrence(long index) {
+        switch (frequency) {
+            case MONTHLY:
+                return startDate.plusMonths(index * interval);
+            case WEEKLY:
+                return startDate.plusWeeks(index * interval);
+            default:
+                return startDate.plusDays(index * interval);
+        }
+    }
+
+    /**
+     * The occurrence dates between from and to, inclusive, by rule (exceptions are not
+     * applied). Starts at the first index that can reach the window, so the cost depends on
+     * the window, not on how long the series has been running.
+     */
+    public List<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate last = endDate != null && endDate.isBefore(to) ? endDate : to;
+        long count = occurrenceCount != null ? occurrenceCount : Long.MAX_VALUE;
+        long first = 0;
+        if (from.isAfter(startDate)) {
+            long steps = frequency == Frequency.MONTHLY ? ChronoUnit.MONTHS.between(startDate, from)
+                    : ChronoUnit.DAYS.between(startDate, from) / (frequency == Frequency.WEEKLY ? 7 : 1);
+            // Monthly occurrences can fall short of the start's day, so back off one step
+            first = Math.max(0, steps / interval - 1);
+        }
+        for (long i = first; i < count; i++) {
+            LocalDate date = occurrence(i);
+            if (date.isAfter(last)) {
+                break;
+            }
+            if (!date.isBefore(from)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Every occurrence date by rule. The series must end, by date or by count.
+     */
+    public List<LocalDate> allOccurrences() {
+        LocalDate last = endDate != null ? endDate : occurrence(occurrenceCount - 1);
+        return occurrencesBetween(startDate, last);
+    }
+
+    @Override
+    public String toString() {
+        return "AppointmentSeries{" +
+                "seriesId=" + seriesId +
+                ", patientId=" + patientId +
+                ", doctorId=" + doctorId +
+                ", startDate=" + startDate +
+                ", appointmentTime=" + appointmentTime +
+                ", frequency=" + frequency +
+                ", interval=" + interval +
+                ", endDate=" + endDate +
+                ", occurrenceCount=" + occurrenceCount +
+                '}';
+    }
+}
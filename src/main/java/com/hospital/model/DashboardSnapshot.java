@@ -0,0 +1,47 @@
+package com.hospital.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Dashboard counters taken together at one point in time. Immutable, so the last snapshot
+ * can be handed to any view that opens without querying again.
+ */
+public class DashboardSnapshot {
+    private final int totalPatients;
+    private final int totalDoctors;
+    private final int appointmentsToday;
+    private final LocalDateTime takenAt;
+
+    public DashboardSnapshot(int totalPatients, int totalDoctors, int appointmentsToday, LocalDateTime takenAt) {
+        this.totalPatients = totalPatients;
+        this.totalDoctors = totalDoctors;
+        this.appointmentsToday = appointmentsToday;
+        this.takenAt = takenAt;
+    }
+
+    public int getTotalPatients() {
+        return totalPatients;
+    }
+
+    public int getTotalDoctors() {
+        return totalDoctors;
+    }
+
+    public int getAppointmentsToday() {
+        return appointmentsToday;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    @Override
+    public String toString() {
+        return "DashboardSnapshot{" +
+                "totalPatients=" + totalPatients +
+                ", totalDoctors=" + totalDoctors +
+                ", appointmentsToday=" + appointmentsToday +
+                ", takenAt=" + takenAt +
+                '}';
+    }
+}
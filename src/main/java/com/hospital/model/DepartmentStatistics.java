@@ -0,0 +1,46 @@
+package com.hospital.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Doctor counts per department, taken in one aggregate query. Immutable, so one instance
+ * can be shared by the department table and its summary until the next doctor change.
+ */
+public class DepartmentStatistics {
+    private final Map<Integer, Integer> staffCounts;
+    private final int totalStaff;
+
+    public DepartmentStatistics(Map<Integer, Integer> staffCounts) {
+        this.staffCounts = Collections.unmodifiableMap(new HashMap<>(staffCounts));
+        int total = 0;
+        for (int count : staffCounts.values()) {
+            total += count;
+        }
+        this.totalStaff = total;
+    }
+
+    /**
+     * Number of doctors in the department; 0 for departments without any.
+     */
+    public int getStaffCount(int departmentId) {
+        return staffCounts.getOrDefault(departmentId, 0);
+    }
+
+    public int getTotalStaff() {
+        return totalStaff;
+    }
+
+    public Map<Integer, Integer> getStaffCounts() {
+        return staffCounts;
+    }
+
+    @Override
+    public String toString() {
+        return "DepartmentStatistics{" +
+                "departments=" + staffCounts.size() +
+                ", totalStaff=" + totalStaff +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+package com.hospital.model;
+
+import com.hospital.dao.Page;
+
+import java.time.LocalDateTime;
+
+/**
+ * The first page of everything the medical-records view shows for one patient:
+ * appointments, prescriptions with their items, medical records and notes, loaded
+ * together. Immutable, so a cached chart can be shown again without querying; further
+ * pages are fetched from the last item of each.
+ */
+public class PatientChart {
+    private final int patientId;
+    private final Page<Appointment> appointments;
+    private final Page<Prescription> prescriptions;
+    private final Page<MedicalRecord> medicalRecords;
+    private final Page<PatientNote> notes;
+    private final LocalDateTime loadedAt;
+
+    public PatientChart(int patientId, Page<Appointment> appointments, Page<Prescription> prescriptions,
+                        Page<MedicalRecord> medicalRecords, Page<PatientNote> notes, LocalDateTime loadedAt) {
+        this.patientId = patientId;
+        this.appointments = appointments;
+        this.prescriptions = prescriptions;
+        this.medicalRecords = medicalRecords;
+        this.notes = notes;
+        this.loadedAt = loadedAt;
+    }
+
+    public int getPatientId() {
+        return patientId;
+    }
+
+    public Page<Appointment> getAppointments() {
+        return appointments;
+    }
+
+    /**
+     * Prescriptions with their items loaded.
+     */
+    public Page<Prescription> getPrescriptions() {
+        return prescriptions;
+    }
+
+    public Page<MedicalRecord> getMedicalRecords() {
+        return medicalRecords;
+    }
+
+    public Page<PatientNote> getNotes() {
+        return notes;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PatientChart{" +
+                "patientId=" + patientId +
+                ", appointments=" + appointments.getItems().size() +
+                ", prescriptions=" + prescriptions.getItems().size() +
+                ", medicalRecords=" + medicalRecords.getItems().size() +
+                ", notes=" + notes.getItems().size() +
+                ", loadedAt=" + loadedAt +
+                '}';
+    }
+}
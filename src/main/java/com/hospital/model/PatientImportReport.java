@@ -0,0 +1,125 @@
+package com.hospital.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a patient import: how many rows were read, imported and rejected, and why
+ * rows were rejected. Only the first {@code maxErrors} rejections are kept, so a large file
+ * full of bad rows cannot exhaust memory; the counts cover every row.
+ */
+public class PatientImportReport {
+
+    /**
+     * A rejected row: its number in the file (the header is row 1) and the reason.
+     */
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Row " + row + ": " + message;
+        }
+    }
+
+    private final int maxErrors;
+    private final List<RowError> errors = new ArrayList<>();
+    private long read;
+    private long imported;
+    private long invalid;
+    private long duplicates;
+    private long elapsedMillis;
+
+    public PatientImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public void recordRead(int rows) {
+        read += rows;
+    }
+
+    public void recordImported(int rows) {
+        imported += rows;
+    }
+
+    public void recordInvalid(long row, String message) {
+        invalid++;
+        addError(row, message);
+    }
+
+    public void recordDuplicate(long row, String message) {
+        duplicates++;
+        addError(row, message);
+    }
+
+    private void addError(long row, String message) {
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Rows that failed validation.
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+
+    /**
+     * Rows whose phone or email was already registered, or repeated an earlier row's.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * The first rejected rows, in file order.
+     */
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Whether some rejected rows were counted but not kept in {@link #getErrors()}.
+     */
+    public boolean isErrorListTruncated() {
+        return invalid + duplicates > errors.size();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PatientImportReport{read=" + read + ", imported=" + imported + ", invalid=" + invalid
+                + ", duplicates=" + duplicates + ", elapsedMillis=" + elapsedMillis + '}';
+    }
+}
@@ -1,6 +1,8 @@
 package com.hospital.model;
 
 import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Prescription model
@@ -11,6 +13,8 @@ public class Prescription {
     private Integer patientId;
     private Integer doctorId;
     private Integer appointmentId;
+    // Only filled by the queries that load items
+    private List<PrescriptionItem> items = Collections.emptyList();
 
     public Prescription() {}
 
@@ -62,6 +66,14 @@ public class Prescription {
         this.appointmentId = appointmentId;
     }
 
+    public List<PrescriptionItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<PrescriptionItem> items) {
+        this.items = items;
+    }
+
     @Override
     public String toString() {
         return "Prescription{" +
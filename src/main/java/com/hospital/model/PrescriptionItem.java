@@ -0,0 +1,77 @@
+package com.hospital.model;
+
+/**
+ * One medicine on a prescription, with the inventory item's name.
+ */
+public class PrescriptionItem {
+    private Integer prescriptionItemId;
+    private Integer prescriptionId;
+    private Integer inventoryId;
+    private String itemName;
+    private String dosage;
+    private String duration;
+    private int quantity;
+
+    public PrescriptionItem() {}
+
+    public Integer getPrescriptionItemId() {
+        return prescriptionItemId;
+    }
+
+    public void setPrescriptionItemId(Integer prescriptionItemId) {
+        this.prescriptionItemId = prescriptionItemId;
+    }
+
+    public Integer getPrescriptionId() {
+        return prescriptionId;
+    }
+
+    public void setPrescriptionId(Integer prescriptionId) {
+        this.prescriptionId = prescriptionId;
+    }
+
+    public Integer getInventoryId() {
+        return inventoryId;
+    }
+
+    public void setInventoryId(Integer inventoryId) {
+        this.inventoryId = inventoryId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public String getDosage() {
+        return dosage;
+    }
+
+    public void setDosage(String dosage) {
+        this.dosage = dosage;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return itemName + " " + dosage + " for " + duration + " (x" + quantity + ")";
+    }
+}
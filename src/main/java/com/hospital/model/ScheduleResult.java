@@ -0,0 +1,44 @@
+package com.hospital.model;
+
+/**
+ * The outcome of one appointment in a batch booking: the appointment, with its new id
+ * when it was booked, or the reason it was not.
+ */
+public class ScheduleResult {
+    private final Appointment appointment;
+    private final String error;
+
+    private ScheduleResult(Appointment appointment, String error) {
+        this.appointment = appointment;
+        this.error = error;
+    }
+
+    public static ScheduleResult scheduled(Appointment appointment) {
+        return new ScheduleResult(appointment, null);
+    }
+
+    public static ScheduleResult failed(Appointment appointment, String error) {
+        return new ScheduleResult(appointment, error);
+    }
+
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Why the appointment was not booked, or null if it was.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean isScheduled() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleResult{" + appointment.getAppointmentDate() + " " + appointment.getAppointmentTime()
+                + (error == null ? ", id=" + appointment.getAppointmentId() : ", error='" + error + '\'') + '}';
+    }
+}
@@ -0,0 +1,115 @@
+package com.hospital.service;
+
+import com.hospital.dao.AppointmentSeriesDAO;
+import com.hospital.dao.AppointmentSeriesDAOImpl;
+import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentSeries;
+import com.hospital.util.ValidationUtil;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Business logic for recurring appointments. A series is stored once as its rule; its
+ * occurrences show up in the appointment listings and availability for whatever dates are
+ * being looked at. Changing one occurrence (moving, completing, cancelling) materializes
+ * just that occurrence as an ordinary appointment.
+ */
+public class AppointmentSeriesService {
+    // A year of daily, or several years of weekly, appointments
+    public static final int MAX_OCCURRENCES = 366;
+    private static final String SCHEDULED = "Scheduled";
+    private static final String DOUBLE_BOOKED = "Doctor is already booked at this time";
+    // PostgreSQL's SQLSTATE for a unique violation
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final AppointmentSeriesDAO dao = new AppointmentSeriesDAOImpl();
+    private final DoctorAvailabilityService availability = ServiceRegistry.getDoctorAvailabilityService();
+
+    /**
+     * Creates a series after checking every occurrence against the doctor's existing
+     * appointments and series, in one query. The check and the insert run in one
+     * transaction holding the doctor's booking lock, so a concurrent booking cannot take
+     * one of the slots in between.
+     */
+    public int createSeries(AppointmentSeries series) throws Exception {
+        if (series.getPatientId() == null || series.getDoctorId() == null) throw new IllegalArgumentException("Doctor and patient required");
+        if (series.getStartDate() == null || series.getAppointmentTime() == null) throw new IllegalArgumentException("Start date and time required");
+        if (series.getFrequency() == null) throw new IllegalArgumentException("Frequency required");
+        if (series.getInterval() < 1) throw new IllegalArgumentException("Interval must be at least 1");
+        if (!ValidationUtil.validateDateNotPast(series.getStartDate())) throw new IllegalArgumentException("Cannot schedule past date");
+        if (series.getEndDate() == null && series.getOccurrenceCount() == null) throw new IllegalArgumentException("End date or number of occurrences required");
+        if (series.getEndDate() != null && series.getEndDate().isBefore(series.getStartDate())) throw new IllegalArgumentException("End date is before the start date");
+        if (series.getOccurrenceCount() != null && (series.getOccurrenceCount() < 1 || series.getOccurrenceCount() > MAX_OCCURRENCES))
+            throw new IllegalArgumentException("Number of occurrences must be between 1 and " + MAX_OCCURRENCES);
+
+        List<LocalDate> dates = series.allOccurrences();
+        if (dates.size() > MAX_OCCURRENCES) throw new IllegalArgumentException("A series can have at most " + MAX_OCCURRENCES + " occurrences");
+        int id;
+        try {
+            id = dao.create(series);
+        } catch (SQLException e) {
+            // The message names the clashing dates
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) throw new IllegalStateException(e.getMessage());
+            throw e;
+        }
+        if (id > 0) series.setSeriesId(id);
+        return id;
+    }
+
+    public AppointmentSeries getSeries(int id) throws Exception { return dao.findById(id); }
+    public List<AppointmentSeries> getByPatient(int patientId) throws Exception { return dao.findByPatientId(patientId); }
+
+    /**
+     * Deletes the series with its remaining occurrences; materialized ones are kept.
+     */
+    public boolean deleteSeries(int id) throws Exception { return dao.delete(id); }
+
+    /**
+     * Replaces one occurrence with an ordinary appointment, e.g. moved to another time or
+     * with a new status. A scheduled replacement in a different slot is checked for clashes
+     * like a new booking.
+     *
+     * @param occurrence the occurrence as listed, before any change
+     * @param replacement the appointment it becomes
+     * @return the new appointment's id
+     */
+    public int replaceOccurrence(Appointment occurrence, Appointment replacement) throws Exception {
+        requireOccurrence(occurrence);
+        if (replacement.getAppointmentDate() == null || replacement.getAppointmentTime() == null) throw new IllegalArgumentException("Date and time required");
+        if (replacement.getStatus() == null) replacement.setStatus(SCHEDULED);
+        boolean sameSlot = replacement.getDoctorId().equals(occurrence.getDoctorId())
+                && replacement.getAppointmentDate().equals(occurrence.getAppointmentDate())
+                && replacement.getAppointmentTime().equals(occurrence.getAppointmentTime());
+        // In its own slot the occurrence would clash with itself
+        if (SCHEDULED.equals(replacement.getStatus()) && !sameSlot) {
+            if (!ValidationUtil.validateDateNotPast(replacement.getAppointmentDate())) throw new IllegalArgumentException("Cannot schedule past date");
+            if (availability.isBooked(replacement.getDoctorId(), replacement.getAppointmentDate(), replacement.getAppointmentTime(), 0))
+                throw new IllegalStateException(DOUBLE_BOOKED);
+        }
+        int id;
+        try {
+            id = dao.replaceOccurrence(occurrence.getSeriesId(), occurrence.getAppointmentDate(), replacement);
+        } catch (SQLException e) {
+            if (UNIQUE_VIOLATION.equals(e.getSQLState())) throw new IllegalStateException(DOUBLE_BOOKED);
+            throw e;
+        }
+        if (id < 0) throw new IllegalStateException("This occurrence has already been changed");
+        replacement.setAppointmentId(id);
+        replacement.setSeriesId(null);
+        return id;
+    }
+
+    /**
+     * Drops one occurrence from its series without replacing it.
+     */
+    public boolean removeOccurrence(Appointment occurrence) throws Exception {
+        requireOccurrence(occurrence);
+        return dao.removeOccurrence(occurrence.getSeriesId(), occurrence.getAppointmentDate());
+    }
+
+    private static void requireOccurrence(Appointment occurrence) {
+        if (!occurrence.isOccurrence()) throw new IllegalArgumentException("Not an occurrence of a series");
+    }
+}
@@ -2,43 +2,140 @@ package com.hospital.service;
 
 import com.hospital.dao.AppointmentDAO;
 import com.hospital.dao.AppointmentDAOImpl;
+import com.hospital.dao.Page;
 import com.hospital.model.Appointment;
+import com.hospital.model.AppointmentListing;
+import com.hospital.model.ScheduleResult;
 import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.EntityChangeEvent.ChangeType;
 import com.hospital.util.ValidationUtil;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Business logic for scheduling appointments with simple rules:
  * - No past appointments
  * - No double-booking for same doctor at same date/time
+ *
+ * Double-booking is checked by {@link DoctorAvailabilityService#isBooked}, which consults a
+ * cached bitmap of the doctor's day before an indexed existence query. A booking that races
+ * past it is caught by the DAO, which checks again and writes while holding the doctor's
+ * booking lock, so series occurrences are covered as well as the rows behind the unique
+ * index uq_appointment_doctor_slot.
  */
 public class AppointmentService {
+    private static final String SCHEDULED = "Scheduled";
+    private static final String DOUBLE_BOOKED = "Doctor is already booked at this time";
+    // PostgreSQL's SQLSTATE for a unique violation
+    private static final String UNIQUE_VIOLATION = "23505";
+
     private final AppointmentDAO dao = new AppointmentDAOImpl();
-    private final Cache<Integer, Appointment> cache = new Cache<>();
+    private final Cache<Integer, Appointment> cache = CacheRegistry.getOrCreate("appointments", () -> {
+        Cache<Integer, Appointment> c = new Cache<>(60, 5_000);
+        c.invalidateOn(EntityType.APPOINTMENT, EntityChangeEvent::getEntityId);
+        // Deleting a patient or doctor cascades to their appointments
+        c.onEntityChange(EntityType.PATIENT, AppointmentService::clearOnDelete);
+        c.onEntityChange(EntityType.DOCTOR, AppointmentService::clearOnDelete);
+        return c;
+    });
+    private final DoctorAvailabilityService availability = ServiceRegistry.getDoctorAvailabilityService();
+
+    private static void clearOnDelete(Cache<Integer, Appointment> cache, EntityChangeEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) cache.clear();
+    }
 
     public int scheduleAppointment(Appointment a) throws Exception {
-        if (a.getAppointmentDate() == null || a.getAppointmentTime() == null) throw new IllegalArgumentException("Date and time required");
-        if (!ValidationUtil.validateDateNotPast(a.getAppointmentDate())) throw new IllegalArgumentException("Cannot schedule past date");
-        // check double-booking
-        List<Appointment> docs = dao.findByDoctorId(a.getDoctorId());
-        for (Appointment ex : docs) {
-            if (ex.getAppointmentDate().equals(a.getAppointmentDate()) && ex.getAppointmentTime().equals(a.getAppointmentTime())) {
-                throw new IllegalStateException("Doctor is already booked at this time");
-            }
-        }
-        int id = dao.create(a);
+        validateNew(a);
+        checkNotDoubleBooked(a);
+        int id;
+        try { id = dao.create(a); } catch (SQLException e) { throw doubleBookingOr(e); }
         if (id > 0) { a.setAppointmentId(id); cache.put(id, a); }
         return id;
     }
 
-    public Appointment getAppointment(int id) throws Exception { Appointment a = cache.get(id); if (a!=null) return a; a = dao.findById(id); if (a!=null) cache.put(id,a); return a; }
+    /**
+     * Books several appointments at once, e.g. a course of weekly follow-ups. Each one is
+     * validated like scheduleAppointment; the valid ones are checked for clashes in one query
+     * and inserted together in one transaction.
+     *
+     * @return one result per appointment, in the same order
+     * @throws Exception if the batch could not be written; then none was booked
+     */
+    public List<ScheduleResult> scheduleAppointments(List<Appointment> appointments) throws Exception {
+        ScheduleResult[] results = new ScheduleResult[appointments.size()];
+        List<Appointment> valid = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment a = appointments.get(i);
+            try {
+                validateNew(a);
+                if (a.getStatus() == null) a.setStatus(SCHEDULED);
+                valid.add(a);
+                positions.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = ScheduleResult.failed(a, e.getMessage());
+            }
+        }
+        int[] ids = dao.createBatch(valid);
+        for (int n = 0; n < ids.length; n++) {
+            Appointment a = valid.get(n);
+            if (ids[n] > 0) {
+                a.setAppointmentId(ids[n]);
+                cache.put(ids[n], a);
+                results[positions.get(n)] = ScheduleResult.scheduled(a);
+            } else {
+                results[positions.get(n)] = ScheduleResult.failed(a, DOUBLE_BOOKED);
+            }
+        }
+        return List.of(results);
+    }
+
+    private static void validateNew(Appointment a) {
+        if (a.getAppointmentDate() == null || a.getAppointmentTime() == null) throw new IllegalArgumentException("Date and time required");
+        if (!ValidationUtil.validateDateNotPast(a.getAppointmentDate())) throw new IllegalArgumentException("Cannot schedule past date");
+        if (a.getDoctorId() == null || a.getPatientId() == null) throw new IllegalArgumentException("Doctor and patient required");
+    }
+
+    private void checkNotDoubleBooked(Appointment a) throws Exception {
+        if (a.getStatus() != null && !SCHEDULED.equals(a.getStatus())) return;
+        int self = a.getAppointmentId() == null ? 0 : a.getAppointmentId();
+        if (availability.isBooked(a.getDoctorId(), a.getAppointmentDate(), a.getAppointmentTime(), self))
+            throw new IllegalStateException(DOUBLE_BOOKED);
+    }
+
+    private static Exception doubleBookingOr(SQLException e) {
+        return UNIQUE_VIOLATION.equals(e.getSQLState()) ? new IllegalStateException(DOUBLE_BOOKED) : e;
+    }
+
+    public Appointment getAppointment(int id) throws Exception { return cache.get(id, dao::findById); }
     public List<Appointment> getByDate(LocalDate date) throws Exception { return dao.findByDate(date); }
+    public List<AppointmentListing> getListings(LocalDate from, LocalDate to, String status) throws Exception { return dao.findListings(from, to, status); }
+    public List<AppointmentListing> getListingRange(LocalDate from, LocalDate to, String status, int offset, int limit) throws Exception { return dao.findListingRange(from, to, status, offset, limit); }
+    public List<AppointmentListing> getListingsAfter(LocalDate from, LocalDate to, String status, AppointmentListing after, int limit) throws Exception { return dao.findListingsAfter(from, to, status, after, limit); }
+    public int countListings(LocalDate from, LocalDate to, String status) throws Exception { return dao.countListings(from, to, status); }
     public List<Appointment> getByDoctor(int doctorId) throws Exception { return dao.findByDoctorId(doctorId); }
     public List<Appointment> getByPatient(int patientId) throws Exception { return dao.findByPatientId(patientId); }
-    public boolean updateAppointment(Appointment a) throws Exception { boolean ok = dao.update(a); if (ok) cache.put(a.getAppointmentId(), a); return ok; }
-    public boolean updateStatus(int id, String status) throws Exception { boolean ok = dao.updateStatus(id, status); if (ok) { Appointment a = cache.get(id); if (a!=null) { a.setStatus(status); cache.put(id,a); } } return ok; }
+    public Page<Appointment> getPageByDoctor(int doctorId, Appointment after, int limit) throws Exception { return dao.findPageByDoctorId(doctorId, after, limit); }
+    public Page<Appointment> getPageByPatient(int patientId, Appointment after, int limit) throws Exception { return dao.findPageByPatientId(patientId, after, limit); }
+    public boolean updateAppointment(Appointment a) throws Exception {
+        checkNotDoubleBooked(a);
+        boolean ok;
+        try { ok = dao.update(a); } catch (SQLException e) { throw doubleBookingOr(e); }
+        if (ok) cache.put(a.getAppointmentId(), a);
+        return ok;
+    }
+    public boolean updateStatus(int id, String status) throws Exception {
+        boolean ok;
+        try { ok = dao.updateStatus(id, status); } catch (SQLException e) { throw doubleBookingOr(e); }
+        if (ok) { Appointment a = cache.get(id); if (a!=null) { a.setStatus(status); cache.put(id,a); } }
+        return ok;
+    }
     public boolean deleteAppointment(int id) throws Exception { boolean ok = dao.delete(id); if (ok) cache.remove(id); return ok; }
 }
@@ -0,0 +1,147 @@
+package com.hospital.service;
+
+import com.hospital.model.DashboardSnapshot;
+import com.hospital.util.BackgroundScheduler;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Dashboard counters from COUNT queries. The latest snapshot is kept so a dashboard that
+ * opens shows it at once; it is retaken periodically on the background scheduler and
+ * shortly after any patient, doctor or appointment is added or removed.
+ */
+public class DashboardService {
+    private static final long REFRESH_PERIOD_SECONDS = 60;
+    // Coalesces a burst of writes (e.g. an import) into one recount
+    private static final long CHANGE_DELAY_SECONDS = 2;
+
+    private final PatientService patientService = ServiceRegistry.getPatientService();
+    private final DoctorService doctorService = ServiceRegistry.getDoctorService();
+    private final AppointmentService appointmentService = ServiceRegistry.getAppointmentService();
+
+    private final List<Listener<?>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private volatile DashboardSnapshot latest;
+    private boolean autoRefreshStarted;
+
+    private static class Listener<T> {
+        private final WeakReference<T> owner;
+        private final BiConsumer<? super T, DashboardSnapshot> handler;
+
+        Listener(T owner, BiConsumer<? super T, DashboardSnapshot> handler) {
+            this.owner = new WeakReference<>(owner);
+            this.handler = handler;
+        }
+
+        /**
+         * @return false once the owner has been garbage collected
+         */
+        boolean deliver(DashboardSnapshot snapshot) {
+            T target = owner.get();
+            if (target == null) {
+                return false;
+            }
+            handler.accept(target, snapshot);
+            return true;
+        }
+    }
+
+    public DashboardService() {
+        // Series count towards today's appointments through their occurrences
+        for (EntityType type : new EntityType[] { EntityType.PATIENT, EntityType.DOCTOR, EntityType.APPOINTMENT,
+                EntityType.APPOINTMENT_SERIES }) {
+            EntityChangeBus.subscribe(type, this, DashboardService::onEntityChange);
+        }
+    }
+
+    private void onEntityChange(EntityChangeEvent event) {
+        // Updates cannot change any count except today's appointments (date moved, occurrence removed)
+        if (event.getChangeType() != ChangeType.UPDATED || event.getEntityType() == EntityType.APPOINTMENT
+                || event.getEntityType() == EntityType.APPOINTMENT_SERIES) {
+            requestRefresh();
+        }
+    }
+
+    /**
+     * The last snapshot taken, or null if none has been taken yet.
+     */
+    public DashboardSnapshot getLatest() {
+        return latest;
+    }
+
+    /**
+     * Takes a new snapshot now, on the calling thread, and passes it to the listeners.
+     */
+    public DashboardSnapshot refresh() throws Exception {
+        DashboardSnapshot snapshot = new DashboardSnapshot(
+                patientService.countPatients(),
+                doctorService.countDoctors(),
+                appointmentService.countListings(LocalDate.now(), LocalDate.now(), null),
+                LocalDateTime.now());
+        latest = snapshot;
+        for (Listener<?> listener : listeners) {
+            if (!listener.deliver(snapshot)) {
+                listeners.remove(listener);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Takes a new snapshot shortly on the background scheduler. Requests made while one is
+     * pending are merged into it.
+     */
+    public void requestRefresh() {
+        if (refreshPending.compareAndSet(false, true)) {
+            BackgroundScheduler.schedule("dashboard-refresh", () -> {
+                refreshPending.set(false);
+                refreshQuietly();
+            }, CHANGE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Starts the periodic refresh; the first snapshot is taken immediately. Later calls do
+     * nothing.
+     *
+     * @return true if this call started it
+     */
+    public synchronized boolean startAutoRefresh() {
+        if (autoRefreshStarted) {
+            return false;
+        }
+        autoRefreshStarted = true;
+        BackgroundScheduler.scheduleAtFixedRate("dashboard-refresh", this::refreshQuietly,
+                0, REFRESH_PERIOD_SECONDS, TimeUnit.SECONDS);
+        return true;
+    }
+
+    /**
+     * Passes every new snapshot to the handler, on the thread that took it, for as long as
+     * the owner is reachable. The handler receives the owner as its first argument and must
+     * not capture it, otherwise the owner can never be collected.
+     */
+    public <T> void addListener(T owner, BiConsumer<? super T, DashboardSnapshot> handler) {
+        listeners.add(new Listener<>(owner, handler));
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            // Keep showing the previous snapshot; the next run retries
+            System.err.println("Dashboard refresh failed: " + e.getMessage());
+        }
+    }
+}
@@ -2,15 +2,33 @@ package com.hospital.service;
 
 import com.hospital.dao.DepartmentDAO;
 import com.hospital.dao.DepartmentDAOImpl;
+import com.hospital.dao.Page;
 import com.hospital.model.Department;
+import com.hospital.model.DepartmentStatistics;
 import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.EntityType;
 import com.hospital.util.ValidationUtil;
 
 import java.util.List;
 
 public class DepartmentService {
+    private static final String STATISTICS_KEY = "all";
+
     private final DepartmentDAO dao = new DepartmentDAOImpl();
-    private final Cache<Integer, Department> cache = new Cache<>();
+    private final Cache<Integer, Department> cache = CacheRegistry.getOrCreate("departments", () -> {
+        Cache<Integer, Department> c = new Cache<>(60, 500, 50);
+        c.invalidateOn(EntityType.DEPARTMENT, EntityChangeEvent::getEntityId);
+        return c;
+    });
+    private final Cache<String, DepartmentStatistics> statisticsCache = CacheRegistry.getOrCreate("departmentStatistics", () -> {
+        Cache<String, DepartmentStatistics> c = new Cache<>(10, 10);
+        // Adding, moving or removing a doctor changes the counts
+        c.onEntityChange(EntityType.DOCTOR, (cache, event) -> cache.clear());
+        c.onEntityChange(EntityType.DEPARTMENT, (cache, event) -> cache.clear());
+        return c;
+    });
 
     public int createDepartment(Department d) throws Exception {
         if (!ValidationUtil.validateRequired(d.getDepartmentName())) throw new IllegalArgumentException("Department name required");
@@ -19,8 +37,17 @@ public class DepartmentService {
         return id;
     }
 
-    public Department getDepartment(int id) throws Exception { Department d = cache.get(id); if (d!=null) return d; d = dao.findById(id); if (d!=null) cache.put(id,d); return d; }
+    public Department getDepartment(int id) throws Exception { return cache.get(id, dao::findById); }
     public List<Department> getAll() throws Exception { return dao.findAll(); }
+    public Page<Department> getPage(int afterId, int limit) throws Exception { return dao.findPage(afterId, limit); }
     public boolean updateDepartment(Department d) throws Exception { boolean ok = dao.update(d); if (ok) cache.put(d.getDepartmentId(), d); return ok; }
     public boolean deleteDepartment(int id) throws Exception { return dao.delete(id); }
+
+    /**
+     * Doctor counts for every department, from one GROUP BY query and cached until a doctor
+     * or department changes.
+     */
+    public DepartmentStatistics getStatistics() throws Exception {
+        return statisticsCache.get(STATISTICS_KEY, key -> new DepartmentStatistics(dao.countDoctorsByDepartment()));
+    }
 }
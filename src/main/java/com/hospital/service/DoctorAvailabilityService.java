@@ -0,0 +1,209 @@
+package com.hospital.service;
+
+import com.hospital.dao.AppointmentDAO;
+import com.hospital.dao.AppointmentDAOImpl;
+import com.hospital.model.Appointment;
+import com.hospital.model.Doctor;
+import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
+import com.hospital.util.DaySlots;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers "when is this doctor free" from cached per-doctor, per-day slot bitmaps
+ * ({@link DaySlots}). A week of one doctor's days, or one day of every doctor in a
+ * specialization, is loaded with a single query; after that, free-slot, next-available and
+ * any-doctor queries are bit operations on cached days. Days include the occurrences of
+ * recurring series. Appointment and series writes announce the doctor days they touch,
+ * which are evicted and reloaded on next use.
+ *
+ * Every doctor is bookable from {@link #DAY_START} to {@link #DAY_END}; the schema has no
+ * per-doctor rota.
+ */
+public class DoctorAvailabilityService {
+    public static final LocalTime DAY_START = LocalTime.of(8, 0);
+    public static final LocalTime DAY_END = LocalTime.of(17, 0);
+    // How far ahead findNextAvailable looks
+    public static final int MAX_SEARCH_DAYS = 60;
+    private static final int FIRST_SLOT = DaySlots.slotOf(DAY_START);
+    private static final int END_SLOT = DaySlots.slotOf(DAY_END);
+
+    private final AppointmentDAO dao = new AppointmentDAOImpl();
+    private final DoctorService doctorService = ServiceRegistry.getDoctorService();
+    // Keyed by DaySlots.key; appointment events name the days they touched
+    private final Cache<String, DaySlots> days = CacheRegistry.getOrCreate("doctorDaySlots", () -> {
+        Cache<String, DaySlots> c = new Cache<>(30, 5_000);
+        c.onEntityChange(EntityType.APPOINTMENT, DoctorAvailabilityService::evictDays);
+        c.onEntityChange(EntityType.APPOINTMENT_SERIES, DoctorAvailabilityService::evictDays);
+        // Deleting a patient or doctor cascades to their appointments
+        c.onEntityChange(EntityType.PATIENT, DoctorAvailabilityService::clearOnDelete);
+        c.onEntityChange(EntityType.DOCTOR, DoctorAvailabilityService::clearOnDelete);
+        return c;
+    });
+
+    private static void evictDays(Cache<String, DaySlots> cache, EntityChangeEvent event) {
+        List<String> dayKeys = new ArrayList<>();
+        for (String key : event.getSearchKeys()) {
+            // Appointment events name the patient too
+            if (!EntityChangeEvent.isPatientKey(key)) {
+                dayKeys.add(key);
+            }
+        }
+        if (dayKeys.isEmpty()) {
+            cache.clear();
+            return;
+        }
+        for (String key : dayKeys) {
+            cache.remove(key);
+        }
+    }
+
+    private static void clearOnDelete(Cache<String, DaySlots> cache, EntityChangeEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * The doctor's booked slots on the day, from the cache or loaded now.
+     */
+    public DaySlots getDay(int doctorId, LocalDate date) throws Exception {
+        return days.get(DaySlots.key(doctorId, date), key -> new DaySlots(dao.findScheduledTimes(doctorId, date)));
+    }
+
+    /**
+     * Caches every day in the range for each doctor, loading the doctors with a day missing
+     * in one query. A day invalidated while the query runs is left out and loaded on use.
+     */
+    public void preload(Collection<Integer> doctorIds, LocalDate from, LocalDate to) throws Exception {
+        List<Integer> missing = new ArrayList<>();
+        for (int doctorId : doctorIds) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                if (!days.containsKey(DaySlots.key(doctorId, date))) {
+                    missing.add(doctorId);
+                    break;
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        // An appointment write during the query evicts its day; that day must not be cached from the query
+        Map<String, Long> stamps = new HashMap<>();
+        for (int doctorId : missing) {
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                String key = DaySlots.key(doctorId, date);
+                stamps.put(key, days.invalidationStamp(key));
+            }
+        }
+        Map<String, List<LocalTime>> booked = new HashMap<>();
+        for (Appointment a : dao.findScheduledBetween(missing, from, to)) {
+            booked.computeIfAbsent(DaySlots.key(a.getDoctorId(), a.getAppointmentDate()), key -> new ArrayList<>())
+                    .add(a.getAppointmentTime());
+        }
+        for (Map.Entry<String, Long> stamp : stamps.entrySet()) {
+            String key = stamp.getKey();
+            days.putIfNotInvalidated(key, new DaySlots(booked.getOrDefault(key, Collections.emptyList())), stamp.getValue());
+        }
+    }
+
+    /**
+     * Whether the doctor has a scheduled appointment at exactly this date and time, ignoring
+     * the given appointment (0 for none). A free slot in the day's bitmap answers without a
+     * query; a taken one is confirmed with an indexed existence check, since the slot may
+     * hold a different time or the appointment being moved.
+     */
+    public boolean isBooked(int doctorId, LocalDate date, LocalTime time, int excludingAppointmentId) throws Exception {
+        return getDay(doctorId, date).isTaken(time) && dao.existsScheduledAt(doctorId, date, time, excludingAppointmentId);
+    }
+
+    /**
+     * The start times of the doctor's free slots on the day, leaving out any already past.
+     */
+    public List<LocalTime> getFreeSlots(int doctorId, LocalDate date) throws Exception {
+        List<LocalTime> free = new ArrayList<>();
+        DaySlots day = getDay(doctorId, date);
+        for (int slot = day.nextFree(firstBookableSlot(date, LocalDateTime.now()), END_SLOT); slot >= 0;
+                slot = day.nextFree(slot + 1, END_SLOT)) {
+            free.add(DaySlots.startOf(slot));
+        }
+        return free;
+    }
+
+    /**
+     * The doctor's free slots on each day of the range, e.g. a week, loaded in one query.
+     */
+    public Map<LocalDate, List<LocalTime>> getFreeSlots(int doctorId, LocalDate from, LocalDate to) throws Exception {
+        preload(List.of(doctorId), from, to);
+        Map<LocalDate, List<LocalTime>> free = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            free.put(date, getFreeSlots(doctorId, date));
+        }
+        return free;
+    }
+
+    /**
+     * The start of the doctor's first free slot at or after the given time, looking up to
+     * {@link #MAX_SEARCH_DAYS} days ahead, or null if they are fully booked until then.
+     */
+    public LocalDateTime findNextAvailable(int doctorId, LocalDateTime after) throws Exception {
+        LocalDate last = after.toLocalDate().plusDays(MAX_SEARCH_DAYS - 1);
+        // A week per query, so a busy doctor costs a few round-trips rather than one per day
+        for (LocalDate from = after.toLocalDate(); !from.isAfter(last); from = from.plusWeeks(1)) {
+            LocalDate to = from.plusDays(6).isAfter(last) ? last : from.plusDays(6);
+            preload(List.of(doctorId), from, to);
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                int slot = getDay(doctorId, date).nextFree(firstBookableSlot(date, after), END_SLOT);
+                if (slot >= 0) {
+                    return LocalDateTime.of(date, DaySlots.startOf(slot));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The doctors of the specialization who have the slot holding the time free.
+     */
+    public List<Doctor> findAvailableDoctors(String specialization, LocalDate date, LocalTime time) throws Exception {
+        List<Doctor> doctors = doctorService.getBySpecialization(specialization);
+        List<Integer> ids = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            ids.add(doctor.getDoctorId());
+        }
+        preload(ids, date, date);
+        List<Doctor> available = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            if (!getDay(doctor.getDoctorId(), date).isTaken(time)) {
+                available.add(doctor);
+            }
+        }
+        return available;
+    }
+
+    /**
+     * The first slot on the date that starts within bookable hours and not before 'after'.
+     */
+    private static int firstBookableSlot(LocalDate date, LocalDateTime after) {
+        if (date.isBefore(after.toLocalDate())) {
+            return END_SLOT;
+        }
+        if (date.isAfter(after.toLocalDate())) {
+            return FIRST_SLOT;
+        }
+        return Math.max(FIRST_SLOT, DaySlots.firstSlotFrom(after.toLocalTime()));
+    }
+}
@@ -2,8 +2,12 @@ package com.hospital.service;
 
 import com.hospital.dao.DoctorDAO;
 import com.hospital.dao.DoctorDAOImpl;
+import com.hospital.dao.Page;
 import com.hospital.model.Doctor;
 import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.EntityType;
 import com.hospital.util.ValidationUtil;
 
 import java.util.List;
@@ -13,7 +17,16 @@ import java.util.List;
  */
 public class DoctorService {
     private final DoctorDAO doctorDAO = new DoctorDAOImpl();
-    private final Cache<Integer, Doctor> cache = new Cache<>();
+    private final Cache<Integer, Doctor> cache = CacheRegistry.getOrCreate("doctors", () -> {
+        Cache<Integer, Doctor> c = new Cache<>(60, 1_000, 50);
+        c.invalidateOn(EntityType.DOCTOR, EntityChangeEvent::getEntityId);
+        return c;
+    });
+    private final Cache<String, List<Doctor>> bySpecialization = CacheRegistry.getOrCreate("doctorsBySpecialization", () -> {
+        Cache<String, List<Doctor>> c = new Cache<>(60, 200);
+        c.onEntityChange(EntityType.DOCTOR, (cache, event) -> cache.clear());
+        return c;
+    });
 
     public int addDoctor(Doctor doctor) throws Exception {
         if (!ValidationUtil.validateRequired(doctor.getFirstName())
@@ -46,27 +59,37 @@ public class DoctorService {
     }
 
     public Doctor getDoctor(int id) throws Exception {
-        Doctor d = cache.get(id);
-        if (d != null)
-            return d;
-        d = doctorDAO.findById(id);
-        if (d != null)
-            cache.put(id, d);
-        return d;
+        return cache.get(id, doctorDAO::findById);
     }
 
     public List<Doctor> getAll() throws Exception {
         return doctorDAO.findAll();
     }
 
+    public Page<Doctor> getPage(int afterId, int limit) throws Exception {
+        return doctorDAO.findPage(afterId, limit);
+    }
+
+    public int countDoctors() throws Exception {
+        return doctorDAO.count();
+    }
+
     public List<Doctor> getByDepartment(int deptId) throws Exception {
         return doctorDAO.findByDepartment(deptId);
     }
 
+    public List<Doctor> getBySpecialization(String specialization) throws Exception {
+        return bySpecialization.get(specialization, doctorDAO::findBySpecialization);
+    }
+
     public List<Doctor> search(String q) throws Exception {
         return doctorDAO.searchByName(q);
     }
 
+    public List<Doctor> search(String q, int limit) throws Exception {
+        return doctorDAO.search(q, limit);
+    }
+
     public boolean updateDoctor(Doctor doctor) throws Exception {
         if (!ValidationUtil.validateRequired(doctor.getLicenseNumber())) {
             throw new IllegalArgumentException("License number is required");
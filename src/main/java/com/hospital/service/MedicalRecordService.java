@@ -2,6 +2,7 @@ package com.hospital.service;
 
 import com.hospital.dao.MedicalRecordDAO;
 import com.hospital.dao.MedicalRecordDAOImpl;
+import com.hospital.dao.Page;
 import com.hospital.model.MedicalRecord;
 
 import java.util.List;
@@ -13,6 +14,10 @@ public class MedicalRecordService {
         return dao.getByPatientId(patientId);
     }
 
+    public Page<MedicalRecord> getPageByPatient(int patientId, MedicalRecord after, int limit) {
+        return dao.getPageByPatientId(patientId, after, limit);
+    }
+
     public void addRecord(MedicalRecord record) {
         dao.add(record);
     }
@@ -1,5 +1,6 @@
 package com.hospital.service;
 
+import com.hospital.dao.Page;
 import com.hospital.dao.PatientNoteDAO;
 import com.hospital.model.PatientNote;
 
@@ -16,4 +17,8 @@ public class NoteService {
     public List<PatientNote> getNotes(int patientId) {
         return dao.findByPatientId(patientId);
     }
+
+    public Page<PatientNote> getNotesPage(int patientId, PatientNote after, int limit) {
+        return dao.findPageByPatientId(patientId, after, limit);
+    }
 }
@@ -0,0 +1,95 @@
+package com.hospital.service;
+
+import com.hospital.dao.PatientChartDAO;
+import com.hospital.dao.PatientChartDAOImpl;
+import com.hospital.model.Appointment;
+import com.hospital.model.MedicalRecord;
+import com.hospital.model.PatientChart;
+import com.hospital.model.Prescription;
+import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Loads a patient's chart for the medical-records view in one call: the first page of
+ * appointments (series occurrences included), prescriptions with their items, medical
+ * records and MongoDB notes. The SQL parts come back from one round-trip on one
+ * connection (see {@link PatientChartDAOImpl}), so a chart load stays within the
+ * connection TaskExecutor budgets for its task. Charts are cached per patient until a
+ * write may have changed them.
+ */
+public class PatientChartService {
+    // Size of the first page of each part; the view fetches later pages itself
+    public static final int PAGE_SIZE = 100;
+
+    private final PatientChartDAO dao = new PatientChartDAOImpl();
+    private final NoteService noteService = ServiceRegistry.getNoteService();
+
+    private final Cache<Integer, PatientChart> cache = CacheRegistry.getOrCreate("patientCharts", () -> {
+        Cache<Integer, PatientChart> c = new Cache<>(10, 200);
+        c.invalidateOn(EntityType.PATIENT, EntityChangeEvent::getEntityId);
+        c.onEntityChange(EntityType.APPOINTMENT, (cache, event) ->
+                invalidate(cache, event, chart -> chart.getAppointments().getItems(), Appointment::getAppointmentId));
+        // Charts list series occurrences among the appointments
+        c.onEntityChange(EntityType.APPOINTMENT_SERIES, (cache, event) ->
+                invalidate(cache, event, chart -> chart.getAppointments().getItems(), Appointment::getSeriesId));
+        c.onEntityChange(EntityType.PRESCRIPTION, (cache, event) ->
+                invalidate(cache, event, chart -> chart.getPrescriptions().getItems(), Prescription::getPrescriptionId));
+        c.onEntityChange(EntityType.MEDICAL_RECORD, (cache, event) ->
+                invalidate(cache, event, chart -> chart.getMedicalRecords().getItems(), MedicalRecord::getRecordId));
+        return c;
+    });
+
+    /**
+     * Evicts the charts of the patients the event names. Without them, a deleted row can only
+     * be in the charts that contain it, but a new or updated one may belong in any chart.
+     */
+    private static <T> void invalidate(Cache<Integer, PatientChart> cache, EntityChangeEvent event,
+                                       Function<PatientChart, List<T>> items, Function<T, Integer> idOf) {
+        Set<Integer> patientIds = event.getPatientIds();
+        if (!patientIds.isEmpty()) {
+            for (int patientId : patientIds) {
+                cache.remove(patientId);
+            }
+            return;
+        }
+        if (event.getChangeType() != ChangeType.DELETED) {
+            cache.clear();
+            return;
+        }
+        cache.invalidateIf((patientId, chart) -> {
+            for (T item : items.apply(chart)) {
+                if (event.getEntityId().equals(idOf.apply(item))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * The patient's chart, from the cache or loaded now.
+     */
+    public PatientChart getChart(int patientId) throws Exception {
+        return cache.get(patientId, id -> dao.findChart(id, PAGE_SIZE));
+    }
+
+    /**
+     * Adds a note and drops the patient's cached chart. Notes live in MongoDB, so their
+     * writes are not published on the entity change bus.
+     */
+    public void addNote(int patientId, String content) {
+        noteService.addNote(patientId, content);
+        invalidate(patientId);
+    }
+
+    public void invalidate(int patientId) {
+        cache.remove(patientId);
+    }
+}
@@ -0,0 +1,243 @@
+package com.hospital.service;
+
+import com.hospital.dao.PatientDAO;
+import com.hospital.dao.PatientDAOImpl;
+import com.hospital.model.Patient;
+import com.hospital.model.PatientImportReport;
+import com.hospital.util.CsvReader;
+import com.hospital.util.ValidationUtil;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Imports patients from CSV, e.g. when onboarding a clinic. The file is streamed a chunk at
+ * a time: each chunk is validated in parallel with the same rules as the registration form,
+ * then loaded in one transaction with COPY through a staging table, so memory use depends
+ * on the chunk size rather than the file size. Bad and duplicate rows are reported and
+ * skipped; they never fail the rest of the import.
+ *
+ * The first row is a header naming the columns, in any order: first_name, last_name,
+ * date_of_birth (yyyy-MM-dd), phone and email are required; gender, address, blood_group
+ * and registration_date are optional.
+ */
+public class PatientImportService {
+    public static final int CHUNK_SIZE = 1_000;
+    public static final int MAX_REPORTED_ERRORS = 1_000;
+    private static final String[] REQUIRED_COLUMNS = { "first_name", "last_name", "date_of_birth", "phone", "email" };
+    private static final String[] GENDERS = { "Male", "Female", "Other" };
+    // Column sizes in the patient table
+    private static final int NAME_LENGTH = 50;
+    private static final int EMAIL_LENGTH = 100;
+
+    private final PatientDAO patientDAO = new PatientDAOImpl();
+    private final SearchIndexService searchIndex = ServiceRegistry.getSearchIndexService();
+
+    /**
+     * A data row of the file, and the patient it parsed to or why it did not.
+     */
+    private static final class Row {
+        final long number;
+        final List<String> fields;
+        Patient patient;
+        String error;
+
+        Row(long number, List<String> fields) {
+            this.number = number;
+            this.fields = fields;
+        }
+    }
+
+    public PatientImportReport importCsv(Path file) throws Exception {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importCsv(in);
+        }
+    }
+
+    /**
+     * Imports every valid, new patient in the CSV. Each chunk commits on its own, so if the
+     * import is interrupted or fails, the chunks before it stay imported.
+     *
+     * @throws IOException if the file cannot be read or has no usable header
+     */
+    public PatientImportReport importCsv(Reader in) throws Exception {
+        long start = System.currentTimeMillis();
+        PatientImportReport report = new PatientImportReport(MAX_REPORTED_ERRORS);
+        CsvReader csv = new CsvReader(in);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        Map<String, Integer> columns = columnIndexes(header);
+
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (List<String> fields = csv.next(); fields != null; fields = csv.next()) {
+            chunk.add(new Row(csv.getRecordNumber(), fields));
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, columns, report);
+                chunk.clear();
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Import stopped after " + report.getImported() + " patients");
+                }
+            }
+        }
+        importChunk(chunk, columns, report);
+        report.setElapsedMillis(System.currentTimeMillis() - start);
+        return report;
+    }
+
+    private void importChunk(List<Row> chunk, Map<String, Integer> columns, PatientImportReport report) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        report.recordRead(chunk.size());
+        // Validation is CPU only, so it runs on the common pool rather than the DB-bound TaskExecutor
+        chunk.parallelStream().forEach(row -> parse(row, columns));
+
+        List<Row> valid = new ArrayList<>(chunk.size());
+        List<Patient> patients = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error != null) {
+                report.recordInvalid(row.number, row.error);
+            } else {
+                valid.add(row);
+                patients.add(row.patient);
+            }
+        }
+        int[] ids = patientDAO.importBatch(patients);
+        List<Patient> imported = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            Row row = valid.get(i);
+            if (ids[i] > 0) {
+                row.patient.setPatientId(ids[i]);
+                imported.add(row.patient);
+            } else if (ids[i] == PatientDAO.DUPLICATE_PHONE) {
+                report.recordDuplicate(row.number, "Phone " + row.patient.getPhone() + " is already registered or earlier in the file");
+            } else if (ids[i] == PatientDAO.DUPLICATE_EMAIL) {
+                report.recordDuplicate(row.number, "Email " + row.patient.getEmail() + " is already registered or earlier in the file");
+            } else {
+                report.recordDuplicate(row.number, "Phone or email was registered during the import");
+            }
+        }
+        // The chunk is published as one bulk event, which the search index does not reload from
+        searchIndex.indexPatients(imported);
+        report.recordImported(imported.size());
+    }
+
+    /**
+     * Parses and validates one row, setting its patient or its error.
+     */
+    private static void parse(Row row, Map<String, Integer> columns) {
+        try {
+            Patient p = new Patient();
+            p.setFirstName(name(row, columns, "first_name", "First name"));
+            p.setLastName(name(row, columns, "last_name", "Last name"));
+
+            p.setDateOfBirth(date(field(row, columns, "date_of_birth"), "Date of birth"));
+            if (!ValidationUtil.validateDatePast(p.getDateOfBirth())) {
+                throw new IllegalArgumentException("Date of birth must be in the past");
+            }
+
+            String phone = field(row, columns, "phone");
+            if (!ValidationUtil.validatePhone(phone)) {
+                throw new IllegalArgumentException("Invalid phone format");
+            }
+            p.setPhone(phone);
+
+            String email = field(row, columns, "email");
+            if (!ValidationUtil.validateEmail(email) || email.length() > EMAIL_LENGTH) {
+                throw new IllegalArgumentException("Invalid email format");
+            }
+            p.setEmail(email);
+
+            String gender = field(row, columns, "gender");
+            if (gender != null) {
+                p.setGender(gender(gender));
+            }
+            p.setAddress(field(row, columns, "address"));
+
+            String bloodGroup = field(row, columns, "blood_group");
+            if (bloodGroup != null) {
+                if (!ValidationUtil.validateBloodGroup(bloodGroup)) {
+                    throw new IllegalArgumentException("Invalid blood group. Valid groups are: "
+                            + String.join(", ", ValidationUtil.getValidBloodGroups()));
+                }
+                p.setBloodGroup(bloodGroup.trim().toUpperCase(Locale.ROOT));
+            }
+
+            String registered = field(row, columns, "registration_date");
+            p.setRegistrationDate(registered == null ? LocalDate.now() : date(registered, "Registration date"));
+            row.patient = p;
+        } catch (IllegalArgumentException e) {
+            row.error = e.getMessage();
+        }
+    }
+
+    private static String name(Row row, Map<String, Integer> columns, String column, String label) {
+        String value = field(row, columns, column);
+        if (!ValidationUtil.validateRequired(value)) {
+            throw new IllegalArgumentException(label + " is required");
+        }
+        if (!ValidationUtil.validateName(value) || value.length() > NAME_LENGTH) {
+            throw new IllegalArgumentException(label + " must start with a letter and contain only letters and spaces");
+        }
+        return value;
+    }
+
+    private static LocalDate date(String value, String label) {
+        if (value == null) {
+            throw new IllegalArgumentException(label + " is required");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(label + " must be yyyy-MM-dd");
+        }
+    }
+
+    private static String gender(String value) {
+        for (String gender : GENDERS) {
+            if (gender.equalsIgnoreCase(value)) {
+                return gender;
+            }
+        }
+        throw new IllegalArgumentException("Gender must be Male, Female or Other");
+    }
+
+    /**
+     * The trimmed value of the column, or null if it is blank or the row is short.
+     */
+    private static String field(Row row, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= row.fields.size()) {
+            return null;
+        }
+        String value = row.fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Map<String, Integer> columnIndexes(List<String> header) throws IOException {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // A UTF-8 byte order mark would otherwise stick to the first column's name
+            String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+            columns.putIfAbsent(name, i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IOException("Missing column: " + required);
+            }
+        }
+        return columns;
+    }
+}
@@ -1,9 +1,13 @@
 package com.hospital.service;
 
+import com.hospital.dao.Page;
 import com.hospital.dao.PatientDAO;
 import com.hospital.dao.PatientDAOImpl;
 import com.hospital.model.Patient;
 import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.EntityType;
 
 import java.util.List;
 
@@ -12,7 +16,11 @@ import java.util.List;
  */
 public class PatientService {
     private final PatientDAO patientDAO = new PatientDAOImpl();
-    private final Cache<Integer, Patient> cache = new Cache<>();
+    private final Cache<Integer, Patient> cache = CacheRegistry.getOrCreate("patients", () -> {
+        Cache<Integer, Patient> c = new Cache<>(60, 5_000, 50);
+        c.invalidateOn(EntityType.PATIENT, EntityChangeEvent::getEntityId);
+        return c;
+    });
 
     public int registerPatient(Patient patient) throws Exception {
         int id = patientDAO.create(patient);
@@ -24,17 +32,25 @@ public class PatientService {
     }
 
     public Patient getPatient(int id) throws Exception {
-        Patient p = cache.get(id);
-        if (p != null) return p;
-        p = patientDAO.findById(id);
-        if (p != null) cache.put(id, p);
-        return p;
+        return cache.get(id, patientDAO::findById);
     }
 
     public List<Patient> getAllPatients() throws Exception {
         return patientDAO.findAll();
     }
 
+    public Page<Patient> getPatientPage(int afterId, int limit) throws Exception {
+        return patientDAO.findPage(afterId, limit);
+    }
+
+    public List<Patient> getPatientRange(int offset, int limit) throws Exception {
+        return patientDAO.findRange(offset, limit);
+    }
+
+    public int countPatients() throws Exception {
+        return patientDAO.count();
+    }
+
     public boolean updatePatient(Patient patient) throws Exception {
         boolean ok = patientDAO.update(patient);
         if (ok) cache.put(patient.getPatientId(), patient);
@@ -50,4 +66,8 @@ public class PatientService {
     public List<Patient> searchPatients(String name) throws Exception {
         return patientDAO.searchByName(name);
     }
+
+    public List<Patient> searchPatients(String query, int limit) throws Exception {
+        return patientDAO.search(query, limit);
+    }
 }
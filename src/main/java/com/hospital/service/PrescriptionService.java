@@ -1,23 +1,55 @@
 package com.hospital.service;
 
+import com.hospital.dao.Page;
 import com.hospital.dao.PrescriptionDAO;
 import com.hospital.dao.PrescriptionDAOImpl;
 import com.hospital.model.Prescription;
+import com.hospital.model.PrescriptionItem;
 import com.hospital.util.Cache;
+import com.hospital.util.CacheRegistry;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.EntityChangeEvent.ChangeType;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class PrescriptionService {
     private final PrescriptionDAO dao = new PrescriptionDAOImpl();
-    private final Cache<Integer, Prescription> cache = new Cache<>();
+    private final Cache<Integer, Prescription> cache = CacheRegistry.getOrCreate("prescriptions", () -> {
+        Cache<Integer, Prescription> c = new Cache<>(60, 5_000, 50);
+        c.invalidateOn(EntityType.PRESCRIPTION, EntityChangeEvent::getEntityId);
+        // Deleting a patient cascades to prescriptions; deleting an appointment nulls appointment_id
+        c.onEntityChange(EntityType.PATIENT, PrescriptionService::clearOnDelete);
+        c.onEntityChange(EntityType.APPOINTMENT, PrescriptionService::clearOnDelete);
+        return c;
+    });
+
+    private static void clearOnDelete(Cache<Integer, Prescription> cache, EntityChangeEvent event) {
+        if (event.getChangeType() == ChangeType.DELETED) cache.clear();
+    }
 
     public int createPrescription(int patientId, int doctorId, Integer appointmentId) throws Exception {
         int id = dao.create(patientId, doctorId, appointmentId);
         return id;
     }
 
-    public Prescription getPrescription(int id) throws Exception { Prescription p = cache.get(id); if (p!=null) return p; p = dao.findById(id); if (p!=null) cache.put(id,p); return p; }
+    public Prescription getPrescription(int id) throws Exception { return cache.get(id, dao::findById); }
     public List<Prescription> getByPatient(int patientId) throws Exception { return dao.findByPatient(patientId); }
+    public Page<Prescription> getPageByPatient(int patientId, Prescription after, int limit) throws Exception { return dao.findPageByPatient(patientId, after, limit); }
+    /**
+     * Like getPageByPatient, with each prescription's items loaded in one extra query.
+     */
+    public Page<Prescription> getPageWithItemsByPatient(int patientId, Prescription after, int limit) throws Exception {
+        Page<Prescription> page = dao.findPageByPatient(patientId, after, limit);
+        List<Integer> ids = new ArrayList<>();
+        for (Prescription p : page.getItems()) ids.add(p.getPrescriptionId());
+        Map<Integer, List<PrescriptionItem>> items = dao.findItemsByPrescriptionIds(ids);
+        for (Prescription p : page.getItems()) p.setItems(items.getOrDefault(p.getPrescriptionId(), Collections.emptyList()));
+        return page;
+    }
     public Prescription getByAppointment(int appointmentId) throws Exception { return dao.findByAppointment(appointmentId); }
     public boolean updatePrescription(Prescription p) throws Exception { boolean ok = dao.update(p); if (ok) cache.put(p.getPrescriptionId(), p); return ok; }
     public boolean deletePrescription(int id) throws Exception { boolean ok = dao.delete(id); if (ok) cache.remove(id); return ok; }
@@ -0,0 +1,153 @@
+package com.hospital.service;
+
+import com.hospital.dao.Page;
+import com.hospital.model.Doctor;
+import com.hospital.model.Patient;
+import com.hospital.util.BackgroundScheduler;
+import com.hospital.util.EntityChangeBus;
+import com.hospital.util.EntityChangeEvent;
+import com.hospital.util.EntityChangeEvent.ChangeType;
+import com.hospital.util.EntityChangeEvent.EntityType;
+import com.hospital.util.NGramIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory type-ahead search over patient and doctor names, phones and emails. The
+ * indexes are filled once from the database, then kept current from the entity change bus,
+ * so a lookup never touches PostgreSQL.
+ *
+ * The build and every update run on the background scheduler's single thread, so a change
+ * made while the build is reading is always applied after it, with a fresh copy of the row.
+ */
+public class SearchIndexService {
+    private static final int BUILD_PAGE_SIZE = 5_000;
+
+    private final PatientService patientService = ServiceRegistry.getPatientService();
+    private final DoctorService doctorService = ServiceRegistry.getDoctorService();
+
+    private final NGramIndex<Patient> patients = new NGramIndex<>(Patient::getPatientId,
+            p -> new String[] { p.getFirstName() + " " + p.getLastName(), p.getPhone(), p.getEmail() });
+    private final NGramIndex<Doctor> doctors = new NGramIndex<>(Doctor::getDoctorId,
+            d -> new String[] { d.getFirstName() + " " + d.getLastName(), d.getSpecialization(), d.getPhone(),
+                    d.getEmail() });
+
+    private volatile boolean ready;
+    private boolean buildStarted;
+
+    public SearchIndexService() {
+        EntityChangeBus.subscribe(EntityType.PATIENT, this, SearchIndexService::onPatientChange);
+        EntityChangeBus.subscribe(EntityType.DOCTOR, this, SearchIndexService::onDoctorChange);
+    }
+
+    /**
+     * Starts filling the indexes in the background. Later calls do nothing unless the
+     * previous build failed.
+     */
+    public synchronized void startBuild() {
+        if (buildStarted) {
+            return;
+        }
+        buildStarted = true;
+        BackgroundScheduler.schedule("search-index-build", this::build, 0, TimeUnit.SECONDS);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Patients whose name, phone or email contains the query, best matches first, or null
+     * while the index is still being built.
+     */
+    public List<Patient> searchPatients(String query, int limit) {
+        return ready ? patients.search(query, limit) : null;
+    }
+
+    /**
+     * Doctors whose name, specialization, phone or email contains the query, best matches
+     * first, or null while the index is still being built.
+     */
+    public List<Doctor> searchDoctors(String query, int limit) {
+        return ready ? doctors.search(query, limit) : null;
+    }
+
+    private void build() {
+        try {
+            long start = System.nanoTime();
+            Page<Patient> patientPage = patientService.getPatientPage(0, BUILD_PAGE_SIZE);
+            patientPage.getItems().forEach(patients::put);
+            while (patientPage.hasMore()) {
+                patientPage = patientService.getPatientPage(patientPage.getLast().getPatientId(), BUILD_PAGE_SIZE);
+                patientPage.getItems().forEach(patients::put);
+            }
+            Page<Doctor> doctorPage = doctorService.getPage(0, BUILD_PAGE_SIZE);
+            doctorPage.getItems().forEach(doctors::put);
+            while (doctorPage.hasMore()) {
+                doctorPage = doctorService.getPage(doctorPage.getLast().getDoctorId(), BUILD_PAGE_SIZE);
+                doctorPage.getItems().forEach(doctors::put);
+            }
+            ready = true;
+            System.out.println("Search index built: " + patients.size() + " patients, " + doctors.size()
+                    + " doctors in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (Exception e) {
+            System.err.println("Search index build failed, search uses the database: " + e.getMessage());
+            patients.clear();
+            doctors.clear();
+            synchronized (this) {
+                buildStarted = false;
+            }
+        }
+    }
+
+    /**
+     * Adds patients that were just written, with their ids set, without reading them back.
+     * Bulk writes such as imports use this instead of a change event per row.
+     */
+    public void indexPatients(List<Patient> written) {
+        List<Patient> copy = List.copyOf(written);
+        BackgroundScheduler.schedule("search-index-update", () -> copy.forEach(patients::put), 0, TimeUnit.SECONDS);
+    }
+
+    private void onPatientChange(EntityChangeEvent event) {
+        // Bulk writers hand their patients to indexPatients
+        if (event.isBulk()) {
+            return;
+        }
+        int id = event.getEntityId();
+        boolean deleted = event.getChangeType() == ChangeType.DELETED;
+        BackgroundScheduler.schedule("search-index-update", () -> {
+            try {
+                Patient patient = deleted ? null : patientService.getPatient(id);
+                if (patient == null) {
+                    patients.remove(id);
+                } else {
+                    patients.put(patient);
+                }
+            } catch (Exception e) {
+                // Leaving a stale entry would hide the change from search
+                patients.remove(id);
+                System.err.println("Search index update failed for patient " + id + ": " + e.getMessage());
+            }
+        }, 0, TimeUnit.SECONDS);
+    }
+
+    private void onDoctorChange(EntityChangeEvent event) {
+        int id = event.getEntityId();
+        boolean deleted = event.getChangeType() == ChangeType.DELETED;
+        BackgroundScheduler.schedule("search-index-update", () -> {
+            try {
+                Doctor doctor = deleted ? null : doctorService.getDoctor(id);
+                if (doctor == null) {
+                    doctors.remove(id);
+                } else {
+                    doctors.put(doctor);
+                }
+            } catch (Exception e) {
+                doctors.remove(id);
+                System.err.println("Search index update failed for doctor " + id + ": " + e.getMessage());
+            }
+        }, 0, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,75 @@
+package com.hospital.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Hands out one shared instance of each service, so controllers reuse the same DAOs
+ * and caches instead of warming private copies every time a view is opened.
+ */
+public class ServiceRegistry {
+    private static final Map<Class<?>, Object> instances = new HashMap<>();
+
+    // Not computeIfAbsent: a service constructor may itself ask the registry for another service
+    private static synchronized <T> T singleton(Class<T> type, Supplier<T> factory) {
+        Object instance = instances.get(type);
+        if (instance == null) {
+            instance = factory.get();
+            instances.put(type, instance);
+        }
+        return type.cast(instance);
+    }
+
+    public static PatientService getPatientService() {
+        return singleton(PatientService.class, PatientService::new);
+    }
+
+    public static PatientImportService getPatientImportService() {
+        return singleton(PatientImportService.class, PatientImportService::new);
+    }
+
+    public static DoctorService getDoctorService() {
+        return singleton(DoctorService.class, DoctorService::new);
+    }
+
+    public static DepartmentService getDepartmentService() {
+        return singleton(DepartmentService.class, DepartmentService::new);
+    }
+
+    public static AppointmentService getAppointmentService() {
+        return singleton(AppointmentService.class, AppointmentService::new);
+    }
+
+    public static DoctorAvailabilityService getDoctorAvailabilityService() {
+        return singleton(DoctorAvailabilityService.class, DoctorAvailabilityService::new);
+    }
+
+    public static AppointmentSeriesService getAppointmentSeriesService() {
+        return singleton(AppointmentSeriesService.class, AppointmentSeriesService::new);
+    }
+
+    public static PrescriptionService getPrescriptionService() {
+        return singleton(PrescriptionService.class, PrescriptionService::new);
+    }
+
+    public static MedicalRecordService getMedicalRecordService() {
+        return singleton(MedicalRecordService.class, MedicalRecordService::new);
+    }
+
+    public static NoteService getNoteService() {
+        return singleton(NoteService.class, NoteService::new);
+    }
+
+    public static DashboardService getDashboardService() {
+        return singleton(DashboardService.class, DashboardService::new);
+    }
+
+    public static PatientChartService getPatientChartService() {
+        return singleton(PatientChartService.class, PatientChartService::new);
+    }
+
+    public static SearchIndexService getSearchIndexService() {
+        return singleton(SearchIndexService.class, SearchIndexService::new);
+    }
+}
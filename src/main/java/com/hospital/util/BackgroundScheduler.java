@@ -0,0 +1,51 @@
+package com.hospital.util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One daemon thread shared by all periodic and delayed background jobs, such as the
+ * dashboard refresh, instead of each feature starting its own timer thread.
+ *
+ * Jobs should be short; a slow job delays the others.
+ */
+public class BackgroundScheduler {
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "background-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Runs the job every {@code period}, starting after {@code initialDelay}. A failing run
+     * is logged and does not cancel later runs.
+     */
+    public static ScheduledFuture<?> scheduleAtFixedRate(String name, Runnable job, long initialDelay, long period,
+                                                         TimeUnit unit) {
+        return EXECUTOR.scheduleAtFixedRate(guarded(name, job), initialDelay, period, unit);
+    }
+
+    /**
+     * Runs the job once after {@code delay}.
+     */
+    public static ScheduledFuture<?> schedule(String name, Runnable job, long delay, TimeUnit unit) {
+        return EXECUTOR.schedule(guarded(name, job), delay, unit);
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+    }
+
+    // scheduleAtFixedRate silently stops repeating after the first exception
+    private static Runnable guarded(String name, Runnable job) {
+        return () -> {
+            try {
+                job.run();
+            } catch (RuntimeException e) {
+                System.err.println("Background job " + name + " failed: " + e.getMessage());
+            }
+        };
+    }
+}
@@ -1,41 +1,146 @@
 package com.hospital.util;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
 
 /**
- * Enhanced in-memory cache with TTL (Time To Live) support for database query results.
+ * Bounded in-memory cache with TTL (Time To Live) support for database query results.
+ *
+ * Lookups go straight to a ConcurrentHashMap. Eviction follows a W-TinyLFU policy:
+ * new entries land in a small LRU "window", and when the window overflows its oldest
+ * entry has to beat the least recently used entry of the main region on estimated
+ * access frequency to be admitted. One-off lookups therefore cannot flush hot ids.
+ *
+ * Expiry uses System.nanoTime(), and expired entries are swept in amortized batches
+ * driven by writes, so memory is reclaimed even for keys that are never read again.
+ *
+ * {@link #get(Object, Loader)} turns the cache into a loading cache: concurrent misses
+ * for the same key share one in-flight load, and when a refresh interval is configured
+ * hot entries are reloaded in the background before they expire.
+ *
+ * Invalidation wins over loads in flight: every remove, clear or invalidateIf bumps an
+ * invalidation epoch, and a value loaded before the bump is returned to its caller but not
+ * cached, since it may have been read before the change that caused the invalidation.
  */
 public class Cache<K, V> {
+    private static final long DEFAULT_TTL_MINUTES = 30;
+    private static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final int MIN_SWEEP_INTERVAL = 64;
+    // Per-key invalidation epochs are striped by hash; a bump may also discard a load for
+    // another key in the same stripe, which only costs a reload
+    private static final int EPOCH_STRIPES = 64;
+
+    // Shared by all caches; refreshes are best effort so a small daemon pool is enough
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "cache-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final Map<K, CacheEntry<V>> map = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
     private final long defaultTtlMinutes;
+    private final long refreshAfterNanos;
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int mainMaximum;
+
+    // Eviction policy state, only touched while holding policyLock
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashMap<K, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Boolean> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private final AtomicInteger writesSinceSweep = new AtomicInteger();
+    // Bumped under policyLock: slot EPOCH_STRIPES by clear and invalidateIf, the key's stripe by remove
+    private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES + 1);
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
 
     public Cache() {
-        this.defaultTtlMinutes = 30; // Default 30 minutes TTL
+        this(DEFAULT_TTL_MINUTES, DEFAULT_MAXIMUM_SIZE);
     }
 
     public Cache(long defaultTtlMinutes) {
+        this(defaultTtlMinutes, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param defaultTtlMinutes TTL applied by {@link #put(Object, Object)}
+     * @param maximumSize       maximum number of entries held before eviction kicks in
+     */
+    public Cache(long defaultTtlMinutes, int maximumSize) {
+        this(defaultTtlMinutes, maximumSize, 0);
+    }
+
+    /**
+     * @param defaultTtlMinutes   TTL applied by {@link #put(Object, Object)}
+     * @param maximumSize         maximum number of entries held before eviction kicks in
+     * @param refreshAfterMinutes age after which a hit through {@link #get(Object, Loader)}
+     *                            triggers a background reload; 0 disables refresh-ahead
+     */
+    public Cache(long defaultTtlMinutes, int maximumSize, long refreshAfterMinutes) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
         this.defaultTtlMinutes = defaultTtlMinutes;
+        this.refreshAfterNanos = TimeUnit.MINUTES.toNanos(refreshAfterMinutes);
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.mainMaximum = maximumSize - windowMaximum;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Loads a value for a key that is not cached. DAO lookups throw checked
+     * exceptions, so this is used instead of java.util.function.Function.
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws Exception;
     }
 
     private static class CacheEntry<V> {
         private final V value;
-        private final LocalDateTime expiryTime;
+        private final long writtenAtNanos;
+        private final long expiresAtNanos;
 
-        public CacheEntry(V value, long ttlMinutes) {
+        public CacheEntry(V value, long ttlNanos) {
             this.value = value;
-            this.expiryTime = LocalDateTime.now().plusMinutes(ttlMinutes);
+            this.writtenAtNanos = System.nanoTime();
+            this.expiresAtNanos = writtenAtNanos + ttlNanos;
         }
 
         public V getValue() {
             return value;
         }
 
-        public boolean isExpired() {
-            return LocalDateTime.now().isAfter(expiryTime);
+        public boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+
+        public boolean isDueForRefresh(long nowNanos, long refreshAfterNanos) {
+            return refreshAfterNanos > 0 && nowNanos - writtenAtNanos >= refreshAfterNanos;
         }
     }
 
@@ -44,69 +149,492 @@ public class Cache<K, V> {
     }
 
     public void put(K key, V value, long ttlMinutes) {
-        map.put(key, new CacheEntry<>(value, ttlMinutes));
+        CacheEntry<V> entry = new CacheEntry<>(value, TimeUnit.MINUTES.toNanos(ttlMinutes));
+        policyLock.lock();
+        try {
+            CacheEntry<V> previous = map.put(key, entry);
+            sketch.increment(key);
+            if (previous == null) {
+                window.put(key, Boolean.TRUE);
+                evictIfNeeded();
+            } else {
+                touch(key);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        afterWrite();
+    }
+
+    /**
+     * The key's invalidation stamp, to pass to {@link #putIfNotInvalidated} after loading
+     * its value outside the cache.
+     */
+    public long invalidationStamp(K key) {
+        return epochs.get(EPOCH_STRIPES) + epochs.get(stripe(key));
+    }
+
+    /**
+     * Caches a value loaded outside the cache unless the key was invalidated since the
+     * stamp was taken, i.e. while the value was being read.
+     *
+     * @return whether the value was cached
+     */
+    public boolean putIfNotInvalidated(K key, V value, long stamp) {
+        policyLock.lock();
+        try {
+            if (invalidationStamp(key) != stamp) {
+                return false;
+            }
+            // Reentrant: put takes policyLock again
+            put(key, value);
+            return true;
+        } finally {
+            policyLock.unlock();
+        }
     }
 
     public V get(K key) {
         CacheEntry<V> entry = map.get(key);
-        if (entry != null && !entry.isExpired()) {
+        if (entry == null) {
+            missCount.increment();
+            recordAccess(key, false);
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            removeExpired(key, entry);
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        recordAccess(key, true);
+        return entry.getValue();
+    }
+
+    /**
+     * Returns the cached value for the key, or loads, caches and returns it when absent.
+     * Concurrent callers missing on the same key wait for a single load instead of each
+     * calling the loader. A null result from the loader is returned but not cached.
+     */
+    public V get(K key, Loader<? super K, ? extends V> loader) throws Exception {
+        CacheEntry<V> entry = map.get(key);
+        long now = System.nanoTime();
+        if (entry != null && !entry.isExpired(now)) {
+            hitCount.increment();
+            recordAccess(key, true);
+            if (entry.isDueForRefresh(now, refreshAfterNanos)) {
+                refreshAsync(key, entry, loader);
+            }
             return entry.getValue();
-        } else if (entry != null && entry.isExpired()) {
-            map.remove(key); // Clean up expired entry
         }
-        return null;
+        if (entry != null) {
+            removeExpired(key, entry);
+        }
+        missCount.increment();
+        recordAccess(key, false);
+        return loadCoalesced(key, loader);
+    }
+
+    private V loadCoalesced(K key, Loader<? super K, ? extends V> loader) throws Exception {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            long stamp = invalidationStamp(key);
+            // Another caller may have finished loading between our miss and registering the future
+            CacheEntry<V> entry = map.get(key);
+            V value;
+            if (entry != null && !entry.isExpired(System.nanoTime())) {
+                value = entry.getValue();
+            } else {
+                value = load(key, loader);
+                if (value != null) {
+                    putIfNotInvalidated(key, value, stamp);
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private void refreshAsync(K key, CacheEntry<V> current, Loader<? super K, ? extends V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, future) != null) {
+            return; // already loading or refreshing
+        }
+        refreshCount.increment();
+        long stamp = invalidationStamp(key);
+        REFRESH_EXECUTOR.execute(() -> {
+            try {
+                V value = load(key, loader);
+                if (value != null) {
+                    replaceIfCurrent(key, current, value, stamp);
+                }
+                future.complete(value);
+            } catch (Exception e) {
+                // Keep serving the current value until it expires
+                System.err.println("Cache refresh failed for key " + key + ": " + e.getMessage());
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, future);
+            }
+        });
+    }
+
+    private V load(K key, Loader<? super K, ? extends V> loader) throws Exception {
+        long start = System.nanoTime();
+        try {
+            V value = loader.load(key);
+            loadSuccessCount.increment();
+            return value;
+        } catch (Exception e) {
+            loadFailureCount.increment();
+            throw e;
+        } finally {
+            totalLoadTimeNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    // A refresh must not resurrect an entry that was removed, overwritten or invalidated while it was loading
+    private void replaceIfCurrent(K key, CacheEntry<V> expected, V value, long stamp) {
+        policyLock.lock();
+        try {
+            if (invalidationStamp(key) == stamp && map.replace(key, expected, new CacheEntry<>(value, TimeUnit.MINUTES.toNanos(defaultTtlMinutes)))) {
+                touch(key);
+            }
+        } finally {
+            policyLock.unlock();
+        }
     }
 
     public void remove(K key) {
-        map.remove(key);
+        policyLock.lock();
+        try {
+            // Even when absent: the key may be loading
+            epochs.incrementAndGet(stripe(key));
+            if (map.remove(key) != null) {
+                window.remove(key);
+                main.remove(key);
+            }
+        } finally {
+            policyLock.unlock();
+        }
     }
 
     public void clear() {
-        map.clear();
+        policyLock.lock();
+        try {
+            epochs.incrementAndGet(EPOCH_STRIPES);
+            map.clear();
+            window.clear();
+            main.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes every entry whose key and value match the predicate.
+     */
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        policyLock.lock();
+        try {
+            // Values still loading cannot be tested, so they are all discarded
+            epochs.incrementAndGet(EPOCH_STRIPES);
+            Iterator<Map.Entry<K, CacheEntry<V>>> it = map.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, CacheEntry<V>> e = it.next();
+                if (predicate.test(e.getKey(), e.getValue().getValue())) {
+                    it.remove();
+                    window.remove(e.getKey());
+                    main.remove(e.getKey());
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the entry keyed by {@code keyOf(event)} whenever an entity of the given type
+     * changes. Keyed-by-id caches pass {@code EntityChangeEvent::getEntityId}.
+     */
+    public void invalidateOn(EntityChangeEvent.EntityType type, Function<EntityChangeEvent, ? extends K> keyOf) {
+        onEntityChange(type, (cache, event) -> {
+            K key = keyOf.apply(event);
+            if (key != null) {
+                cache.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Runs an invalidation action against this cache whenever an entity of the given
+     * type changes. The subscription lives as long as this cache does.
+     */
+    public void onEntityChange(EntityChangeEvent.EntityType type, BiConsumer<Cache<K, V>, EntityChangeEvent> action) {
+        EntityChangeBus.subscribe(type, this, action);
     }
 
     public boolean containsKey(K key) {
         CacheEntry<V> entry = map.get(key);
-        return entry != null && !entry.isExpired();
+        return entry != null && !entry.isExpired(System.nanoTime());
     }
 
     public int size() {
         // Clean up expired entries and count valid ones
-        map.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        cleanUp();
         return map.size();
     }
 
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Removes every expired entry. Normally driven by writes, but callers that go
+     * quiet for a long time may invoke it directly.
+     */
+    public void cleanUp() {
+        writesSinceSweep.set(0);
+        long now = System.nanoTime();
+        policyLock.lock();
+        try {
+            Iterator<Map.Entry<K, CacheEntry<V>>> it = map.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, CacheEntry<V>> e = it.next();
+                if (e.getValue().isExpired(now)) {
+                    it.remove();
+                    window.remove(e.getKey());
+                    main.remove(e.getKey());
+                    expiredCount.increment();
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
     /**
      * Gets cache statistics.
      */
     public CacheStats getStats() {
-        int totalEntries = map.size();
-        int expiredEntries = 0;
-        long totalAccessTime = 0;
+        return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+                totalLoadTimeNanos.sum(), evictionCount.sum(), expiredCount.sum(), refreshCount.sum(),
+                map.size(), maximumSize);
+    }
+
+    // Sweeping costs O(size), so trigger it every size/4 writes to keep the per-write cost constant
+    private void afterWrite() {
+        int threshold = Math.max(MIN_SWEEP_INTERVAL, map.size() / 4);
+        if (writesSinceSweep.incrementAndGet() >= threshold) {
+            cleanUp();
+        }
+    }
+
+    // Reads never block on the policy lock; under contention the frequency/recency update is dropped
+    private void recordAccess(K key, boolean present) {
+        if (policyLock.tryLock()) {
+            try {
+                sketch.increment(key);
+                if (present) {
+                    touch(key);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    private void removeExpired(K key, CacheEntry<V> entry) {
+        policyLock.lock();
+        try {
+            if (map.remove(key, entry)) {
+                window.remove(key);
+                main.remove(key);
+                expiredCount.increment();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (EPOCH_STRIPES - 1);
+    }
 
-        for (CacheEntry<V> entry : map.values()) {
-            if (entry.isExpired()) {
-                expiredEntries++;
+    private void touch(K key) {
+        if (window.get(key) == null) {
+            main.get(key);
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (window.size() > windowMaximum) {
+            K candidate = window.keySet().iterator().next();
+            window.remove(candidate);
+            if (main.size() < mainMaximum) {
+                main.put(candidate, Boolean.TRUE);
+                continue;
+            }
+            if (main.isEmpty()) {
+                evict(candidate);
+                continue;
+            }
+            K victim = main.keySet().iterator().next();
+            if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+                main.remove(victim);
+                evict(victim);
+                main.put(candidate, Boolean.TRUE);
+            } else {
+                evict(candidate);
             }
         }
+    }
 
-        return new CacheStats(totalEntries, expiredEntries, totalEntries - expiredEntries);
+    private void evict(K key) {
+        if (map.remove(key) != null) {
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit saturating counters used to estimate how often a key
+     * has been requested. Counters are halved periodically so old popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x97cb3127, 0xb1a4f1e5, 0x6d2b79f5, 0x2545f491};
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize) {
+            int width = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        int frequency(Object key) {
+            int hash = spread(key.hashCode());
+            int min = MAX_COUNT;
+            for (int i = 0; i < DEPTH; i++) {
+                min = Math.min(min, table[i][index(hash, i)]);
+            }
+            return min;
+        }
+
+        void increment(Object key) {
+            int hash = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int idx = index(hash, i);
+                if (table[i][idx] < MAX_COUNT) {
+                    table[i][idx]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = (byte) (row[j] >>> 1);
+                }
+            }
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            int h = hash * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 17;
+            h *= 0xed5ad4bb;
+            h ^= h >>> 11;
+            return h;
+        }
     }
 
     public static class CacheStats {
-        private final int totalEntries;
-        private final int expiredEntries;
-        private final int activeEntries;
+        private final long hitCount;
+        private final long missCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long totalLoadTimeNanos;
+        private final long evictionCount;
+        private final long expiredCount;
+        private final long refreshCount;
+        private final int size;
+        private final int maximumSize;
 
-        public CacheStats(int totalEntries, int expiredEntries, int activeEntries) {
-            this.totalEntries = totalEntries;
-            this.expiredEntries = expiredEntries;
-            this.activeEntries = activeEntries;
+        public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                          long totalLoadTimeNanos, long evictionCount, long expiredCount, long refreshCount,
+                          int size, int maximumSize) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadTimeNanos = totalLoadTimeNanos;
+            this.evictionCount = evictionCount;
+            this.expiredCount = expiredCount;
+            this.refreshCount = refreshCount;
+            this.size = size;
+            this.maximumSize = maximumSize;
         }
 
-        public int getTotalEntries() { return totalEntries; }
-        public int getExpiredEntries() { return expiredEntries; }
-        public int getActiveEntries() { return activeEntries; }
-        public double getHitRate() { return totalEntries > 0 ? (double) activeEntries / totalEntries : 0.0; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getRequestCount() { return hitCount + missCount; }
+        public long getLoadSuccessCount() { return loadSuccessCount; }
+        public long getLoadFailureCount() { return loadFailureCount; }
+        public long getLoadCount() { return loadSuccessCount + loadFailureCount; }
+        public long getTotalLoadTimeNanos() { return totalLoadTimeNanos; }
+        public long getEvictionCount() { return evictionCount; }
+        public long getExpiredCount() { return expiredCount; }
+        public long getRefreshCount() { return refreshCount; }
+        public int getSize() { return size; }
+        public int getMaximumSize() { return maximumSize; }
+        public double getHitRate() { return getRequestCount() > 0 ? (double) hitCount / getRequestCount() : 0.0; }
+        public double getMissRate() { return getRequestCount() > 0 ? (double) missCount / getRequestCount() : 0.0; }
+        public double getAverageLoadPenaltyNanos() { return getLoadCount() > 0 ? (double) totalLoadTimeNanos / getLoadCount() : 0.0; }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hitRate=%.1f%%, loads=%d, evictions=%d, size=%d/%d",
+                    hitCount, missCount, getHitRate() * 100, getLoadCount(), evictionCount, size, maximumSize);
+        }
     }
 }
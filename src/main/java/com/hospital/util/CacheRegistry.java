@@ -0,0 +1,49 @@
+package com.hospital.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of named caches. Every component asking for the same name
+ * gets the same Cache instance, so entries are warmed once and shared by all screens.
+ */
+public class CacheRegistry {
+    private static final Map<String, Cache<?, ?>> caches = new LinkedHashMap<>();
+
+    /**
+     * Returns the cache registered under the name, creating it with the factory on first use.
+     * The factory is also the place to set up invalidation subscriptions, so they are
+     * registered exactly once per cache.
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <K, V> Cache<K, V> getOrCreate(String name, Supplier<Cache<K, V>> factory) {
+        Cache<?, ?> cache = caches.get(name);
+        if (cache == null) {
+            cache = factory.get();
+            caches.put(name, cache);
+        }
+        return (Cache<K, V>) cache;
+    }
+
+    /**
+     * Gets a statistics snapshot for every registered cache, sorted by name.
+     */
+    public static synchronized Map<String, Cache.CacheStats> getAllStats() {
+        Map<String, Cache.CacheStats> stats = new TreeMap<>();
+        for (Map.Entry<String, Cache<?, ?>> e : caches.entrySet()) {
+            stats.put(e.getKey(), e.getValue().getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Empties every registered cache. Statistics are kept.
+     */
+    public static synchronized void clearAll() {
+        for (Cache<?, ?> cache : new LinkedHashMap<>(caches).values()) {
+            cache.clear();
+        }
+    }
+}
@@ -10,6 +10,8 @@ import java.sql.SQLException;
  * Singleton connection pool using HikariCP for PostgreSQL
  */
 public class DatabaseConnection {
+    public static final int MAXIMUM_POOL_SIZE = 10;
+
     private static HikariDataSource dataSource;
 
     static {
@@ -27,7 +29,7 @@ public class DatabaseConnection {
             config.setUsername(user);
             config.setPassword(pass);
             config.setDriverClassName("org.postgresql.Driver");
-            config.setMaximumPoolSize(10);
+            config.setMaximumPoolSize(MAXIMUM_POOL_SIZE);
             config.setMinimumIdle(2);
             config.setPoolName("HMSPool");
 
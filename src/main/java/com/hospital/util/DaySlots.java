@@ -0,0 +1,78 @@
+package com.hospital.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+
+/**
+ * One doctor's booked times for one day as a bitmap of {@link #SLOT_MINUTES}-minute slots,
+ * packed into two longs. A slot's bit is set when a scheduled appointment starts anywhere
+ * inside it, so a clear bit proves the doctor is free at every time in that slot, while a
+ * set bit only says some time in it is taken.
+ *
+ * Immutable, so one instance can be shared through a cache; a change to the day replaces it.
+ */
+public class DaySlots {
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private final long[] bits = new long[(SLOTS_PER_DAY + 63) / 64];
+
+    public DaySlots(Collection<LocalTime> bookedTimes) {
+        for (LocalTime time : bookedTimes) {
+            int slot = slotOf(time);
+            bits[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    /**
+     * The key a doctor's day is cached and announced under, e.g. "12@2024-05-01".
+     */
+    public static String key(int doctorId, LocalDate date) {
+        return doctorId + "@" + date;
+    }
+
+    public static int slotOf(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    public static LocalTime startOf(int slot) {
+        return LocalTime.MIDNIGHT.plusMinutes((long) slot * SLOT_MINUTES);
+    }
+
+    /**
+     * The first slot starting at or after the time.
+     */
+    public static int firstSlotFrom(LocalTime time) {
+        int slot = slotOf(time);
+        return time.equals(startOf(slot)) ? slot : slot + 1;
+    }
+
+    public boolean isFree(int slot) {
+        return (bits[slot >>> 6] & (1L << slot)) == 0;
+    }
+
+    /**
+     * The first free slot in [from, to), or -1 if there is none. Scans a word at a time.
+     */
+    public int nextFree(int from, int to) {
+        for (int slot = from; slot < to; ) {
+            int word = slot >>> 6;
+            // Shift counts are taken mod 64, so this masks off the slots before 'slot' in its word
+            long free = ~bits[word] & (-1L << slot);
+            if (free != 0) {
+                int found = (word << 6) + Long.numberOfTrailingZeros(free);
+                return found < to ? found : -1;
+            }
+            slot = (word + 1) << 6;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether any scheduled appointment starts in the slot holding the time.
+     */
+    public boolean isTaken(LocalTime time) {
+        return !isFree(slotOf(time));
+    }
+}
@@ -0,0 +1,79 @@
+package com.hospital.util;
+
+import java.lang.ref.WeakReference;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * In-process publish/subscribe bus for entity writes. DAOs publish after a write
+ * succeeds and caches subscribe to evict whatever the write made stale.
+ *
+ * Subscribers are held weakly through an owner object, so a cache that is no longer
+ * referenced anywhere else is dropped from the bus instead of being kept alive by it.
+ * Handlers run synchronously on the publishing thread.
+ */
+public class EntityChangeBus {
+    private static final Map<EntityChangeEvent.EntityType, List<Subscription<?>>> subscriptions =
+            new EnumMap<>(EntityChangeEvent.EntityType.class);
+
+    static {
+        for (EntityChangeEvent.EntityType type : EntityChangeEvent.EntityType.values()) {
+            subscriptions.put(type, new CopyOnWriteArrayList<>());
+        }
+    }
+
+    private static class Subscription<T> {
+        private final WeakReference<T> owner;
+        private final BiConsumer<? super T, EntityChangeEvent> handler;
+
+        Subscription(T owner, BiConsumer<? super T, EntityChangeEvent> handler) {
+            this.owner = new WeakReference<>(owner);
+            this.handler = handler;
+        }
+
+        /**
+         * @return false once the owner has been garbage collected
+         */
+        boolean deliver(EntityChangeEvent event) {
+            T target = owner.get();
+            if (target == null) {
+                return false;
+            }
+            handler.accept(target, event);
+            return true;
+        }
+    }
+
+    /**
+     * Subscribes to changes of one entity type for as long as the owner is reachable.
+     * The handler receives the owner as its first argument and must not capture it,
+     * otherwise the owner can never be collected.
+     */
+    public static <T> void subscribe(EntityChangeEvent.EntityType type, T owner,
+                                     BiConsumer<? super T, EntityChangeEvent> handler) {
+        subscriptions.get(type).add(new Subscription<>(owner, handler));
+    }
+
+    /**
+     * Publishes a change to every live subscriber of its entity type.
+     */
+    public static void publish(EntityChangeEvent event) {
+        List<Subscription<?>> list = subscriptions.get(event.getEntityType());
+        for (Subscription<?> subscription : list) {
+            try {
+                if (!subscription.deliver(event)) {
+                    list.remove(subscription);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Entity change handler failed for " + event + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public static void publish(EntityChangeEvent.EntityType type, EntityChangeEvent.ChangeType change, int id) {
+        publish(new EntityChangeEvent(type, change, id));
+    }
+}
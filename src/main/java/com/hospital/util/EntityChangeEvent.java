@@ -0,0 +1,100 @@
+package com.hospital.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Describes a committed write to one entity row, published on the {@link EntityChangeBus}.
+ * A bulk event (see {@link #bulk}) describes the same change to many rows at once, e.g. a
+ * chunk of an import; it has no single entity id.
+ */
+public class EntityChangeEvent {
+    private static final String PATIENT_KEY_PREFIX = "patient:";
+
+    public enum EntityType {
+        PATIENT, DOCTOR, DEPARTMENT, APPOINTMENT, APPOINTMENT_SERIES, PRESCRIPTION, MEDICAL_RECORD
+    }
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final EntityType entityType;
+    private final ChangeType changeType;
+    private final Integer entityId;
+    private final List<Integer> entityIds;
+    private final Set<String> searchKeys;
+
+    public EntityChangeEvent(EntityType entityType, ChangeType changeType, int entityId) {
+        this(entityType, changeType, entityId, Collections.emptySet());
+    }
+
+    /**
+     * @param searchKeys lower-cased values the row can be found by (e.g. names), used by
+     *                   search caches to decide which cached queries may now match it
+     */
+    public EntityChangeEvent(EntityType entityType, ChangeType changeType, int entityId, Set<String> searchKeys) {
+        this(entityType, changeType, entityId, List.of(entityId), searchKeys);
+    }
+
+    private EntityChangeEvent(EntityType entityType, ChangeType changeType, Integer entityId, List<Integer> entityIds,
+                              Set<String> searchKeys) {
+        this.entityType = entityType;
+        this.changeType = changeType;
+        this.entityId = entityId;
+        this.entityIds = entityIds;
+        this.searchKeys = Collections.unmodifiableSet(new LinkedHashSet<>(searchKeys));
+    }
+
+    /**
+     * One event for the same change to many rows. Subscribers that act per row should
+     * check {@link #isBulk()}; anything keyed by {@link #getEntityId()} sees null.
+     */
+    public static EntityChangeEvent bulk(EntityType entityType, ChangeType changeType, Collection<Integer> entityIds) {
+        return new EntityChangeEvent(entityType, changeType, null,
+                Collections.unmodifiableList(new ArrayList<>(entityIds)), Collections.emptySet());
+    }
+
+    public EntityType getEntityType() { return entityType; }
+    public ChangeType getChangeType() { return changeType; }
+    public Integer getEntityId() { return entityId; }
+    public List<Integer> getEntityIds() { return entityIds; }
+    public boolean isBulk() { return entityId == null; }
+    public Set<String> getSearchKeys() { return searchKeys; }
+
+    /**
+     * The search key naming a patient a row belongs to, so per-patient caches can drop just
+     * that patient's entries. Distinct from any other kind of key, e.g. DaySlots keys.
+     */
+    public static String patientKey(int patientId) {
+        return PATIENT_KEY_PREFIX + patientId;
+    }
+
+    public static boolean isPatientKey(String key) {
+        return key.startsWith(PATIENT_KEY_PREFIX);
+    }
+
+    /**
+     * The patients named by {@link #patientKey} search keys; empty if the publisher did not say.
+     */
+    public Set<Integer> getPatientIds() {
+        Set<Integer> ids = new TreeSet<>();
+        for (String key : searchKeys) {
+            if (isPatientKey(key)) {
+                ids.add(Integer.parseInt(key.substring(PATIENT_KEY_PREFIX.length())));
+            }
+        }
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        String ids = isBulk() ? "ids=" + entityIds.size() + " rows" : "id=" + entityId;
+        return "EntityChangeEvent{" + entityType + " " + changeType + " " + ids + ", searchKeys=" + searchKeys + '}';
+    }
+}
@@ -0,0 +1,149 @@
+package com.hospital.util;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * An int-keyed hash index (open addressing, linear probing) for looking entities up by
+ * id without boxing the key. {@link #of} keeps an index in step with an ObservableList,
+ * so screens can resolve ids from table cells in constant time instead of scanning.
+ *
+ * Not thread-safe; an index bound to a list is only touched on the FX application thread.
+ */
+public class IntObjectIndex<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+
+    public IntObjectIndex() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Creates an index over the list's current items that follows later adds, removes and
+     * replacements.
+     */
+    public static <V> IntObjectIndex<V> of(ObservableList<V> list, ToIntFunction<? super V> keyOf) {
+        IntObjectIndex<V> index = new IntObjectIndex<>();
+        for (V value : list) {
+            index.put(keyOf.applyAsInt(value), value);
+        }
+        list.addListener((ListChangeListener<V>) c -> {
+            while (c.next()) {
+                if (c.wasPermutated() || c.wasUpdated()) {
+                    continue;
+                }
+                for (V removed : c.getRemoved()) {
+                    index.remove(keyOf.applyAsInt(removed), removed);
+                }
+                for (V added : c.getAddedSubList()) {
+                    index.put(keyOf.applyAsInt(added), added);
+                }
+            }
+        });
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    public void put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        // Keep probe chains short: grow at 50% load
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    public void remove(int key) {
+        remove(key, null);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        keys = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Removes the key, but only if it maps to {@code expected} when that is non-null, so a
+     * stale removal cannot drop a newer entry for the same id.
+     */
+    private void remove(int key, Object expected) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null || (expected != null && values[i] != expected)) {
+            return;
+        }
+        values[i] = null;
+        size--;
+        // Shift later entries of the probe chain back so lookups never stop at the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                values[j] = null;
+                hole = j;
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i], mask);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private static int slot(int key, int mask) {
+        // Fibonacci hashing spreads sequential ids across the table
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
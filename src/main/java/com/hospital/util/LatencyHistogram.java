@@ -0,0 +1,129 @@
+package com.hospital.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, thread-safe latency histogram in nanoseconds.
+ *
+ * Buckets are log-linear in the style of HdrHistogram: every power of two is split
+ * into 16 linear sub-buckets, so any recorded value is reported within about 3% of its
+ * true value. Values from 0 ns up to 2^40 ns (about 18 minutes) fit in 608 counters,
+ * so memory stays constant however many samples are recorded.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final AtomicLong firstRecordNanos = new AtomicLong();
+
+    /**
+     * Records one latency sample. Negative values are treated as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(indexOf(Math.min(value, MAX_VALUE)));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+        if (firstRecordNanos.get() == 0) {
+            firstRecordNanos.compareAndSet(0, System.nanoTime());
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Takes a consistent-enough copy of the counters for percentile calculations.
+     * Samples recorded while the copy is taken may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = buckets.get(i);
+            total += copy[i];
+        }
+        long first = firstRecordNanos.get();
+        long elapsed = first == 0 ? 0 : System.nanoTime() - first;
+        return new Snapshot(copy, total, sum.sum(), max.get(), elapsed);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Midpoint of the range of values that map to the bucket
+    static long valueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lower = (long) (SUB_BUCKETS | subBucket) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+
+    public static class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long sumNanos;
+        private final long maxNanos;
+        private final long elapsedNanos;
+
+        Snapshot(long[] buckets, long count, long sumNanos, long maxNanos, long elapsedNanos) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getCount() { return count; }
+        public long getMaxNanos() { return maxNanos; }
+        public double getMeanNanos() { return count > 0 ? (double) sumNanos / count : 0.0; }
+
+        /**
+         * Samples per second since the first one was recorded.
+         */
+        public double getThroughputPerSecond() {
+            return elapsedNanos > 0 ? count / (elapsedNanos / 1_000_000_000.0) : 0.0;
+        }
+
+        /**
+         * @param percentile value between 0 and 100, e.g. 99.9
+         * @return the latency in nanoseconds at or below which that share of samples fell
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return Math.min(valueOf(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.hospital.util;
+
+import javafx.collections.ObservableListBase;
+import javafx.concurrent.Task;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * A read-only list whose size comes from a count query and whose rows are fetched in
+ * fixed-size blocks only when a TableView asks for them. Rows not loaded yet read as
+ * null (cell factories must allow for that) and are filled in once their block arrives.
+ * At most {@code maxBlocks} blocks are kept, least recently used first out, and the
+ * block after the one being read is prefetched in the background.
+ *
+ * All methods must be called on the FX application thread.
+ */
+public class LazyPagedList<T> extends ObservableListBase<T> {
+
+    /**
+     * Supplies the row count and blocks of rows for a LazyPagedList.
+     */
+    public interface BlockSource<T> {
+        int count() throws Exception;
+
+        /**
+         * Fetches up to {@code limit} rows starting at {@code offset}. {@code previous} is the
+         * row just before the block when it is loaded, so the source can seek from it
+         * instead of using OFFSET; null otherwise.
+         */
+        List<T> fetch(T previous, int offset, int limit) throws Exception;
+    }
+
+    private final int blockSize;
+    private final Map<Integer, List<T>> blocks;
+    private final Set<Integer> pending = new HashSet<>();
+
+    private BlockSource<T> source;
+    private int size;
+    private boolean counting;
+    private boolean failed;
+    // Bumped on every reload so blocks from an earlier source or count are dropped
+    private int generation;
+    private Runnable onReloaded;
+    private Consumer<Throwable> onFailed = e -> AlertUtil.showError("Load Error", e.getMessage());
+
+    public LazyPagedList(int blockSize, int maxBlocks, BlockSource<T> source) {
+        this.blockSize = blockSize;
+        this.source = source;
+        this.blocks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxBlocks;
+            }
+        };
+    }
+
+    /**
+     * Called after each reload has fetched the count and the first block.
+     */
+    public void setOnReloaded(Runnable onReloaded) {
+        this.onReloaded = onReloaded;
+    }
+
+    /**
+     * Called when a count or block fails to load; shows an error alert by default.
+     */
+    public void setOnFailed(Consumer<Throwable> onFailed) {
+        this.onFailed = onFailed;
+    }
+
+    /**
+     * Recounts and reloads from the current source.
+     */
+    public void reload() {
+        reload(source);
+    }
+
+    /**
+     * Switches to a new source, e.g. another date. The current rows stay visible until the
+     * new count and first block have arrived, then the whole list is replaced at once.
+     */
+    public void reload(BlockSource<T> newSource) {
+        generation++;
+        source = newSource;
+        counting = true;
+        failed = false;
+        pending.clear();
+        int requestGeneration = generation;
+        BlockSource<T> requestSource = newSource;
+        int[] count = new int[1];
+
+        Task<List<T>> task = new Task<>() {
+            @Override
+            protected List<T> call() throws Exception {
+                count[0] = requestSource.count();
+                return count[0] == 0 ? Collections.emptyList() : requestSource.fetch(null, 0, blockSize);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            counting = false;
+            int oldSize = size;
+            blocks.clear();
+            blocks.put(0, task.getValue());
+            size = count[0];
+            beginChange();
+            if (oldSize > 0) {
+                nextRemove(0, Collections.nCopies(oldSize, null));
+            }
+            if (size > 0) {
+                nextAdd(0, size);
+            }
+            endChange();
+            if (onReloaded != null) {
+                onReloaded.run();
+            }
+        });
+        task.setOnFailed(e -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            counting = false;
+            failed = true;
+            onFailed.accept(task.getException());
+        });
+        try {
+            TaskExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            counting = false;
+            failed = true;
+            onFailed.accept(e);
+        }
+    }
+
+    /**
+     * Returns the row, or null while its block is still loading.
+     */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int block = index / blockSize;
+        List<T> rows = blocks.get(block);
+        if (rows == null) {
+            request(block);
+            return null;
+        }
+        // Past the middle of a block, fetch the next one before it scrolls into view
+        if (index % blockSize >= blockSize / 2 && (block + 1) * blockSize < size && !blocks.containsKey(block + 1)) {
+            request(block + 1);
+        }
+        int offset = index % blockSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Whether the row's block is in memory, i.e. get() returns the row rather than null.
+     */
+    public boolean isLoaded(int index) {
+        return blocks.containsKey(index / blockSize);
+    }
+
+    private void request(int block) {
+        // While a reload is counting, the old size no longer matches the new source
+        if (counting || failed || source == null || !pending.add(block)) {
+            return;
+        }
+        int requestGeneration = generation;
+        BlockSource<T> requestSource = source;
+        int offset = block * blockSize;
+        List<T> previousBlock = blocks.get(block - 1);
+        T previous = previousBlock == null || previousBlock.size() < blockSize ? null : previousBlock.get(blockSize - 1);
+
+        Task<List<T>> task = new Task<>() {
+            @Override
+            protected List<T> call() throws Exception {
+                return requestSource.fetch(previous, offset, blockSize);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            pending.remove(block);
+            List<T> rows = task.getValue();
+            blocks.put(block, rows);
+            int end = Math.min(size, offset + rows.size());
+            if (end > offset) {
+                beginChange();
+                for (int i = offset; i < end; i++) {
+                    nextSet(i, null);
+                }
+                endChange();
+            }
+        });
+        task.setOnFailed(e -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            pending.remove(block);
+            // Stop requesting until the next reload rather than retrying on every repaint
+            failed = true;
+            onFailed.accept(task.getException());
+        });
+        try {
+            TaskExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Called from get() during layout, which must not throw; the rows stay null and
+            // the block is requested again the next time one of them is read
+            pending.remove(block);
+        }
+    }
+}
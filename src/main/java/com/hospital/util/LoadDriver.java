@@ -0,0 +1,296 @@
+package com.hospital.util;
+
+import com.hospital.model.Appointment;
+import com.hospital.model.Doctor;
+import com.hospital.service.AppointmentService;
+import com.hospital.service.DoctorService;
+import com.hospital.service.MedicalRecordService;
+import com.hospital.service.PatientService;
+import com.hospital.service.PrescriptionService;
+import com.hospital.service.ServiceRegistry;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-threaded load driver that replays a realistic mix of front-desk operations through
+ * the services (so caches are exercised as they are in the application) and reports
+ * throughput and latency percentiles per operation.
+ *
+ * Write operations (scheduling, which inserts real appointments for whichever patients and
+ * doctors are in the database) only run when the driver is created with writes enabled, which
+ * should only be done against a test database. Otherwise the mix is read-only.
+ */
+public class LoadDriver {
+
+    /**
+     * Operations in the mix, with their relative weights.
+     */
+    public enum Operation {
+        SEARCH_PATIENTS(35),
+        VIEW_PATIENT(20),
+        PATIENT_APPOINTMENTS(15),
+        PATIENT_RECORDS(10),
+        PATIENT_PRESCRIPTIONS(8),
+        SEARCH_DOCTORS(5),
+        SCHEDULE_APPOINTMENT(7, true);
+
+        private final int weight;
+        private final boolean write;
+
+        Operation(int weight) {
+            this(weight, false);
+        }
+
+        Operation(int weight, boolean write) {
+            this.weight = weight;
+            this.write = write;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public boolean isWrite() {
+            return write;
+        }
+    }
+
+    private static class OperationMetrics {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+    }
+
+    private final int threads;
+    private final Duration duration;
+    private final long seed;
+    private final boolean writes;
+
+    private final PatientService patientService = ServiceRegistry.getPatientService();
+    private final DoctorService doctorService = ServiceRegistry.getDoctorService();
+    private final AppointmentService appointmentService = ServiceRegistry.getAppointmentService();
+    private final MedicalRecordService medicalRecordService = ServiceRegistry.getMedicalRecordService();
+    private final PrescriptionService prescriptionService = ServiceRegistry.getPrescriptionService();
+
+    private final Operation[] schedule;
+    private final Map<Operation, OperationMetrics> metrics = new EnumMap<>(Operation.class);
+
+    private int minPatientId;
+    private int maxPatientId;
+    private int[] doctorIds;
+
+    /**
+     * A read-only driver.
+     */
+    public LoadDriver(int threads, Duration duration, long seed) {
+        this(threads, duration, seed, false);
+    }
+
+    /**
+     * @param writes whether to include write operations, which change the data in the database
+     */
+    public LoadDriver(int threads, Duration duration, long seed, boolean writes) {
+        this.threads = threads;
+        this.duration = duration;
+        this.seed = seed;
+        this.writes = writes;
+
+        int total = 0;
+        for (Operation op : Operation.values()) {
+            if (writes || !op.isWrite()) {
+                total += op.getWeight();
+            }
+            metrics.put(op, new OperationMetrics());
+        }
+        // Expand the weights once so picking an operation is a single array lookup
+        schedule = new Operation[total];
+        int i = 0;
+        for (Operation op : Operation.values()) {
+            if (!writes && op.isWrite()) {
+                continue;
+            }
+            for (int w = 0; w < op.getWeight(); w++) {
+                schedule[i++] = op;
+            }
+        }
+    }
+
+    /**
+     * Runs the mix on all threads for the configured duration and returns the results.
+     */
+    public Report run() throws Exception {
+        loadIdRanges();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(seed + t);
+                workers.add(pool.submit(() -> runWorker(random, deadline)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Report(threads, System.nanoTime() - start, metrics);
+    }
+
+    private void loadIdRanges() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("SELECT MIN(patient_id), MAX(patient_id) FROM patient")) {
+            if (!rs.next() || rs.getObject(1) == null) {
+                throw new SQLException("No patients to run the load against; generate data first");
+            }
+            minPatientId = rs.getInt(1);
+            maxPatientId = rs.getInt(2);
+        }
+        if (!writes) {
+            return;
+        }
+        List<Doctor> doctors = doctorService.getAll();
+        if (doctors.isEmpty()) {
+            throw new SQLException("No doctors to run the load against; generate data first");
+        }
+        doctorIds = doctors.stream().mapToInt(Doctor::getDoctorId).toArray();
+    }
+
+    private void runWorker(Random random, long deadline) {
+        while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+            Operation op = schedule[random.nextInt(schedule.length)];
+            OperationMetrics m = metrics.get(op);
+            long start = System.nanoTime();
+            try {
+                execute(op, random);
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // Business rule rejections, e.g. the doctor is already booked
+                m.rejected.increment();
+            } catch (Exception e) {
+                m.errors.increment();
+            }
+            m.histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    private void execute(Operation op, Random random) throws Exception {
+        switch (op) {
+            case SEARCH_PATIENTS:
+                patientService.searchPatients(searchTerm(random, SyntheticDataGenerator.LAST_NAMES,
+                        SyntheticDataGenerator.FIRST_NAMES));
+                break;
+            case VIEW_PATIENT:
+                patientService.getPatient(patientId(random));
+                break;
+            case PATIENT_APPOINTMENTS:
+                appointmentService.getByPatient(patientId(random));
+                break;
+            case PATIENT_RECORDS:
+                medicalRecordService.getByPatient(patientId(random));
+                break;
+            case PATIENT_PRESCRIPTIONS:
+                prescriptionService.getByPatient(patientId(random));
+                break;
+            case SEARCH_DOCTORS:
+                doctorService.search(searchTerm(random, SyntheticDataGenerator.LAST_NAMES,
+                        SyntheticDataGenerator.FIRST_NAMES));
+                break;
+            case SCHEDULE_APPOINTMENT:
+                Appointment a = new Appointment();
+                a.setPatientId(patientId(random));
+                a.setDoctorId(doctorIds[random.nextInt(doctorIds.length)]);
+                a.setAppointmentDate(LocalDate.now().plusDays(1 + random.nextInt(60)));
+                a.setAppointmentTime(LocalTime.of(8, 0).plusMinutes(15L * random.nextInt(36)));
+                a.setStatus("Scheduled");
+                appointmentService.scheduleAppointment(a);
+                break;
+        }
+    }
+
+    // A few patients are looked up far more often than the rest, as with regular visitors
+    private int patientId(Random random) {
+        double u = random.nextDouble();
+        return maxPatientId - (int) (u * u * (maxPatientId - minPatientId));
+    }
+
+    // Receptionists type the first few letters of a name
+    private static String searchTerm(Random random, String[] lastNames, String[] firstNames) {
+        String[] names = random.nextInt(3) == 0 ? firstNames : lastNames;
+        String name = names[random.nextInt(names.length)];
+        return name.substring(0, Math.min(name.length(), 3 + random.nextInt(3)));
+    }
+
+    /**
+     * Throughput and latency per operation for one run.
+     */
+    public static class Report {
+        private final int threads;
+        private final long elapsedNanos;
+        private final Map<Operation, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> rejected = new EnumMap<>(Operation.class);
+
+        private Report(int threads, long elapsedNanos, Map<Operation, OperationMetrics> metrics) {
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+            for (Map.Entry<Operation, OperationMetrics> e : metrics.entrySet()) {
+                snapshots.put(e.getKey(), e.getValue().histogram.snapshot());
+                errors.put(e.getKey(), e.getValue().errors.sum());
+                rejected.put(e.getKey(), e.getValue().rejected.sum());
+            }
+        }
+
+        public long getTotalOperations() {
+            long total = 0;
+            for (LatencyHistogram.Snapshot s : snapshots.values()) {
+                total += s.getCount();
+            }
+            return total;
+        }
+
+        public double getThroughputPerSecond() {
+            return elapsedNanos > 0 ? getTotalOperations() / (elapsedNanos / 1_000_000_000.0) : 0.0;
+        }
+
+        public LatencyHistogram.Snapshot getSnapshot(Operation op) { return snapshots.get(op); }
+        public long getErrors(Operation op) { return errors.get(op); }
+        public long getRejected(Operation op) { return rejected.get(op); }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Load run: %d threads, %.1f s, %d operations, %.1f ops/s%n",
+                    threads, elapsedNanos / 1e9, getTotalOperations(), getThroughputPerSecond()));
+            sb.append(String.format("%-22s %8s %9s %9s %9s %9s %9s %7s %8s%n",
+                    "Operation", "Count", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "Errors", "Rejected"));
+            double seconds = elapsedNanos / 1e9;
+            for (Map.Entry<Operation, LatencyHistogram.Snapshot> e : snapshots.entrySet()) {
+                LatencyHistogram.Snapshot s = e.getValue();
+                sb.append(String.format("%-22s %8d %9.1f %9.3f %9.3f %9.3f %9.3f %7d %8d%n",
+                        e.getKey(), s.getCount(), seconds > 0 ? s.getCount() / seconds : 0.0,
+                        s.getValueAtPercentile(50) / 1e6, s.getValueAtPercentile(90) / 1e6,
+                        s.getValueAtPercentile(99) / 1e6, s.getMaxNanos() / 1e6,
+                        errors.get(e.getKey()), rejected.get(e.getKey())));
+            }
+            return sb.toString();
+        }
+    }
+}
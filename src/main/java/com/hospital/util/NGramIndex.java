@@ -0,0 +1,296 @@
+package com.hospital.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory substring search over a few text fields of each item, for type-ahead. Every
+ * trigram of every field, plus the one- and two-letter start of every word, maps to a
+ * sorted int array of item ids. A query intersects the postings of its trigrams and checks
+ * the survivors, so a lookup touches only candidate items and never the database.
+ *
+ * Matches are ordered: field starts with the query, then a word starts with it, then it
+ * occurs anywhere; by id within each group. Queries shorter than three characters match
+ * word starts only. Safe for concurrent readers and writers.
+ */
+public class NGramIndex<T> {
+    private static final long TWO_LETTER_PREFIX = 1L << 48;
+    private static final long ONE_LETTER_PREFIX = 2L << 48;
+    // Separates fields in the stored text so a match cannot span two fields
+    private static final char FIELD_SEPARATOR = '\n';
+
+    private final ToIntFunction<? super T> idOf;
+    private final Function<? super T, String[]> fieldsOf;
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final IntObjectIndex<T> items = new IntObjectIndex<>();
+    private final IntObjectIndex<String> texts = new IntObjectIndex<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public NGramIndex(ToIntFunction<? super T> idOf, Function<? super T, String[]> fieldsOf) {
+        this.idOf = idOf;
+        this.fieldsOf = fieldsOf;
+    }
+
+    /**
+     * Adds the item, replacing any item with the same id.
+     */
+    public void put(T item) {
+        int id = idOf.applyAsInt(item);
+        String text = normalizedText(item);
+        lock.writeLock().lock();
+        try {
+            String old = texts.get(id);
+            if (old != null) {
+                unindex(id, old);
+            }
+            items.put(id, item);
+            texts.put(id, text);
+            for (long gram : grams(text)) {
+                postings.computeIfAbsent(gram, g -> new IntList()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String old = texts.get(id);
+            if (old != null) {
+                unindex(id, old);
+                items.remove(id);
+                texts.remove(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            items.clear();
+            texts.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return items.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} items whose fields contain the query, best matches first.
+     */
+    public List<T> search(String query, int limit) {
+        String q = query == null ? "" : query.trim().toLowerCase();
+        if (q.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            int[] candidates = candidates(q);
+            // Field starts, word starts, anywhere
+            List<List<T>> ranked = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+            for (int id : candidates) {
+                int rank = rank(texts.get(id), q);
+                if (rank >= 0) {
+                    ranked.get(rank).add(items.get(id));
+                    if (rank == 0 && ranked.get(0).size() == limit) {
+                        break;
+                    }
+                }
+            }
+            List<T> result = new ArrayList<>(limit);
+            for (List<T> group : ranked) {
+                for (T item : group) {
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                    result.add(item);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] candidates(String q) {
+        if (q.length() < 3) {
+            IntList list = postings.get(q.length() == 1 ? oneLetter(q.charAt(0)) : twoLetter(q.charAt(0), q.charAt(1)));
+            return list == null ? new int[0] : list.toArray();
+        }
+        List<IntList> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            IntList list = postings.get(trigram(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2)));
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        // Intersect starting from the rarest trigram so the working set stays small
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).intersect(result);
+        }
+        return result;
+    }
+
+    /**
+     * 0 if a field starts with q, 1 if a word does, 2 if q occurs elsewhere, -1 if nowhere
+     * (trigram candidates can contain all of q's trigrams without containing q).
+     */
+    private static int rank(String text, String q) {
+        int best = -1;
+        for (int at = text.indexOf(q); at >= 0; at = text.indexOf(q, at + 1)) {
+            char before = at == 0 ? FIELD_SEPARATOR : text.charAt(at - 1);
+            int rank = before == FIELD_SEPARATOR ? 0 : Character.isLetterOrDigit(before) ? 2 : 1;
+            if (rank == 0) {
+                return 0;
+            }
+            best = best < 0 ? rank : Math.min(best, rank);
+        }
+        return best;
+    }
+
+    private String normalizedText(T item) {
+        StringBuilder text = new StringBuilder();
+        for (String field : fieldsOf.apply(item)) {
+            if (field == null || field.isEmpty()) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(FIELD_SEPARATOR);
+            }
+            text.append(field.toLowerCase().replace(FIELD_SEPARATOR, ' '));
+        }
+        return text.toString();
+    }
+
+    private void unindex(int id, String text) {
+        for (long gram : grams(text)) {
+            IntList list = postings.get(gram);
+            if (list != null) {
+                list.remove(id);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static long[] grams(String text) {
+        long[] grams = new long[text.length() * 2];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == FIELD_SEPARATOR) {
+                continue;
+            }
+            if (i + 2 < text.length() && text.charAt(i + 1) != FIELD_SEPARATOR && text.charAt(i + 2) != FIELD_SEPARATOR) {
+                grams[n++] = trigram(c, text.charAt(i + 1), text.charAt(i + 2));
+            }
+            boolean wordStart = i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1));
+            if (wordStart && Character.isLetterOrDigit(c)) {
+                grams[n++] = oneLetter(c);
+                if (i + 1 < text.length() && text.charAt(i + 1) != FIELD_SEPARATOR) {
+                    grams[n++] = twoLetter(c, text.charAt(i + 1));
+                }
+            }
+        }
+        // A field can repeat a gram; postings must hold each id once
+        long[] result = Arrays.copyOf(grams, n);
+        Arrays.sort(result);
+        int unique = 0;
+        for (int i = 0; i < result.length; i++) {
+            if (i == 0 || result[i] != result[i - 1]) {
+                result[unique++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static long twoLetter(char a, char b) {
+        return TWO_LETTER_PREFIX | ((long) a << 16) | b;
+    }
+
+    private static long oneLetter(char a) {
+        return ONE_LETTER_PREFIX | a;
+    }
+
+    /**
+     * Sorted set of ints in a growable array. Ids mostly arrive in ascending order, so adds
+     * are usually appends.
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            int at = Arrays.binarySearch(values, 0, size, value);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, at, values, at + 1, size - at);
+            values[at] = value;
+            size++;
+        }
+
+        void remove(int value) {
+            int at = Arrays.binarySearch(values, 0, size, value);
+            if (at >= 0) {
+                System.arraycopy(values, at + 1, values, at, size - at - 1);
+                size--;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        /**
+         * The values present in both this list and the sorted array.
+         */
+        int[] intersect(int[] sorted) {
+            int[] result = new int[Math.min(size, sorted.length)];
+            int n = 0;
+            for (int i = 0, j = 0; i < size && j < sorted.length; ) {
+                if (values[i] < sorted[j]) {
+                    i++;
+                } else if (values[i] > sorted[j]) {
+                    j++;
+                } else {
+                    result[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.hospital.util;
+
+import com.hospital.dao.Page;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Control;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.skin.ComboBoxListViewSkin;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Fills an ObservableList one keyset page at a time. The first page is loaded on
+ * {@link #reload}, further pages when an attached TableView, ListView or ComboBox popup is
+ * scrolled near its end, so only rows the user actually scrolls to are ever fetched.
+ *
+ * All methods must be called on the FX application thread.
+ */
+public class PagedLoader<T> {
+    // Start fetching the next page before the user reaches the very last row
+    private static final double LOAD_THRESHOLD = 0.9;
+
+    /**
+     * Fetches the page following the given item (null for the first page).
+     */
+    @FunctionalInterface
+    public interface PageSource<T> {
+        Page<T> fetch(T after, int limit) throws Exception;
+    }
+
+    private final ObservableList<T> target;
+    private final int pageSize;
+    // Weak so dialogs that attached their combo boxes can be collected; each control keeps
+    // its hooked scroll bar in its own properties under this loader as key
+    private final Set<Control> attached = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private PageSource<T> source;
+    private T last;
+    private boolean hasMore;
+    private boolean loading;
+    // Bumped on every reload/cancel so pages from an earlier source are dropped
+    private int generation;
+
+    public PagedLoader(ObservableList<T> target, int pageSize, PageSource<T> source) {
+        this.target = target;
+        this.pageSize = pageSize;
+        this.source = source;
+    }
+
+    /**
+     * Clears the list and loads the first page again from the current source.
+     */
+    public void reload() {
+        reload(source);
+    }
+
+    /**
+     * Clears the list and starts paging from a new source, e.g. another patient's records.
+     */
+    public void reload(PageSource<T> newSource) {
+        generation++;
+        source = newSource;
+        last = null;
+        hasMore = newSource != null;
+        loading = false;
+        target.clear();
+        loadMore();
+    }
+
+    /**
+     * Like {@link #reload(PageSource)}, for a first page that was already fetched, e.g. as
+     * part of a larger result; only later pages are fetched from the source.
+     */
+    public void reload(PageSource<T> newSource, Page<T> firstPage) {
+        generation++;
+        source = newSource;
+        last = firstPage.getLast();
+        hasMore = firstPage.hasMore();
+        loading = false;
+        target.setAll(firstPage.getItems());
+        Platform.runLater(this::loadMoreIfNotScrollable);
+    }
+
+    /**
+     * Stops paging, e.g. while the list shows search results instead. Pages still in
+     * flight are discarded; {@link #reload()} resumes.
+     */
+    public void cancel() {
+        generation++;
+        hasMore = false;
+        loading = false;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Fetches the next page in the background unless one is already loading.
+     */
+    public void loadMore() {
+        if (loading || !hasMore || source == null) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        PageSource<T> requestSource = source;
+        T after = last;
+
+        Task<Page<T>> task = new Task<>() {
+            @Override
+            protected Page<T> call() throws Exception {
+                return requestSource.fetch(after, pageSize);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            Page<T> page = task.getValue();
+            loading = false;
+            hasMore = page.hasMore();
+            if (!page.isEmpty()) {
+                last = page.getLast();
+                target.addAll(page.getItems());
+            }
+            // The first pages may not fill the viewport, in which case there is nothing to scroll
+            Platform.runLater(this::loadMoreIfNotScrollable);
+        });
+        task.setOnFailed(e -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = false;
+            hasMore = false;
+            AlertUtil.showError("Load Error", task.getException().getMessage());
+        });
+        TaskExecutor.execute(task);
+    }
+
+    /**
+     * Loads more rows when the control is scrolled near the bottom.
+     */
+    public void attachTo(Control control) {
+        if (!attached.add(control)) {
+            return;
+        }
+        // The scroll bar only exists once the skin has been created and laid out
+        control.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(() -> hookScrollBar(control)));
+        Platform.runLater(() -> hookScrollBar(control));
+    }
+
+    /**
+     * Loads more rows when the combo box popup list is scrolled near the bottom.
+     */
+    public void attachTo(ComboBox<?> comboBox) {
+        comboBox.showingProperty().addListener((obs, wasShowing, showing) -> {
+            if (showing && comboBox.getSkin() instanceof ComboBoxListViewSkin) {
+                Node popup = ((ComboBoxListViewSkin<?>) comboBox.getSkin()).getPopupContent();
+                if (popup instanceof Control) {
+                    attachTo((Control) popup);
+                }
+            }
+        });
+    }
+
+    private ScrollBar hookScrollBar(Control control) {
+        Object hooked = control.getProperties().get(this);
+        if (hooked != null) {
+            return (ScrollBar) hooked;
+        }
+        for (Node node : control.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar bar = (ScrollBar) node;
+                bar.valueProperty().addListener((obs, oldValue, value) -> {
+                    double range = bar.getMax() - bar.getMin();
+                    if (range > 0 && (value.doubleValue() - bar.getMin()) / range >= LOAD_THRESHOLD) {
+                        loadMore();
+                    }
+                });
+                control.getProperties().put(this, bar);
+                return bar;
+            }
+        }
+        return null;
+    }
+
+    private void loadMoreIfNotScrollable() {
+        if (!hasMore || loading) {
+            return;
+        }
+        for (Control control : attached) {
+            boolean showing = control.getScene() != null && control.getScene().getWindow() != null
+                    && control.getScene().getWindow().isShowing() && control.isVisible();
+            if (!showing) {
+                continue;
+            }
+            ScrollBar bar = hookScrollBar(control);
+            if (bar != null && !bar.isVisible()) {
+                loadMore();
+                return;
+            }
+        }
+    }
+}
@@ -1,93 +1,234 @@
 package com.hospital.util;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Utility class for monitoring and recording query performance metrics.
+ *
+ * Samples are folded into per-query counters and a {@link LatencyHistogram} as they
+ * arrive instead of being kept individually, so recording is safe from any thread and
+ * memory stays constant however long the application runs.
+ *
+ * DAO methods are instrumented with {@link #time(String)}:
+ * <pre>
+ * try (PerformanceMonitor.Timer t = PerformanceMonitor.time("PatientDAO.findById")) { ... }
+ * </pre>
  */
 public class PerformanceMonitor {
-    private static final List<PerformanceRecord> records = new ArrayList<>();
+    // Query names are normally fixed strings; the cap only guards against names built from user input
+    private static final int MAX_QUERY_NAMES = 1024;
+    private static final String OVERFLOW_QUERY_NAME = "(other queries)";
 
-    public static class PerformanceRecord {
-        private String queryName;
-        private long executionTimeMs;
-        private LocalDateTime timestamp;
-        private boolean optimized;
+    private static final ConcurrentMap<String, QueryMetrics> metrics = new ConcurrentHashMap<>();
+    private static final ThreadLocal<TimerStack> timers = ThreadLocal.withInitial(TimerStack::new);
 
-        public PerformanceRecord(String queryName, long executionTimeMs, boolean optimized) {
-            this.queryName = queryName;
-            this.executionTimeMs = executionTimeMs;
-            this.timestamp = LocalDateTime.now();
-            this.optimized = optimized;
-        }
+    private static class QueryMetrics {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder baselineCount = new LongAdder();
+        private final LongAdder baselineSumNanos = new LongAdder();
+        private final LongAdder optimizedCount = new LongAdder();
+        private final LongAdder optimizedSumNanos = new LongAdder();
 
-        // Getters
-        public String getQueryName() { return queryName; }
-        public long getExecutionTimeMs() { return executionTimeMs; }
-        public LocalDateTime getTimestamp() { return timestamp; }
-        public boolean isOptimized() { return optimized; }
+        void record(long nanos, boolean optimized) {
+            histogram.record(nanos);
+            if (optimized) {
+                optimizedCount.increment();
+                optimizedSumNanos.add(nanos);
+            } else {
+                baselineCount.increment();
+                baselineSumNanos.add(nanos);
+            }
+        }
     }
 
     /**
      * Records the execution time of a query.
      */
     public static void recordQueryTime(String queryName, long executionTimeMs, boolean optimized) {
-        records.add(new PerformanceRecord(queryName, executionTimeMs, optimized));
+        recordQueryTimeNanos(queryName, TimeUnit.MILLISECONDS.toNanos(executionTimeMs), optimized);
+    }
+
+    /**
+     * Records the execution time of a query in nanoseconds.
+     */
+    public static void recordQueryTimeNanos(String queryName, long executionTimeNanos, boolean optimized) {
+        metricsFor(queryName).record(executionTimeNanos, optimized);
     }
 
     /**
      * Measures and records the execution time of a Runnable operation.
      */
     public static void measureAndRecord(String queryName, Runnable operation, boolean optimized) {
-        LocalDateTime start = LocalDateTime.now();
+        long start = System.nanoTime();
         operation.run();
-        LocalDateTime end = LocalDateTime.now();
-        long executionTimeMs = ChronoUnit.MILLIS.between(start, end);
-        recordQueryTime(queryName, executionTimeMs, optimized);
+        recordQueryTimeNanos(queryName, System.nanoTime() - start, optimized);
     }
 
     /**
-     * Gets all performance records.
+     * Starts timing a database round-trip; the sample is recorded as unoptimized when the
+     * returned timer is closed. Meant for try-with-resources.
      */
-    public static List<PerformanceRecord> getAllRecords() {
-        return new ArrayList<>(records);
+    public static Timer time(String queryName) {
+        return time(queryName, false);
     }
 
     /**
-     * Gets performance records for a specific query.
+     * Starts timing an operation; the sample is recorded when the returned timer is closed.
+     * Timers are pooled per thread, so timing a call does not allocate once warmed up.
      */
-    public static List<PerformanceRecord> getRecordsForQuery(String queryName) {
-        return records.stream()
-                .filter(record -> record.getQueryName().equals(queryName))
-                .collect(ArrayList::new, (list, record) -> list.add(record), ArrayList::addAll);
+    public static Timer time(String queryName, boolean optimized) {
+        return timers.get().acquire().start(queryName, optimized);
     }
 
     /**
-     * Calculates average execution time for a query before and after optimization.
+     * Handle returned by {@link #time(String)}. Must be closed exactly once, on the thread
+     * that created it, in the reverse order of creation (as try-with-resources does).
      */
-    public static PerformanceComparison getPerformanceComparison(String queryName) {
-        List<PerformanceRecord> queryRecords = getRecordsForQuery(queryName);
+    public static final class Timer implements AutoCloseable {
+        private final TimerStack owner;
+        private String queryName;
+        private boolean optimized;
+        private long startNanos;
 
-        List<Long> preOptTimes = new ArrayList<>();
-        List<Long> postOptTimes = new ArrayList<>();
+        private Timer(TimerStack owner) {
+            this.owner = owner;
+        }
 
-        for (PerformanceRecord record : queryRecords) {
-            if (record.isOptimized()) {
-                postOptTimes.add(record.getExecutionTimeMs());
-            } else {
-                preOptTimes.add(record.getExecutionTimeMs());
+        private Timer start(String queryName, boolean optimized) {
+            this.queryName = queryName;
+            this.optimized = optimized;
+            this.startNanos = System.nanoTime();
+            return this;
+        }
+
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - startNanos;
+            recordQueryTimeNanos(queryName, elapsed, optimized);
+            queryName = null;
+            owner.release();
+        }
+    }
+
+    // Timers nest (a service timing a call that times DAO calls), so each thread keeps a small stack
+    private static final class TimerStack {
+        private Timer[] timers = new Timer[4];
+        private int depth;
+
+        Timer acquire() {
+            if (depth == timers.length) {
+                timers = Arrays.copyOf(timers, depth * 2);
             }
+            Timer timer = timers[depth];
+            if (timer == null) {
+                timer = new Timer(this);
+                timers[depth] = timer;
+            }
+            depth++;
+            return timer;
         }
 
-        double preOptAvg = preOptTimes.stream().mapToLong(Long::longValue).average().orElse(0.0);
-        double postOptAvg = postOptTimes.stream().mapToLong(Long::longValue).average().orElse(0.0);
+        void release() {
+            depth--;
+        }
+    }
+
+    /**
+     * Gets the names of all queries that have recorded samples.
+     */
+    public static List<String> getQueryNames() {
+        List<String> names = new ArrayList<>(metrics.keySet());
+        names.sort(null);
+        return names;
+    }
+
+    /**
+     * Gets latency percentiles and throughput for a query, or null if it has no samples.
+     */
+    public static QueryStats getQueryStats(String queryName) {
+        QueryMetrics m = metrics.get(queryName);
+        if (m == null) {
+            return null;
+        }
+        return new QueryStats(queryName, m.histogram.snapshot());
+    }
+
+    /**
+     * Calculates average execution time for a query before and after optimization.
+     */
+    public static PerformanceComparison getPerformanceComparison(String queryName) {
+        QueryMetrics m = metrics.get(queryName);
+        if (m == null) {
+            return new PerformanceComparison(queryName, 0.0, 0.0, 0.0, 0, 0);
+        }
+
+        long preCount = m.baselineCount.sum();
+        long postCount = m.optimizedCount.sum();
+        double preOptAvg = preCount > 0 ? m.baselineSumNanos.sum() / (double) preCount / 1_000_000.0 : 0.0;
+        double postOptAvg = postCount > 0 ? m.optimizedSumNanos.sum() / (double) postCount / 1_000_000.0 : 0.0;
         double improvement = preOptAvg > 0 ? ((preOptAvg - postOptAvg) / preOptAvg) * 100 : 0.0;
 
         return new PerformanceComparison(queryName, preOptAvg, postOptAvg, improvement,
-                                       preOptTimes.size(), postOptTimes.size());
+                                       (int) preCount, (int) postCount);
+    }
+
+    private static QueryMetrics metricsFor(String queryName) {
+        QueryMetrics m = metrics.get(queryName);
+        if (m != null) {
+            return m;
+        }
+        String name = metrics.size() < MAX_QUERY_NAMES ? queryName : OVERFLOW_QUERY_NAME;
+        return metrics.computeIfAbsent(name, k -> new QueryMetrics());
+    }
+
+    /**
+     * Latency distribution of one query, with all times in nanoseconds.
+     */
+    public static class QueryStats {
+        private final String queryName;
+        private final long count;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+        private final double throughputPerSecond;
+
+        QueryStats(String queryName, LatencyHistogram.Snapshot snapshot) {
+            this.queryName = queryName;
+            this.count = snapshot.getCount();
+            this.meanNanos = snapshot.getMeanNanos();
+            this.p50Nanos = snapshot.getValueAtPercentile(50);
+            this.p90Nanos = snapshot.getValueAtPercentile(90);
+            this.p99Nanos = snapshot.getValueAtPercentile(99);
+            this.p999Nanos = snapshot.getValueAtPercentile(99.9);
+            this.maxNanos = snapshot.getMaxNanos();
+            this.throughputPerSecond = snapshot.getThroughputPerSecond();
+        }
+
+        public String getQueryName() { return queryName; }
+        public long getCount() { return count; }
+        public double getMeanNanos() { return meanNanos; }
+        public long getP50Nanos() { return p50Nanos; }
+        public long getP90Nanos() { return p90Nanos; }
+        public long getP99Nanos() { return p99Nanos; }
+        public long getP999Nanos() { return p999Nanos; }
+        public long getMaxNanos() { return maxNanos; }
+        public double getThroughputPerSecond() { return throughputPerSecond; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: n=%d, p50=%.3f ms, p90=%.3f ms, p99=%.3f ms, p99.9=%.3f ms, max=%.3f ms, %.1f ops/s",
+                    queryName, count, p50Nanos / 1e6, p90Nanos / 1e6, p99Nanos / 1e6, p999Nanos / 1e6,
+                    maxNanos / 1e6, throughputPerSecond);
+        }
     }
 
     public static class PerformanceComparison {
@@ -121,6 +262,6 @@ public class PerformanceMonitor {
      * Clears all performance records.
      */
     public static void clearRecords() {
-        records.clear();
+        metrics.clear();
     }
-}
\ No newline at end of file
+}
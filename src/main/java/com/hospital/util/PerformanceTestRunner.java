@@ -1,42 +1,58 @@
 package com.hospital.util;
 
-import com.hospital.dao.PatientDAO;
-import com.hospital.dao.PatientDAOImpl;
-import com.hospital.model.Patient;
-
-import java.time.LocalDate;
+import java.time.Duration;
 import java.util.List;
 
 /**
- * Performance testing utility to demonstrate optimization improvements.
- * This class generates sample performance data for the reports.
+ * Performance testing utility. Drives a multi-threaded load against the database; per-query
+ * timings are collected by the DAO instrumentation in {@link PerformanceMonitor}.
+ *
+ * By default the run is read-only, so it is safe against the live database. With writes
+ * enabled, which only the command line allows, it first makes sure the database holds a
+ * realistic amount of synthetic data and includes appointment bookings in the mix; only
+ * enable that against a test database.
+ *
+ * Settings come from {@link DatabaseConfig}: PERF_SEED, PERF_SCALE (1.0 is roughly
+ * production size), PERF_THREADS, PERF_DURATION_SECONDS and, for the command line only,
+ * PERF_WRITES (default false).
  */
 public class PerformanceTestRunner {
 
-    private static final PatientDAO patientDAO = new PatientDAOImpl();
+    private static volatile LoadDriver.Report lastReport;
 
     /**
-     * Runs performance tests to generate comparison data.
-     * This simulates the before/after optimization scenario.
+     * Runs read-only performance tests with the configured settings. This is what the
+     * Reports screen runs, so it never generates data or writes, whatever PERF_WRITES says.
      */
     public static void runPerformanceTests() {
-        System.out.println("Running performance tests...");
-
-        try {
-            // Ensure we have some test data
-            createSamplePatients();
+        long seed = Long.parseLong(DatabaseConfig.get("PERF_SEED", "42"));
+        double scale = Double.parseDouble(DatabaseConfig.get("PERF_SCALE", "0.05"));
+        int threads = Integer.parseInt(DatabaseConfig.get("PERF_THREADS", "8"));
+        int seconds = Integer.parseInt(DatabaseConfig.get("PERF_DURATION_SECONDS", "30"));
+        runPerformanceTests(seed, scale, threads, Duration.ofSeconds(seconds), false);
+    }
 
-            // Test 1: Patient search by name (without caching first)
-            System.out.println("Testing patient search performance...");
+    /**
+     * Runs the load driver. With writes enabled, first loads synthetic data at the given
+     * scale unless the database already holds at least half that many patients.
+     */
+    public static void runPerformanceTests(long seed, double scale, int threads, Duration duration, boolean writes) {
+        System.out.println("Running performance tests" + (writes ? " with writes" : " (read-only)") + "...");
 
-            // Run searches without caching (simulating pre-optimization)
-            runSearchTests(false, 5);
+        try {
+            if (writes) {
+                SyntheticDataGenerator.Scale target = SyntheticDataGenerator.Scale.factor(scale);
+                int existing = SyntheticDataGenerator.countPatients();
+                if (existing < target.getPatients() / 2) {
+                    System.out.println("Generating synthetic data (" + target.getPatients() + " patients)...");
+                    new SyntheticDataGenerator(seed, target).generate();
+                }
+            }
 
-            // Clear cache to simulate fresh start
+            // Measure steady state only, not the data load
             PerformanceMonitor.clearRecords();
-
-            // Run searches with caching (simulating post-optimization)
-            runSearchTests(true, 5);
+            lastReport = new LoadDriver(threads, duration, seed, writes).run();
+            System.out.print(lastReport);
 
             System.out.println("Performance tests completed. Check the Reports section for results.");
 
@@ -46,78 +62,20 @@ public class PerformanceTestRunner {
         }
     }
 
-    private static void runSearchTests(boolean withOptimization, int iterations) throws Exception {
-        String[] searchTerms = {"John", "Smith", "Mary", "Davis", "Brown"};
-
-        for (int i = 0; i < iterations; i++) {
-            for (String term : searchTerms) {
-                long startTime = System.currentTimeMillis();
-
-                List<Patient> results = patientDAO.searchByName(term);
-
-                long endTime = System.currentTimeMillis();
-                long executionTime = endTime - startTime;
-
-                // For demonstration, we'll mark the first half as pre-optimization
-                // and second half as post-optimization
-                boolean isOptimized = withOptimization;
-
-                PerformanceMonitor.recordQueryTime(
-                    "PatientDAO.searchByName ('" + term + "')",
-                    executionTime,
-                    isOptimized
-                );
-
-                // Small delay to simulate real usage patterns
-                Thread.sleep(10);
-            }
-        }
-    }
-
-    private static void createSamplePatients() throws Exception {
-        // Create some sample patients if they don't exist
-        // This is just for testing - in real scenarios, data would already exist
-
-        // Check if we already have patients
-        List<Patient> existing = patientDAO.findAll();
-        if (existing.size() > 10) {
-            return; // Already have test data
-        }
-
-        String[][] sampleData = {
-            {"John", "Smith", "Male", "555-0101", "john.smith@email.com"},
-            {"Mary", "Johnson", "Female", "555-0102", "mary.johnson@email.com"},
-            {"Robert", "Davis", "Male", "555-0103", "robert.davis@email.com"},
-            {"Patricia", "Brown", "Female", "555-0104", "patricia.brown@email.com"},
-            {"Michael", "Wilson", "Male", "555-0105", "michael.wilson@email.com"},
-            {"Jennifer", "Moore", "Female", "555-0106", "jennifer.moore@email.com"},
-            {"William", "Taylor", "Male", "555-0107", "william.taylor@email.com"},
-            {"Linda", "Anderson", "Female", "555-0108", "linda.anderson@email.com"},
-            {"David", "Thomas", "Male", "555-0109", "david.thomas@email.com"},
-            {"Elizabeth", "Jackson", "Female", "555-0110", "elizabeth.jackson@email.com"}
-        };
-
-        for (String[] data : sampleData) {
-            Patient patient = new Patient();
-            patient.setFirstName(data[0]);
-            patient.setLastName(data[1]);
-            patient.setGender(data[2]);
-            patient.setPhone(data[3]);
-            patient.setEmail(data[4]);
-            patient.setDateOfBirth(LocalDate.of(1980, 1, 1));
-            patient.setAddress("123 Test Street");
-            patient.setBloodGroup("O+");
-            patient.setRegistrationDate(LocalDate.now());
-
-            try {
-                patientDAO.create(patient);
-            } catch (Exception e) {
-                // Patient might already exist, continue
-                System.out.println("Sample patient may already exist: " + data[0] + " " + data[1]);
-            }
-        }
-
-        System.out.println("Sample patients created for testing.");
+    /**
+     * Command-line entry point: {@code PerformanceTestRunner [scale] [threads] [seconds] [seed] [writes]}.
+     * Writes are off unless the last argument, or PERF_WRITES when it is omitted, is {@code true}.
+     */
+    public static void main(String[] args) {
+        double scale = args.length > 0 ? Double.parseDouble(args[0]) : 0.05;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        boolean writes = Boolean.parseBoolean(args.length > 4 ? args[4] : DatabaseConfig.get("PERF_WRITES", "false"));
+        runPerformanceTests(seed, scale, threads, Duration.ofSeconds(seconds), writes);
+        System.out.println();
+        System.out.print(getPerformanceSummary());
+        DatabaseConnection.closePool();
     }
 
     /**
@@ -128,10 +86,12 @@ public class PerformanceTestRunner {
         summary.append("PERFORMANCE TEST SUMMARY\n");
         summary.append("========================\n\n");
 
-        List<String> queryNames = PerformanceMonitor.getAllRecords().stream()
-                .map(record -> record.getQueryName())
-                .distinct()
-                .toList();
+        LoadDriver.Report report = lastReport;
+        if (report != null) {
+            summary.append(report).append("\n");
+        }
+
+        List<String> queryNames = PerformanceMonitor.getQueryNames();
 
         for (String queryName : queryNames) {
             PerformanceMonitor.PerformanceComparison comparison =
@@ -142,8 +102,16 @@ public class PerformanceTestRunner {
                 comparison.getPreOptimizationAvg(), comparison.getPreOptSampleSize()));
             summary.append(String.format("Post-opt avg: %.2f ms (%d samples)\n",
                 comparison.getPostOptimizationAvg(), comparison.getPostOptSampleSize()));
-            summary.append(String.format("Improvement: %.1f%%\n\n",
+            summary.append(String.format("Improvement: %.1f%%\n",
                 comparison.getImprovementPercentage()));
+
+            PerformanceMonitor.QueryStats stats = PerformanceMonitor.getQueryStats(queryName);
+            if (stats != null) {
+                summary.append(String.format("Latency p50/p90/p99/p99.9: %.3f / %.3f / %.3f / %.3f ms, max %.3f ms\n",
+                    stats.getP50Nanos() / 1e6, stats.getP90Nanos() / 1e6, stats.getP99Nanos() / 1e6,
+                    stats.getP999Nanos() / 1e6, stats.getMaxNanos() / 1e6));
+            }
+            summary.append("\n");
         }
 
         return summary.toString();
@@ -0,0 +1,135 @@
+package com.hospital.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Caches search results by normalized term and answers a longer term from a cached
+ * prefix. Typing "j", "jo", "joh", "john" queries the database once: when the result for
+ * a prefix held every match (fewer rows than the limit), anything matching the longer term
+ * is already in it and is filtered out in memory.
+ *
+ * Filtered results keep the prefix result's order and contain substring matches only, so
+ * fuzzy matches for the longer term need a term that reaches the database. Memory is
+ * bounded by the backing cache's entry limit times the result limit.
+ */
+public class PrefixSearchCache<T> {
+    private static final long TTL_MINUTES = 10;
+    private static final int MAX_ENTRIES = 1_000;
+
+    /**
+     * Runs the search against the database for an already normalized term.
+     */
+    public interface Query<T> {
+        List<T> search(String term, int limit) throws Exception;
+    }
+
+    private static class Result<T> {
+        private final List<T> items;
+        // True when the result holds every match, i.e. the query was not cut off by the limit
+        private final boolean complete;
+
+        Result(List<T> items, boolean complete) {
+            this.items = items;
+            this.complete = complete;
+        }
+    }
+
+    private final Cache<String, Result<T>> cache;
+    private final int limit;
+    private final BiPredicate<? super T, String> matches;
+
+    /**
+     * @param name    the name the backing cache is registered under
+     * @param type    writes to this entity type evict the results they may change
+     * @param limit   the number of rows requested from the database per term
+     * @param idOf    the id of a result row, compared with the id of a changed entity
+     * @param matches whether a row matches a normalized term, consistent with the database
+     *                search's substring matching
+     */
+    public PrefixSearchCache(String name, EntityChangeEvent.EntityType type, int limit, ToIntFunction<? super T> idOf,
+                             BiPredicate<? super T, String> matches) {
+        this.limit = limit;
+        this.matches = matches;
+        this.cache = CacheRegistry.getOrCreate(name, () -> {
+            Cache<String, Result<T>> c = new Cache<>(TTL_MINUTES, MAX_ENTRIES);
+            c.onEntityChange(type, (results, event) -> invalidate(results, idOf, event));
+            return c;
+        });
+    }
+
+    /**
+     * Normalizes a term the way cache keys are normalized.
+     */
+    public static String normalize(String query) {
+        return query.trim().toLowerCase();
+    }
+
+    /**
+     * Returns the cached result for the term, a cached prefix result filtered down to it,
+     * or the database result, which is then cached. A write during the lookup cannot evict a
+     * term that is not cached yet, so the term's result is only cached if no invalidation
+     * happened meanwhile.
+     */
+    public List<T> search(String query, Query<T> database) throws Exception {
+        String term = normalize(query);
+        long stamp = cache.invalidationStamp(term);
+        for (int end = term.length(); end > 0; end--) {
+            String prefix = term.substring(0, end);
+            // containsKey first so probing absent prefixes does not count as misses
+            Result<T> cached = cache.containsKey(prefix) ? cache.get(prefix) : null;
+            if (cached == null) {
+                continue;
+            }
+            if (end == term.length()) {
+                return new ArrayList<>(cached.items);
+            }
+            if (cached.complete) {
+                List<T> filtered = new ArrayList<>();
+                for (T item : cached.items) {
+                    if (matches.test(item, term)) {
+                        filtered.add(item);
+                    }
+                }
+                cache.putIfNotInvalidated(term, new Result<>(filtered, true), stamp);
+                return new ArrayList<>(filtered);
+            }
+        }
+        List<T> items = database.search(term, limit);
+        cache.putIfNotInvalidated(term, new Result<>(new ArrayList<>(items), items.size() < limit), stamp);
+        return items;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Evicts the results a write may have changed: those containing the entity, and those
+     * whose term the entity's search keys now match.
+     */
+    private static <T> void invalidate(Cache<String, Result<T>> results, ToIntFunction<? super T> idOf,
+                                       EntityChangeEvent event) {
+        // Too many rows to match against every term one by one
+        if (event.isBulk()) {
+            results.clear();
+            return;
+        }
+        int id = event.getEntityId();
+        results.invalidateIf((term, result) -> {
+            for (T item : result.items) {
+                if (idOf.applyAsInt(item) == id) {
+                    return true;
+                }
+            }
+            for (String key : event.getSearchKeys()) {
+                if (key.contains(term)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package com.hospital.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets a caller abandon database work running on another thread. Work run through
+ * {@link #run(Callable)} has its statements registered by the DAOs via {@link #track};
+ * {@link #cancel()} then calls Statement.cancel() on the one executing, so PostgreSQL stops
+ * the query instead of finishing a result nobody will read.
+ *
+ * Statements executed outside of run() are not affected.
+ */
+public class QueryCancellation {
+    // PostgreSQL's SQLSTATE for a query cancelled on request
+    private static final String QUERY_CANCELED = "57014";
+    private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+    private static final Registration NONE = () -> { };
+
+    private boolean cancelled;
+    private Statement running;
+
+    /**
+     * Unregisters a tracked statement; used in the DAO's try-with-resources.
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Runs the work on the calling thread with its statements cancellable through this object.
+     */
+    public <T> T run(Callable<T> work) throws Exception {
+        CURRENT.set(this);
+        try {
+            return work.call();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Cancels the statement currently executing, if any, and makes later ones fail before
+     * they are sent.
+     */
+    public void cancel() {
+        Statement statement;
+        synchronized (this) {
+            cancelled = true;
+            statement = running;
+        }
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Already finished or closed
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a statement about to execute with the cancellation of the current thread.
+     *
+     * @throws SQLException if that cancellation has already been requested
+     */
+    public static Registration track(Statement statement) throws SQLException {
+        QueryCancellation current = CURRENT.get();
+        if (current == null) {
+            return NONE;
+        }
+        synchronized (current) {
+            if (current.cancelled) {
+                throw new SQLException("Query cancelled", QUERY_CANCELED);
+            }
+            current.running = statement;
+        }
+        return () -> {
+            synchronized (current) {
+                if (current.running == statement) {
+                    current.running = null;
+                }
+            }
+        };
+    }
+}
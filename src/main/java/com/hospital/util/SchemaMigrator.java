@@ -2,14 +2,79 @@ package com.hospital.util;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility class to handle database schema migrations.
  */
 public class SchemaMigrator {
 
+    // CONCURRENTLY so building an index on a large table does not block writes. It cannot
+    // run inside a transaction, which is fine with the pool's autocommit connections.
+    private static final String[] SEARCH_INDEXES = {
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_full_name_trgm ON patient USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_phone_trgm ON patient USING gin (phone gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patient_email_trgm ON patient USING gin (lower(email) gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_doctor_full_name_trgm ON doctor USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_doctor_email_trgm ON doctor USING gin (lower(email) gin_trgm_ops)"
+    };
+
+    // Tables added after the first release, for databases created from an older schema.sql
+    private static final String[] TABLES = {
+            "CREATE TABLE IF NOT EXISTS appointment_series ("
+                    + " series_id SERIAL PRIMARY KEY,"
+                    + " start_date DATE NOT NULL,"
+                    + " appointment_time TIME NOT NULL,"
+                    + " frequency VARCHAR(10) NOT NULL CHECK (frequency IN ('DAILY', 'WEEKLY', 'MONTHLY')),"
+                    + " interval_count INT NOT NULL DEFAULT 1 CHECK (interval_count > 0),"
+                    + " end_date DATE,"
+                    + " occurrence_count INT CHECK (occurrence_count > 0),"
+                    + " patient_id INT NOT NULL,"
+                    + " doctor_id INT NOT NULL,"
+                    + " CONSTRAINT chk_series_ends CHECK (end_date IS NOT NULL OR occurrence_count IS NOT NULL),"
+                    + " CONSTRAINT fk_series_patient FOREIGN KEY (patient_id) REFERENCES patient(patient_id) ON DELETE CASCADE,"
+                    + " CONSTRAINT fk_series_doctor FOREIGN KEY (doctor_id) REFERENCES doctor(doctor_id) ON DELETE CASCADE)",
+            "CREATE TABLE IF NOT EXISTS appointment_series_exception ("
+                    + " series_id INT NOT NULL,"
+                    + " occurrence_date DATE NOT NULL,"
+                    + " appointment_id INT,"
+                    + " PRIMARY KEY (series_id, occurrence_date),"
+                    + " CONSTRAINT fk_series_exception_series FOREIGN KEY (series_id)"
+                    + " REFERENCES appointment_series(series_id) ON DELETE CASCADE,"
+                    + " CONSTRAINT fk_series_exception_appointment FOREIGN KEY (appointment_id)"
+                    + " REFERENCES appointment(appointment_id) ON DELETE SET NULL)"
+    };
+
+    // Indexes added after the first release, for databases created from an older schema.sql
+    private static final String[] INDEXES = {
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_prescription_item_prescription ON prescription_item (prescription_id)",
+            // Fails while double bookings exist; see migrateIndexes
+            "CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_appointment_doctor_slot ON appointment (doctor_id, appointment_date, appointment_time) WHERE status = 'Scheduled'",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_appointment_series_doctor ON appointment_series (doctor_id)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_appointment_series_patient ON appointment_series (patient_id)",
+            // Keyset pages seek on these (owner, sort key) indexes
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_appointment_doctor_date ON appointment (doctor_id, appointment_date DESC, appointment_time DESC, appointment_id DESC)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_appointment_patient_date ON appointment (patient_id, appointment_date DESC, appointment_time DESC, appointment_id DESC)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_prescription_patient_date ON prescription (patient_id, prescription_date DESC, prescription_id DESC)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_medical_record_patient_date ON medical_record (patient_id, record_date DESC, record_id DESC)",
+            "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_appointment_date_time ON appointment (appointment_date, appointment_time, appointment_id)"
+    };
+
+    // Indexes of older schemas that a wider one in INDEXES now covers; dropped only once
+    // every index in INDEXES exists
+    private static final String[] REPLACED_INDEXES = {
+            "DROP INDEX CONCURRENTLY IF EXISTS idx_appointment_date"
+    };
+
+    // null until known
+    private static volatile Boolean trigramSearchAvailable;
+
     /**
      * Checks if the database schema is up to date and applies changes if necessary.
      */
@@ -65,9 +130,105 @@ public class SchemaMigrator {
                 System.out.println("Patient schema is up to date.");
             }
 
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : TABLES) {
+                    stmt.execute(sql);
+                }
+            }
+
         } catch (Exception e) {
             System.err.println("Schema migration failed: " + e.getMessage());
             e.printStackTrace();
         }
     }
+
+    /**
+     * Creates the indexes in {@link #INDEXES} that are missing, then drops the
+     * {@link #REPLACED_INDEXES}. Meant to run in the
+     * background like {@link #migrateSearchIndexes()}. A failed index does not stop the
+     * others. A failed concurrent build leaves an invalid index behind, which IF NOT EXISTS
+     * then skips, so it is dropped to be retried on the next start (e.g. once duplicate
+     * bookings have been resolved).
+     */
+    public static void migrateIndexes() {
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement()) {
+            int failed = 0;
+            for (String sql : INDEXES) {
+                try {
+                    stmt.execute(sql);
+                } catch (SQLException e) {
+                    failed++;
+                    System.err.println("Index migration failed: " + e.getMessage());
+                    dropInvalidIndexes(stmt);
+                }
+            }
+            if (failed == 0) {
+                for (String sql : REPLACED_INDEXES) {
+                    stmt.execute(sql);
+                }
+                System.out.println("Indexes are up to date.");
+            }
+        } catch (SQLException e) {
+            System.err.println("Index migration failed: " + e.getMessage());
+        }
+    }
+
+    private static void dropInvalidIndexes(Statement stmt) throws SQLException {
+        String sql = "SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid"
+                + " JOIN pg_namespace n ON n.oid = c.relnamespace"
+                + " WHERE NOT i.indisvalid AND n.nspname = current_schema()";
+        List<String> invalid = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                invalid.add(rs.getString(1));
+            }
+        }
+        for (String name : invalid) {
+            stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS \"" + name + "\"");
+        }
+    }
+
+    /**
+     * Installs pg_trgm and the trigram indexes behind patient and doctor search. Index
+     * builds can take a while on a large table, so this is meant to run in the background.
+     * Without permission to create the extension, search falls back to LIKE matching.
+     */
+    public static void migrateSearchIndexes() {
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement()) {
+            for (String sql : SEARCH_INDEXES) {
+                stmt.execute(sql);
+            }
+            trigramSearchAvailable = true;
+            System.out.println("Search indexes are up to date.");
+        } catch (SQLException e) {
+            System.err.println("Search index migration failed, search falls back to LIKE: " + e.getMessage());
+            trigramSearchAvailable = null;
+        }
+    }
+
+    /**
+     * Whether pg_trgm is installed, so search can use similarity() and the % operator.
+     */
+    public static boolean isTrigramSearchAvailable() {
+        Boolean available = trigramSearchAvailable;
+        if (available == null) {
+            available = hasExtension("pg_trgm");
+            trigramSearchAvailable = available;
+        }
+        return available;
+    }
+
+    private static boolean hasExtension(String name) {
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM pg_extension WHERE extname = ?")) {
+            ps.setString(1, name);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,132 @@
+package com.hospital.util;
+
+import javafx.animation.PauseTransition;
+import javafx.concurrent.Task;
+import javafx.scene.control.TextInputControl;
+import javafx.util.Duration;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a search field's queries in the background without piling them up. Typing is
+ * debounced; starting a search cancels the one in flight, both the task and its JDBC
+ * statement (see {@link QueryCancellation}); and a result is only delivered if no newer
+ * search has started since, so a slow stale query can never overwrite a fresh one.
+ *
+ * Must be used from the FX thread; results and failures are delivered on it.
+ */
+public class SearchPipeline<R> {
+    private static final Duration DEBOUNCE = Duration.millis(250);
+
+    private final Function<String, Callable<R>> search;
+    private final Consumer<R> onResult;
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+    private Consumer<Throwable> onFailed = e -> AlertUtil.showError("Search Error", e.getMessage());
+    private Runnable onCleared;
+    private String pendingQuery;
+    private long generation;
+    private Task<R> running;
+    private QueryCancellation cancellation;
+
+    /**
+     * @param search   called on the FX thread with the query, so it can read the UI state it
+     *                 needs; returns the work to run in the background
+     * @param onResult receives the result of the latest search
+     */
+    public SearchPipeline(Function<String, Callable<R>> search, Consumer<R> onResult) {
+        this.search = search;
+        this.onResult = onResult;
+        debounce.setOnFinished(e -> start(pendingQuery));
+    }
+
+    public void setOnFailed(Consumer<Throwable> onFailed) {
+        this.onFailed = onFailed;
+    }
+
+    /**
+     * Runs instead of a search when the query is blank; without one, blank queries are
+     * searched like any other.
+     */
+    public void setOnCleared(Runnable onCleared) {
+        this.onCleared = onCleared;
+    }
+
+    /**
+     * Searches whenever the field's text changes, after the debounce delay.
+     */
+    public void attachTo(TextInputControl field) {
+        field.textProperty().addListener((obs, oldText, text) -> submit(text));
+    }
+
+    /**
+     * Searches for the query once no further query has been submitted for the debounce delay.
+     */
+    public void submit(String query) {
+        pendingQuery = query;
+        debounce.playFromStart();
+    }
+
+    /**
+     * Searches for the query straight away, e.g. when the search button is pressed.
+     */
+    public void submitNow(String query) {
+        debounce.stop();
+        start(query);
+    }
+
+    /**
+     * Drops any pending search and cancels the one in flight.
+     */
+    public void cancel() {
+        debounce.stop();
+        generation++;
+        cancelRunning();
+    }
+
+    private void start(String query) {
+        long current = ++generation;
+        cancelRunning();
+        if (onCleared != null && (query == null || query.isBlank())) {
+            onCleared.run();
+            return;
+        }
+        Callable<R> work = search.apply(query);
+        QueryCancellation queryCancellation = new QueryCancellation();
+        Task<R> task = new Task<>() {
+            @Override
+            protected R call() throws Exception {
+                return queryCancellation.run(work);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (current == generation) {
+                running = null;
+                onResult.accept(task.getValue());
+            }
+        });
+        // A superseded search fails with the cancellation; only the latest one is reported
+        task.setOnFailed(e -> {
+            if (current == generation) {
+                running = null;
+                onFailed.accept(task.getException());
+            }
+        });
+        running = task;
+        cancellation = queryCancellation;
+        TaskExecutor.execute(task);
+    }
+
+    private void cancelRunning() {
+        if (running != null) {
+            running.cancel(true);
+            // Statement.cancel() opens a new connection to the server to send the request;
+            // done here it would stall typing whenever the server is slow to answer
+            BackgroundScheduler.schedule("search-cancel", cancellation::cancel, 0, TimeUnit.MILLISECONDS);
+            running = null;
+            cancellation = null;
+        }
+    }
+}
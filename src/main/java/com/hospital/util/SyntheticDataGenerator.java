@@ -0,0 +1,509 @@
+package com.hospital.util;
+
+import com.hospital.model.PatientNote;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Bulk-loads realistic synthetic data into every table (and MongoDB notes) for load testing.
+ *
+ * Generation is deterministic: the same seed, scale and reference date always produce the
+ * same rows in the same order. Unique columns (emails, phones, licence numbers, names of
+ * departments and inventory items) carry a short tag derived from the seed, so different
+ * seeds can be loaded into the same database; loading the same seed twice will hit the
+ * unique constraints.
+ *
+ * Patients are processed in chunks: each chunk's patients, appointments, prescriptions,
+ * prescription items, medical records and notes are written with JDBC batches and committed
+ * together, so memory use does not grow with the scale factor.
+ */
+public class SyntheticDataGenerator {
+    private static final int CHUNK_SIZE = 1_000;
+    private static final int FIRST_SLOT_MINUTES = 8 * 60;
+    private static final int SLOTS_PER_DAY = 36; // 08:00 to 16:45 in 15 minute steps
+    private static final int HISTORY_DAYS = 730;
+    private static final int FUTURE_DAYS = 60;
+
+    static final String[] FIRST_NAMES = {
+            "Kwame", "Ama", "Kofi", "Akosua", "Yaw", "Abena", "Kwabena", "Efua", "Kojo", "Adwoa",
+            "John", "Mary", "Robert", "Patricia", "Michael", "Jennifer", "William", "Linda", "David",
+            "Elizabeth", "James", "Sarah", "Daniel", "Grace", "Samuel", "Esther", "Joseph", "Ruth",
+            "Emmanuel", "Comfort", "Isaac", "Mercy", "Nana", "Akua", "Fiifi", "Esi", "Yaa", "Kweku"};
+    static final String[] LAST_NAMES = {
+            "Mensah", "Owusu", "Boateng", "Asante", "Osei", "Agyeman", "Appiah", "Darko", "Addo",
+            "Amoah", "Smith", "Johnson", "Davis", "Brown", "Wilson", "Moore", "Taylor", "Anderson",
+            "Thomas", "Jackson", "Ofori", "Frimpong", "Quaye", "Tetteh", "Annan", "Bonsu", "Adjei",
+            "Acheampong", "Nkrumah", "Sarpong", "Yeboah", "Antwi", "Kyei", "Ansah", "Badu", "Donkor"};
+    private static final String[] SPECIALIZATIONS = {
+            "Cardiology", "Neurology", "Pediatrics", "Orthopedics", "Dermatology", "Oncology",
+            "Radiology", "Psychiatry", "General Surgery", "Internal Medicine", "Obstetrics",
+            "Ophthalmology", "Urology", "ENT", "Emergency Medicine"};
+    private static final String[] GENDERS = {"Male", "Female", "Other"};
+    private static final String[] BLOOD_GROUPS = ValidationUtil.getValidBloodGroups();
+    private static final String[] STREETS = {
+            "Independence Ave", "Liberation Rd", "Ring Rd", "Oxford St", "Cantonments Rd",
+            "High St", "Station Rd", "Market Sq", "Church Lane", "Harbour Rd"};
+    private static final String[] CITIES = {"Accra", "Kumasi", "Tamale", "Takoradi", "Cape Coast", "Tema", "Ho"};
+    private static final String[] ITEM_TYPES = {"Tablet", "Capsule", "Syrup", "Injection", "Ointment", "Inhaler"};
+    private static final String[] DRUGS = {
+            "Amoxicillin", "Paracetamol", "Ibuprofen", "Metformin", "Amlodipine", "Lisinopril",
+            "Omeprazole", "Ciprofloxacin", "Artemether", "Salbutamol", "Prednisolone", "Atorvastatin"};
+    private static final String[] DIAGNOSES = {
+            "Hypertension", "Type 2 diabetes", "Malaria", "Upper respiratory infection", "Asthma",
+            "Gastritis", "Lower back pain", "Migraine", "Urinary tract infection", "Anaemia",
+            "Allergic rhinitis", "Osteoarthritis"};
+    private static final String[] TREATMENTS = {
+            "Prescribed medication and advised rest", "Lifestyle changes and follow-up in 4 weeks",
+            "Referred for laboratory tests", "Physiotherapy sessions", "Dietary advice given",
+            "Observation, no medication required"};
+    private static final String[] NOTES = {
+            "Patient reports improvement since last visit.", "Complains of mild dizziness in the mornings.",
+            "Blood pressure stable on current dose.", "Requested a refill of regular medication.",
+            "Family history of cardiac disease discussed.", "Advised to return if symptoms persist.",
+            "Allergy to penicillin confirmed.", "Missed the previous appointment, rescheduled."};
+
+    /**
+     * Row counts to generate. {@link #factor(double)} scales a production-sized baseline.
+     */
+    public static class Scale {
+        private final int departments;
+        private final int doctors;
+        private final int patients;
+        private final double appointmentsPerPatient;
+        private final double prescriptionRate;
+        private final double recordsPerPatient;
+        private final double notesPerPatient;
+        private final int inventoryItems;
+
+        public Scale(int departments, int doctors, int patients, double appointmentsPerPatient,
+                     double prescriptionRate, double recordsPerPatient, double notesPerPatient,
+                     int inventoryItems) {
+            this.departments = departments;
+            this.doctors = doctors;
+            this.patients = patients;
+            this.appointmentsPerPatient = appointmentsPerPatient;
+            this.prescriptionRate = prescriptionRate;
+            this.recordsPerPatient = recordsPerPatient;
+            this.notesPerPatient = notesPerPatient;
+            this.inventoryItems = inventoryItems;
+        }
+
+        /**
+         * Factor 1.0 is roughly production size: 200,000 patients, about 2 million appointments,
+         * 400 doctors over 40 departments. Per-patient rates stay the same at every factor.
+         */
+        public static Scale factor(double factor) {
+            return new Scale(
+                    Math.max(1, (int) Math.round(40 * Math.min(1.0, Math.sqrt(factor)))),
+                    Math.max(2, (int) Math.round(400 * factor)),
+                    Math.max(10, (int) Math.round(200_000 * factor)),
+                    10.0, 0.6, 3.0, 2.0,
+                    Math.max(DRUGS.length, (int) Math.round(500 * Math.min(1.0, Math.sqrt(factor)))));
+        }
+
+        public int getDepartments() { return departments; }
+        public int getDoctors() { return doctors; }
+        public int getPatients() { return patients; }
+        public double getAppointmentsPerPatient() { return appointmentsPerPatient; }
+        public double getPrescriptionRate() { return prescriptionRate; }
+        public double getRecordsPerPatient() { return recordsPerPatient; }
+        public double getNotesPerPatient() { return notesPerPatient; }
+        public int getInventoryItems() { return inventoryItems; }
+    }
+
+    /**
+     * Number of rows written per table by one {@link #generate()} run.
+     */
+    public static class Summary {
+        private long departments;
+        private long doctors;
+        private long patients;
+        private long appointments;
+        private long prescriptions;
+        private long prescriptionItems;
+        private long medicalRecords;
+        private long inventoryItems;
+        private long notes;
+        private long elapsedMillis;
+
+        public long getDepartments() { return departments; }
+        public long getDoctors() { return doctors; }
+        public long getPatients() { return patients; }
+        public long getAppointments() { return appointments; }
+        public long getPrescriptions() { return prescriptions; }
+        public long getPrescriptionItems() { return prescriptionItems; }
+        public long getMedicalRecords() { return medicalRecords; }
+        public long getInventoryItems() { return inventoryItems; }
+        public long getNotes() { return notes; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("departments=%d, doctors=%d, patients=%d, appointments=%d, prescriptions=%d, "
+                            + "prescription items=%d, medical records=%d, inventory=%d, notes=%d in %.1f s",
+                    departments, doctors, patients, appointments, prescriptions, prescriptionItems,
+                    medicalRecords, inventoryItems, notes, elapsedMillis / 1000.0);
+        }
+    }
+
+    private final long seed;
+    private final Scale scale;
+    private final LocalDate referenceDate;
+    private final String tag;
+
+    public SyntheticDataGenerator(long seed, Scale scale) {
+        this(seed, scale, LocalDate.now());
+    }
+
+    /**
+     * @param referenceDate "today" for the generated data: appointments before it are history,
+     *                      appointments after it are still scheduled
+     */
+    public SyntheticDataGenerator(long seed, Scale scale, LocalDate referenceDate) {
+        this.seed = seed;
+        this.scale = scale;
+        this.referenceDate = referenceDate;
+        this.tag = Long.toString(Math.floorMod(seed, 46_656L), 36); // at most three characters
+    }
+
+    /**
+     * Number of patients currently in the database, used to decide whether to load data.
+     */
+    public static int countPatients() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM patient")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Writes the whole data set. Caches are cleared afterwards, since the bulk load bypasses
+     * the DAOs and their change events.
+     */
+    public Summary generate() throws SQLException {
+        long start = System.currentTimeMillis();
+        Random random = new Random(seed);
+        Summary summary = new Summary();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int[] inventoryIds = insertInventory(conn, random, summary);
+                int[] departmentIds = insertDepartments(conn, random, summary);
+                int[] doctorIds = insertDoctors(conn, random, departmentIds, summary);
+                conn.commit();
+                System.out.println("Synthetic data: reference data loaded (" + summary + ")");
+
+                Set<Long> bookedSlots = new HashSet<>();
+                for (int first = 0; first < scale.getPatients(); first += CHUNK_SIZE) {
+                    int count = Math.min(CHUNK_SIZE, scale.getPatients() - first);
+                    insertPatientChunk(conn, random, first, count, doctorIds, inventoryIds, bookedSlots, summary);
+                    conn.commit();
+                    if ((first / CHUNK_SIZE) % 20 == 19) {
+                        System.out.println("Synthetic data: " + summary.patients + " / " + scale.getPatients() + " patients");
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+
+        CacheRegistry.clearAll();
+        summary.elapsedMillis = System.currentTimeMillis() - start;
+        System.out.println("Synthetic data generated: " + summary);
+        return summary;
+    }
+
+    private int[] insertInventory(Connection conn, Random random, Summary summary) throws SQLException {
+        String sql = "INSERT INTO medical_inventory (item_name, item_type, unit_price, stock_quantity, expiry_date) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] {"inventory_id"})) {
+            for (int i = 0; i < scale.getInventoryItems(); i++) {
+                String drug = DRUGS[i % DRUGS.length];
+                int strength = 50 * (1 + (i / DRUGS.length) % 20);
+                ps.setString(1, drug + " " + strength + "mg #" + tag + "-" + i);
+                ps.setString(2, ITEM_TYPES[random.nextInt(ITEM_TYPES.length)]);
+                ps.setBigDecimal(3, BigDecimal.valueOf(50 + random.nextInt(5_000), 2));
+                ps.setInt(4, random.nextInt(2_000));
+                ps.setDate(5, Date.valueOf(referenceDate.plusDays(30 + random.nextInt(900))));
+                ps.addBatch();
+            }
+            int[] ids = executeBatchForIds(ps, scale.getInventoryItems());
+            summary.inventoryItems += ids.length;
+            return ids;
+        }
+    }
+
+    private int[] insertDepartments(Connection conn, Random random, Summary summary) throws SQLException {
+        String sql = "INSERT INTO department (department_name, location) VALUES (?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] {"department_id"})) {
+            for (int i = 0; i < scale.getDepartments(); i++) {
+                String name = SPECIALIZATIONS[i % SPECIALIZATIONS.length];
+                ps.setString(1, name + " " + (i / SPECIALIZATIONS.length + 1) + " #" + tag);
+                ps.setString(2, "Block " + (char) ('A' + random.nextInt(8)) + ", Floor " + (1 + random.nextInt(5)));
+                ps.addBatch();
+            }
+            int[] ids = executeBatchForIds(ps, scale.getDepartments());
+            summary.departments += ids.length;
+            return ids;
+        }
+    }
+
+    private int[] insertDoctors(Connection conn, Random random, int[] departmentIds, Summary summary) throws SQLException {
+        String sql = "INSERT INTO doctor (first_name, last_name, specialization, phone, email, license_number, department_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] {"doctor_id"})) {
+            for (int i = 0; i < scale.getDoctors(); i++) {
+                String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                // Departments are named after a specialization, so keep doctors consistent with theirs
+                int department = i % departmentIds.length;
+                ps.setString(1, first);
+                ps.setString(2, last);
+                ps.setString(3, SPECIALIZATIONS[department % SPECIALIZATIONS.length]);
+                ps.setString(4, "556-" + tag + "-" + i);
+                ps.setString(5, email(first, last, "dr" + i));
+                ps.setString(6, "LIC-" + tag + "-" + i);
+                ps.setInt(7, departmentIds[department]);
+                ps.addBatch();
+            }
+            int[] ids = executeBatchForIds(ps, scale.getDoctors());
+            summary.doctors += ids.length;
+            return ids;
+        }
+    }
+
+    private void insertPatientChunk(Connection conn, Random random, int first, int count, int[] doctorIds,
+                                    int[] inventoryIds, Set<Long> bookedSlots, Summary summary) throws SQLException {
+        int[] patientIds = insertPatients(conn, random, first, count, summary);
+
+        List<int[]> completed = new ArrayList<>(); // {appointmentId, patientId, doctorId, dayOffset}
+        insertAppointments(conn, random, patientIds, doctorIds, bookedSlots, completed, summary);
+        insertPrescriptions(conn, random, completed, inventoryIds, summary);
+        insertMedicalRecords(conn, random, patientIds, doctorIds, summary);
+        insertNotes(random, patientIds, summary);
+    }
+
+    private int[] insertPatients(Connection conn, Random random, int first, int count, Summary summary) throws SQLException {
+        String sql = "INSERT INTO patient (first_name, last_name, date_of_birth, gender, phone, email, address, blood_group, registration_date) VALUES (?,?,?,?,?,?,?,?,?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] {"patient_id"})) {
+            for (int i = first; i < first + count; i++) {
+                String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                LocalDate dob = referenceDate.minusDays(365L + random.nextInt(365 * 90));
+                LocalDate registered = referenceDate.minusDays(random.nextInt(365 * 8));
+                if (registered.isBefore(dob)) {
+                    registered = dob;
+                }
+                ps.setString(1, firstName);
+                ps.setString(2, lastName);
+                ps.setDate(3, Date.valueOf(dob));
+                // Mostly Male/Female with a small share of Other
+                ps.setString(4, random.nextInt(100) < 2 ? GENDERS[2] : GENDERS[random.nextInt(2)]);
+                ps.setString(5, "555-" + tag + "-" + i);
+                ps.setString(6, email(firstName, lastName, Integer.toString(i)));
+                ps.setString(7, (1 + random.nextInt(250)) + " " + STREETS[random.nextInt(STREETS.length)] + ", "
+                        + CITIES[random.nextInt(CITIES.length)]);
+                ps.setString(8, BLOOD_GROUPS[random.nextInt(BLOOD_GROUPS.length)]);
+                ps.setDate(9, Date.valueOf(registered));
+                ps.addBatch();
+            }
+            int[] ids = executeBatchForIds(ps, count);
+            summary.patients += ids.length;
+            return ids;
+        }
+    }
+
+    private void insertAppointments(Connection conn, Random random, int[] patientIds, int[] doctorIds,
+                                    Set<Long> bookedSlots, List<int[]> completed, Summary summary) throws SQLException {
+        String sql = "INSERT INTO appointment (appointment_date, appointment_time, status, patient_id, doctor_id) VALUES (?, ?, ?, ?, ?)";
+        List<int[]> rows = new ArrayList<>(); // {patientId, doctorId, dayOffset, completed}
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] {"appointment_id"})) {
+            for (int patientId : patientIds) {
+                // Most patients see a regular doctor; a few see many different ones
+                int regularDoctor = doctorIds[skewedIndex(random, doctorIds.length)];
+                int visits = geometric(random, scale.getAppointmentsPerPatient());
+                for (int v = 0; v < visits; v++) {
+                    int doctorId = random.nextInt(10) < 7 ? regularDoctor : doctorIds[random.nextInt(doctorIds.length)];
+                    boolean future = random.nextInt(100) < 8;
+                    int dayOffset = future ? 1 + random.nextInt(FUTURE_DAYS) : -random.nextInt(HISTORY_DAYS);
+                    int slot = random.nextInt(SLOTS_PER_DAY);
+                    String status;
+                    if (future) {
+                        // Scheduled appointments must not double-book a doctor
+                        if (!bookedSlots.add(slotKey(doctorId, dayOffset, slot))) {
+                            continue;
+                        }
+                        status = "Scheduled";
+                    } else {
+                        status = random.nextInt(100) < 88 ? "Completed" : "Cancelled";
+                    }
+                    ps.setDate(1, Date.valueOf(referenceDate.plusDays(dayOffset)));
+                    ps.setTime(2, Time.valueOf(LocalTime.MIN.plusMinutes(FIRST_SLOT_MINUTES + 15L * slot)));
+                    ps.setString(3, status);
+                    ps.setInt(4, patientId);
+                    ps.setInt(5, doctorId);
+                    ps.addBatch();
+                    rows.add(new int[] {patientId, doctorId, dayOffset, "Completed".equals(status) ? 1 : 0});
+                }
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            int[] ids = executeBatchForIds(ps, rows.size());
+            summary.appointments += ids.length;
+            for (int i = 0; i < ids.length; i++) {
+                int[] row = rows.get(i);
+                if (row[3] == 1) {
+                    completed.add(new int[] {ids[i], row[0], row[1], row[2]});
+                }
+            }
+        }
+    }
+
+    private void insertPrescriptions(Connection conn, Random random, List<int[]> completed, int[] inventoryIds,
+                                     Summary summary) throws SQLException {
+        String sql = "INSERT INTO prescription (prescription_date, patient_id, doctor_id, appointment_id) VALUES (?, ?, ?, ?)";
+        int rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql, new String[] {"prescription_id"})) {
+            for (int[] appointment : completed) {
+                if (random.nextDouble() >= scale.getPrescriptionRate()) {
+                    continue;
+                }
+                ps.setDate(1, Date.valueOf(referenceDate.plusDays(appointment[3])));
+                ps.setInt(2, appointment[1]);
+                ps.setInt(3, appointment[2]);
+                ps.setInt(4, appointment[0]);
+                ps.addBatch();
+                rows++;
+            }
+            if (rows == 0) {
+                return;
+            }
+            int[] prescriptionIds = executeBatchForIds(ps, rows);
+            summary.prescriptions += prescriptionIds.length;
+            insertPrescriptionItems(conn, random, prescriptionIds, inventoryIds, summary);
+        }
+    }
+
+    private void insertPrescriptionItems(Connection conn, Random random, int[] prescriptionIds, int[] inventoryIds,
+                                         Summary summary) throws SQLException {
+        String sql = "INSERT INTO prescription_item (dosage, duration, quantity, prescription_id, inventory_id) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int prescriptionId : prescriptionIds) {
+                int items = 1 + random.nextInt(3);
+                for (int i = 0; i < items; i++) {
+                    int timesPerDay = 1 + random.nextInt(3);
+                    int days = 3 + random.nextInt(28);
+                    ps.setString(1, timesPerDay + "x daily");
+                    ps.setString(2, days + " days");
+                    ps.setInt(3, timesPerDay * days);
+                    ps.setInt(4, prescriptionId);
+                    ps.setInt(5, inventoryIds[skewedIndex(random, inventoryIds.length)]);
+                    ps.addBatch();
+                    summary.prescriptionItems++;
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertMedicalRecords(Connection conn, Random random, int[] patientIds, int[] doctorIds,
+                                      Summary summary) throws SQLException {
+        String sql = "INSERT INTO medical_record (diagnosis, treatment, record_date, patient_id, doctor_id) VALUES (?, ?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int patientId : patientIds) {
+                int records = geometric(random, scale.getRecordsPerPatient());
+                for (int i = 0; i < records; i++) {
+                    ps.setString(1, DIAGNOSES[skewedIndex(random, DIAGNOSES.length)]);
+                    ps.setString(2, TREATMENTS[random.nextInt(TREATMENTS.length)]);
+                    ps.setDate(3, Date.valueOf(referenceDate.minusDays(random.nextInt(HISTORY_DAYS))));
+                    ps.setInt(4, patientId);
+                    ps.setInt(5, doctorIds[random.nextInt(doctorIds.length)]);
+                    ps.addBatch();
+                    summary.medicalRecords++;
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void insertNotes(Random random, int[] patientIds, Summary summary) {
+        // Draw the notes even without MongoDB so the SQL data stays identical either way
+        List<Document> documents = new ArrayList<>();
+        for (int patientId : patientIds) {
+            int notes = geometric(random, scale.getNotesPerPatient());
+            for (int i = 0; i < notes; i++) {
+                PatientNote note = new PatientNote(patientId, NOTES[random.nextInt(NOTES.length)]);
+                note.setCreatedAt(referenceDate.minusDays(random.nextInt(HISTORY_DAYS))
+                        .atTime(FIRST_SLOT_MINUTES / 60 + random.nextInt(9), random.nextInt(60)));
+                note.getMetadata().put("source", "synthetic");
+                documents.add(note.toDocument());
+            }
+        }
+        MongoDatabase db = MongoConnection.getDatabase();
+        if (db == null || documents.isEmpty()) {
+            return;
+        }
+        MongoCollection<Document> collection = db.getCollection("notes");
+        collection.insertMany(documents);
+        summary.notes += documents.size();
+    }
+
+    private static int[] executeBatchForIds(PreparedStatement ps, int expected) throws SQLException {
+        ps.executeBatch();
+        int[] ids = new int[expected];
+        int n = 0;
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            while (keys.next() && n < expected) {
+                ids[n++] = keys.getInt(1);
+            }
+        }
+        if (n != expected) {
+            throw new SQLException("Expected " + expected + " generated keys but got " + n);
+        }
+        return ids;
+    }
+
+    private String email(String first, String last, String suffix) {
+        return (first + "." + last + "." + suffix + "." + tag + "@example.com").toLowerCase();
+    }
+
+    // Squaring a uniform value favours low indexes, giving a few very busy doctors/items and a long tail
+    private static int skewedIndex(Random random, int size) {
+        double u = random.nextDouble();
+        return (int) (u * u * size);
+    }
+
+    // Geometric-like count with the given mean: most patients have a few rows, some have many
+    private static int geometric(Random random, double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        return (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * mean);
+    }
+
+    private static long slotKey(int doctorId, int dayOffset, int slot) {
+        return ((long) doctorId << 32) | ((long) (dayOffset + HISTORY_DAYS) << 8) | slot;
+    }
+}
@@ -0,0 +1,159 @@
+package com.hospital.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the application's background work (JavaFX Tasks for loading, saving and searching)
+ * instead of each caller starting its own thread.
+ *
+ * At most {@link #MAX_CONCURRENT} tasks run at once, sized so they cannot take every
+ * connection from the database pool: the background scheduler and the cache refresh threads
+ * keep theirs. On Java 21+ each task gets a virtual thread, with the bound enforced by a
+ * semaphore; otherwise a fixed pool of daemon platform threads is used. Work beyond
+ * {@link #QUEUE_CAPACITY} waiting tasks is rejected.
+ */
+public class TaskExecutor {
+    // The scheduler thread and the two cache refresh threads may each hold a connection
+    private static final int RESERVED_CONNECTIONS = 3;
+    public static final int MAX_CONCURRENT = DatabaseConnection.MAXIMUM_POOL_SIZE - RESERVED_CONNECTIONS;
+    public static final int QUEUE_CAPACITY = 1_000;
+    private static final long SHUTDOWN_WAIT_SECONDS = 2;
+
+    private static final AtomicInteger queued = new AtomicInteger();
+    private static final AtomicInteger active = new AtomicInteger();
+    private static final LongAdder completed = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+    private static final Semaphore permits = new Semaphore(MAX_CONCURRENT, true);
+    private static final boolean virtualThreads;
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        EXECUTOR = virtual != null ? virtual : newPlatformThreadExecutor();
+    }
+
+    /**
+     * Queues the work to run in the background.
+     *
+     * @throws RejectedExecutionException if the queue is full or the executor has shut down
+     */
+    public static void execute(Runnable work) {
+        if (queued.incrementAndGet() > QUEUE_CAPACITY) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Too many background tasks waiting (" + QUEUE_CAPACITY + ")");
+        }
+        try {
+            EXECUTOR.execute(() -> run(work));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private static void run(Runnable work) {
+        boolean acquired = false;
+        try {
+            // Virtual threads are unbounded; the platform pool already has MAX_CONCURRENT threads
+            if (virtualThreads) {
+                permits.acquire();
+                acquired = true;
+            }
+            queued.decrementAndGet();
+            active.incrementAndGet();
+            try {
+                work.run();
+            } finally {
+                active.decrementAndGet();
+                completed.increment();
+            }
+        } catch (InterruptedException e) {
+            // Shut down while waiting for a permit
+            queued.decrementAndGet();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Tasks submitted but not yet started.
+     */
+    public static int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Tasks currently running.
+     */
+    public static int getActiveCount() {
+        return active.get();
+    }
+
+    public static long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public static long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public static boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Interrupts running tasks and waits briefly for them to give their connections back,
+     * so the pool can be closed after this returns.
+     */
+    public static void shutdown() {
+        EXECUTOR.shutdownNow();
+        try {
+            if (!EXECUTOR.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Background tasks still running at shutdown: " + active.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() when running on Java 21+. Looked up
+     * reflectively because the build targets Java 17.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT, MAX_CONCURRENT, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "task-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        // Idle threads exit, so an idle application holds none
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hospital.util;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ComboBox;
+import javafx.util.StringConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Makes a combo box editable and filters its list as the user types. The typed text goes
+ * to a search function, normally an in-memory index; while that has no answer (returns
+ * null) the items already loaded are filtered instead. Clearing the text brings back the
+ * original list.
+ */
+public class TypeAhead {
+    private static final int LIMIT = 50;
+
+    /**
+     * Installs type-ahead on a combo box whose items and converter are already set.
+     *
+     * @param search returns up to the given number of matches for the text, or null if it
+     *               cannot answer yet
+     */
+    public static <T> void install(ComboBox<T> comboBox, BiFunction<String, Integer, List<T>> search) {
+        ObservableList<T> allItems = comboBox.getItems();
+        StringConverter<T> display = comboBox.getConverter();
+        comboBox.setEditable(true);
+        comboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(T item) {
+                return display.toString(item);
+            }
+
+            @Override
+            public T fromString(String text) {
+                // Committing typed text picks the item it names, or the only match left
+                for (T item : comboBox.getItems()) {
+                    if (display.toString(item).equalsIgnoreCase(text)) {
+                        return item;
+                    }
+                }
+                return comboBox.getItems().size() == 1 ? comboBox.getItems().get(0) : null;
+            }
+        });
+
+        comboBox.getEditor().textProperty().addListener((obs, oldText, text) -> {
+            T value = comboBox.getValue();
+            if (value != null && display.toString(value).equals(text)) {
+                // Set by picking an item, not by typing
+                return;
+            }
+            if (text == null || text.isBlank()) {
+                comboBox.setItems(allItems);
+                return;
+            }
+            List<T> matches = search.apply(text, LIMIT);
+            if (matches == null) {
+                matches = filter(allItems, display, text);
+            }
+            comboBox.setItems(FXCollections.observableArrayList(matches));
+            if (!matches.isEmpty() && !comboBox.isShowing() && comboBox.getScene() != null) {
+                comboBox.show();
+            }
+        });
+    }
+
+    private static <T> List<T> filter(List<T> items, StringConverter<T> display, String text) {
+        String q = text.trim().toLowerCase();
+        List<T> matches = new ArrayList<>();
+        for (T item : items) {
+            if (display.toString(item).toLowerCase().contains(q)) {
+                matches.add(item);
+                if (matches.size() == LIMIT) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+}
@@ -138,25 +138,87 @@ CREATE TABLE patient_feedback (
         ON DELETE CASCADE
 );
 
+-- 1.10 APPOINTMENT_SERIES
+-- A recurring appointment stored as its rule; occurrences are expanded when queried
+CREATE TABLE appointment_series (
+    series_id SERIAL PRIMARY KEY,
+    start_date DATE NOT NULL,
+    appointment_time TIME NOT NULL,
+    frequency VARCHAR(10) NOT NULL CHECK (frequency IN ('DAILY', 'WEEKLY', 'MONTHLY')),
+    interval_count INT NOT NULL DEFAULT 1 CHECK (interval_count > 0),
+    end_date DATE,
+    occurrence_count INT CHECK (occurrence_count > 0),
+    patient_id INT NOT NULL,
+    doctor_id INT NOT NULL,
+    CONSTRAINT chk_series_ends
+        CHECK (end_date IS NOT NULL OR occurrence_count IS NOT NULL),
+    CONSTRAINT fk_series_patient
+        FOREIGN KEY (patient_id)
+        REFERENCES patient(patient_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_series_doctor
+        FOREIGN KEY (doctor_id)
+        REFERENCES doctor(doctor_id)
+        ON DELETE CASCADE
+);
+
+-- 1.11 APPOINTMENT_SERIES_EXCEPTION
+-- An occurrence that no longer follows its series: replaced by the appointment row it was
+-- materialized as (moved, completed, cancelled), or removed when appointment_id is null
+CREATE TABLE appointment_series_exception (
+    series_id INT NOT NULL,
+    occurrence_date DATE NOT NULL,
+    appointment_id INT,
+    PRIMARY KEY (series_id, occurrence_date),
+    CONSTRAINT fk_series_exception_series
+        FOREIGN KEY (series_id)
+        REFERENCES appointment_series(series_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_series_exception_appointment
+        FOREIGN KEY (appointment_id)
+        REFERENCES appointment(appointment_id)
+        ON DELETE SET NULL
+);
+
 -- 2. Indexing Strategy
 CREATE INDEX idx_patient_name ON patient (last_name, first_name);
 CREATE INDEX idx_patient_email ON patient (email);
 CREATE INDEX idx_patient_phone ON patient (phone);
 CREATE INDEX idx_patient_registration_date ON patient (registration_date);
-CREATE INDEX idx_appointment_date ON appointment (appointment_date);
+-- Also serves the date-ordered appointment listings without a sort
+CREATE INDEX idx_appointment_date_time ON appointment (appointment_date, appointment_time, appointment_id);
 CREATE INDEX idx_appointment_doctor ON appointment (doctor_id);
 CREATE INDEX idx_appointment_patient ON appointment (patient_id);
+-- Keyset pagination of a doctor's / patient's appointments, newest first
+CREATE INDEX idx_appointment_doctor_date ON appointment (doctor_id, appointment_date DESC, appointment_time DESC, appointment_id DESC);
+CREATE INDEX idx_appointment_patient_date ON appointment (patient_id, appointment_date DESC, appointment_time DESC, appointment_id DESC);
 CREATE INDEX idx_appointment_status ON appointment (status);
+-- No two scheduled appointments for a doctor at the same time; also serves the clash check
+CREATE UNIQUE INDEX uq_appointment_doctor_slot ON appointment (doctor_id, appointment_date, appointment_time) WHERE status = 'Scheduled';
+CREATE INDEX idx_appointment_series_doctor ON appointment_series (doctor_id);
+CREATE INDEX idx_appointment_series_patient ON appointment_series (patient_id);
 CREATE INDEX idx_doctor_department ON doctor (department_id);
 CREATE INDEX idx_doctor_specialization ON doctor (specialization);
 CREATE INDEX idx_doctor_name ON doctor (last_name, first_name);
 CREATE INDEX idx_prescription_patient ON prescription (patient_id);
 CREATE INDEX idx_prescription_date ON prescription (prescription_date);
+CREATE INDEX idx_prescription_patient_date ON prescription (patient_id, prescription_date DESC, prescription_id DESC);
+CREATE INDEX idx_prescription_item_prescription ON prescription_item (prescription_id);
 CREATE INDEX idx_medical_record_patient ON medical_record (patient_id);
 CREATE INDEX idx_medical_record_date ON medical_record (record_date);
 CREATE INDEX idx_medical_record_doctor ON medical_record (doctor_id);
+CREATE INDEX idx_medical_record_patient_date ON medical_record (patient_id, record_date DESC, record_id DESC);
 CREATE INDEX idx_inventory_item_name ON medical_inventory (item_name);
 CREATE INDEX idx_inventory_item_type ON medical_inventory (item_type);
 CREATE INDEX idx_feedback_patient ON patient_feedback (patient_id);
 CREATE INDEX idx_feedback_doctor ON patient_feedback (doctor_id);
 CREATE INDEX idx_feedback_rating ON patient_feedback (rating);
+
+-- 3. Search: trigram indexes behind ranked, typo-tolerant patient and doctor search.
+-- The expressions must match those in SearchSql; SchemaMigrator adds them to existing databases.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_patient_full_name_trgm ON patient USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
+CREATE INDEX idx_patient_phone_trgm ON patient USING gin (phone gin_trgm_ops);
+CREATE INDEX idx_patient_email_trgm ON patient USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX idx_doctor_full_name_trgm ON doctor USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
+CREATE INDEX idx_doctor_email_trgm ON doctor USING gin (lower(email) gin_trgm_ops);